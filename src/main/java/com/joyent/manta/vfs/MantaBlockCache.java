@@ -0,0 +1,301 @@
+package com.joyent.manta.vfs;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of fixed-size blocks of Manta objects shared by all random
+ * access readers of a filesystem. Blocks are stored in direct (off-heap)
+ * memory and are keyed by path, etag and block number, so a block of an
+ * object that has since been overwritten is never returned for the new
+ * version. When the configured byte budget is exceeded, the least recently
+ * used blocks are evicted. A cache created with a budget of zero is disabled
+ * and never stores any blocks.
+ *
+ * @since 1.0.2
+ */
+public class MantaBlockCache {
+    /**
+     * Initial capacity of the backing map.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the backing map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Maximum number of bytes of blocks held.
+     */
+    private final long maxBytes;
+
+    /**
+     * Size in bytes of each block.
+     */
+    private final int blockSize;
+
+    /**
+     * Access ordered map of blocks used to implement LRU eviction.
+     */
+    private final LinkedHashMap<BlockKey, ByteBuffer> blocks =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * Number of bytes of blocks currently held.
+     */
+    private long bytes = 0L;
+
+    /**
+     * Number of lookups that found a block.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups that didn't find a block.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Number of bytes served from cached blocks rather than requested from Manta.
+     */
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxBytes maximum number of bytes of blocks to hold (0 disables the cache)
+     * @param blockSize size in bytes of each block
+     */
+    public MantaBlockCache(final long maxBytes, final int blockSize) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum bytes must be zero or greater");
+        }
+
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be 1 or greater");
+        }
+
+        this.maxBytes = maxBytes;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Indicates if the cache stores blocks.
+     *
+     * @return true if the cache can hold at least one block
+     */
+    public boolean isEnabled() {
+        return maxBytes >= blockSize;
+    }
+
+    /**
+     * Gets the size in bytes of each block.
+     *
+     * @return block size in bytes
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets a cached block.
+     *
+     * @param path path of the object
+     * @param etag etag of the object
+     * @param block block number within the object
+     * @return read-only view of the block positioned at its start or null if not present
+     */
+    public ByteBuffer get(final String path, final String etag, final long block) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final ByteBuffer cached;
+
+        synchronized (blocks) {
+            cached = blocks.get(new BlockKey(path, etag, block));
+        }
+
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(cached.capacity());
+
+        return cached.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies a block into the cache, evicting the least recently used blocks
+     * until the cache fits within its budget.
+     *
+     * @param path path of the object
+     * @param etag etag of the object
+     * @param block block number within the object
+     * @param content array containing the block
+     * @param length number of bytes of the array in the block
+     */
+    public void put(final String path, final String etag, final long block,
+                    final byte[] content, final int length) {
+        Objects.requireNonNull(path, "Path must be present");
+        Objects.requireNonNull(etag, "Etag must be present");
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        final ByteBuffer copy = ByteBuffer.allocateDirect(length);
+        copy.put(content, 0, length);
+        copy.flip();
+
+        synchronized (blocks) {
+            final ByteBuffer previous = blocks.put(new BlockKey(path, etag, block), copy);
+
+            if (previous != null) {
+                bytes -= previous.capacity();
+            }
+
+            bytes += copy.capacity();
+
+            final Iterator<ByteBuffer> eldest = blocks.values().iterator();
+
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().capacity();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all blocks.
+     */
+    public void invalidateAll() {
+        synchronized (blocks) {
+            blocks.clear();
+            bytes = 0L;
+        }
+    }
+
+    /**
+     * Gets the number of blocks currently held.
+     *
+     * @return number of blocks
+     */
+    public int size() {
+        synchronized (blocks) {
+            return blocks.size();
+        }
+    }
+
+    /**
+     * Gets the number of bytes of blocks currently held.
+     *
+     * @return number of bytes
+     */
+    public long getByteSize() {
+        synchronized (blocks) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a block.
+     *
+     * @return number of cache hits since creation
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that didn't find a block.
+     *
+     * @return number of cache misses since creation
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the fraction of lookups that found a block.
+     *
+     * @return hit rate between 0 and 1 (0 when there have been no lookups)
+     */
+    public double getHitRate() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+
+        return total == 0L ? 0.0 : (double)hitCount / total;
+    }
+
+    /**
+     * Gets the number of bytes in blocks served from the cache rather than
+     * requested from Manta.
+     *
+     * @return number of bytes since creation
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * Key identifying a block of a specific version of an object.
+     */
+    private static final class BlockKey {
+        /**
+         * Path of the object.
+         */
+        private final String path;
+
+        /**
+         * Etag of the object.
+         */
+        private final String etag;
+
+        /**
+         * Block number within the object.
+         */
+        private final long block;
+
+        /**
+         * Creates a new key.
+         *
+         * @param path path of the object
+         * @param etag etag of the object
+         * @param block block number within the object
+         */
+        private BlockKey(final String path, final String etag, final long block) {
+            this.path = path;
+            this.etag = etag;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof BlockKey)) {
+                return false;
+            }
+
+            final BlockKey other = (BlockKey)o;
+
+            return block == other.block
+                    && path.equals(other.path)
+                    && etag.equals(other.etag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, etag, block);
+        }
+    }
+}
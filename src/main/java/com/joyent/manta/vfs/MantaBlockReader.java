@@ -0,0 +1,220 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaClient;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Reads a specific version of a Manta object a block at a time through a
+ * {@link MantaBlockCache}. Blocks that aren't cached are read from a ranged
+ * request with an <code>If-Match</code> header containing the object's etag,
+ * so the bytes stored under that etag always belong to that version of the
+ * object. The request is kept open and reused for following blocks, and
+ * short forward gaps are skipped on it rather than opening a new request.
+ *
+ * @since 1.0.2
+ */
+public class MantaBlockReader implements Closeable {
+    /**
+     * Constant indicated the end of a file has been reached.
+     */
+    public static final int EOF = -1;
+
+    /**
+     * Manta driver used to request blocks.
+     */
+    private final MantaClient client;
+
+    /**
+     * Path of the object being read.
+     */
+    private final String path;
+
+    /**
+     * Size of the object in bytes.
+     */
+    private final long size;
+
+    /**
+     * Etag of the version of the object being read.
+     */
+    private final String etag;
+
+    /**
+     * Cache shared between readers.
+     */
+    private final MantaBlockCache cache;
+
+    /**
+     * Maximum number of bytes skipped on the open request.
+     */
+    private final long maxSkip;
+
+    /**
+     * Block read from Manta, reused between reads.
+     */
+    private final byte[] scratch;
+
+    /**
+     * Open ranged request or null if none is open.
+     */
+    private InputStream cursor;
+
+    /**
+     * Offset within the object of the next byte of the open request.
+     */
+    private long cursorPosition;
+
+    /**
+     * Creates a new instance configured from the settings of a filesystem.
+     *
+     * @param fs filesystem to read from
+     * @param path path of the object to read
+     * @param size size of the object in bytes
+     * @param etag etag of the version of the object to read
+     */
+    public MantaBlockReader(final MantaFileSystem fs, final String path,
+                            final long size, final String etag) {
+        this(fs.getClient(), path, size, etag, fs.getBlockCache(), fs.getRandomAccessMaxSkip());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta driver used to request blocks
+     * @param path path of the object to read
+     * @param size size of the object in bytes
+     * @param etag etag of the version of the object to read
+     * @param cache cache shared between readers
+     * @param maxSkip maximum number of bytes skipped on an open request
+     *                rather than opening a new request
+     */
+    public MantaBlockReader(final MantaClient client,
+                            final String path,
+                            final long size,
+                            final String etag,
+                            final MantaBlockCache cache,
+                            final long maxSkip) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must be zero or greater");
+        }
+
+        this.client = Objects.requireNonNull(client, "Manta client must be present");
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.etag = Objects.requireNonNull(etag, "Etag must be present");
+        this.cache = Objects.requireNonNull(cache, "Block cache must be present");
+        this.size = size;
+        this.maxSkip = maxSkip;
+        this.scratch = new byte[cache.getBlockSize()];
+    }
+
+    /**
+     * Gets the size of the object.
+     *
+     * @return size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the size in bytes of each block.
+     *
+     * @return block size in bytes
+     */
+    public int getBlockSize() {
+        return scratch.length;
+    }
+
+    /**
+     * Reads bytes from the block containing a position. At most the bytes
+     * up to the end of that block are read.
+     *
+     * @param position offset within the object to read from
+     * @param b array to read into
+     * @param off offset within the array
+     * @param len maximum number of bytes to read
+     * @return number of bytes read or {@link #EOF} at the end of the object
+     * @throws IOException thrown when the block can't be requested or the object has changed
+     */
+    public int read(final long position, final byte[] b, final int off, final int len) throws IOException {
+        if (position >= size) {
+            return EOF;
+        }
+
+        final int blockSize = scratch.length;
+        final long block = position / blockSize;
+        final int offset = (int)(position % blockSize);
+        final ByteBuffer cached = cache.get(path, etag, block);
+
+        if (cached != null) {
+            final int count = Math.min(len, cached.remaining() - offset);
+            cached.position(offset);
+            cached.get(b, off, count);
+            return count;
+        }
+
+        final int length = load(block);
+        final int count = Math.min(len, length - offset);
+        System.arraycopy(scratch, offset, b, off, count);
+
+        return count;
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(cursor);
+        cursor = null;
+    }
+
+    /**
+     * Reads a block from Manta into the scratch array and adds it to the cache.
+     *
+     * @param block block number within the object
+     * @return number of bytes in the block
+     * @throws IOException thrown when the block can't be requested or the object has changed
+     */
+    private int load(final long block) throws IOException {
+        final long start = block * scratch.length;
+        final int length = (int)Math.min(scratch.length, size - start);
+
+        if (cursor == null || start < cursorPosition || start - cursorPosition > maxSkip) {
+            open(start);
+        } else {
+            IOUtils.skipFully(cursor, start - cursorPosition);
+            cursorPosition = start;
+        }
+
+        try {
+            IOUtils.readFully(cursor, scratch, 0, length);
+        } catch (EOFException e) {
+            close();
+            final String msg = String.format("%s is shorter than its expected size of %d bytes", path, size);
+            throw new IOException(msg, e);
+        }
+
+        cursorPosition += length;
+        cache.put(path, etag, block, scratch, length);
+
+        return length;
+    }
+
+    /**
+     * Opens a ranged request from a position to the end of the object.
+     *
+     * @param start offset within the object to start from
+     * @throws IOException thrown when the request fails or the object has changed
+     */
+    private void open(final long start) throws IOException {
+        close();
+
+        cursor = MantaFileSystem.getRange(client, path, start, null, etag);
+        cursorPosition = start;
+    }
+}
@@ -0,0 +1,173 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.exception.MantaChecksumFailedException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * {@link InputStream} that computes the MD5 of an object as it is read and
+ * compares it to the checksum Manta recorded for the object once the end of
+ * the stream is reached, so that an object is verified without reading it a
+ * second time. A mismatch fails the read that reached the end of the stream
+ * with a {@link MantaChecksumFailedException}.
+ *
+ * <p>Only a stream that is read to its end can be verified. Skipped bytes are
+ * read and digested rather than skipped on the connection, and mark / reset
+ * isn't supported.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaChecksumInputStream extends FilterInputStream {
+    /**
+     * Constant indicated the end of a file has been reached.
+     */
+    private static final int EOF = -1;
+
+    /**
+     * Size of the buffer used to read through skipped bytes.
+     */
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    /**
+     * Path of the object being read.
+     */
+    private final String path;
+
+    /**
+     * MD5 recorded by Manta for the object.
+     */
+    private final byte[] expected;
+
+    /**
+     * Digest of the bytes read so far.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Flag indicating the checksum was compared.
+     */
+    private boolean verified = false;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param in stream of the object's content
+     * @param path path of the object being read
+     * @param expected MD5 recorded by Manta for the object
+     */
+    public MantaChecksumInputStream(final InputStream in, final String path, final byte[] expected) {
+        super(Objects.requireNonNull(in, "Input stream must be present"));
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.expected = Objects.requireNonNull(expected, "Expected checksum must be present").clone();
+        this.digest = newMd5Digest();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int read = in.read();
+
+        if (read == EOF) {
+            verify();
+        } else {
+            digest.update((byte)read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read = in.read(b, off, len);
+
+        if (read == EOF) {
+            verify();
+        } else {
+            digest.update(b, off, read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final byte[] buffer = new byte[(int)Math.min(SKIP_BUFFER_SIZE, Math.max(n, 0L))];
+        long skipped = 0L;
+
+        while (skipped < n) {
+            final int read = read(buffer, 0, (int)Math.min(buffer.length, n - skipped));
+
+            if (read == EOF) {
+                break;
+            }
+
+            skipped += read;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+        // mark isn't supported because reset would digest bytes twice
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Indicates if the stream was read to its end and its checksum matched.
+     *
+     * @return true if the content was verified
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    /**
+     * Compares the digest of everything read to the expected checksum.
+     *
+     * @throws MantaChecksumFailedException thrown when the checksums differ
+     */
+    private void verify() throws MantaChecksumFailedException {
+        if (verified) {
+            return;
+        }
+
+        final byte[] actual = digest.digest();
+
+        if (!MessageDigest.isEqual(actual, expected)) {
+            final String msg = String.format("Checksum of %s doesn't match the server's: expected %s but read %s",
+                    path, Base64.getEncoder().encodeToString(expected),
+                    Base64.getEncoder().encodeToString(actual));
+            throw new MantaChecksumFailedException(msg);
+        }
+
+        verified = true;
+    }
+
+    /**
+     * Creates a new MD5 digest.
+     *
+     * @return digest instance
+     */
+    static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required to be supported by every JVM", e);
+        }
+    }
+}
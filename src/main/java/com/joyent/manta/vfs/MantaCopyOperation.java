@@ -0,0 +1,293 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.NameScope;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link FileOperation} that copies a directory tree within Manta without
+ * transferring any file content. Destination directories are created level
+ * by level and every selected file is copied by creating a snaplink to the
+ * source, with the requests for each step made concurrently.
+ *
+ * <p>This is what {@link MantaFileObject#copyFrom(FileObject, FileSelector)}
+ * uses when copying a Manta directory with a recursive selector. Like
+ * {@link org.apache.commons.vfs2.provider.AbstractFileObject#copyFrom(FileObject, FileSelector)},
+ * a destination of another type than its source (e.g. a directory where a
+ * file is copied to) is deleted first, and existing files are replaced by
+ * the snaplink. The metadata of all destinations is loaded up front with
+ * concurrent requests. A failure doesn't stop the rest of the copy. All
+ * failures are reported once every file has been attempted.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaCopyOperation implements FileOperation {
+    /**
+     * Destination folder of the copy.
+     */
+    private final MantaFileObject destination;
+
+    /**
+     * Folder to copy from.
+     */
+    private FileObject source;
+
+    /**
+     * Selector that determines which files are copied.
+     */
+    private FileSelector selector = Selectors.SELECT_ALL;
+
+    /**
+     * Number of directories created.
+     */
+    private final AtomicLong createdDirectoryCount = new AtomicLong();
+
+    /**
+     * Number of files linked.
+     */
+    private final AtomicLong linkedFileCount = new AtomicLong();
+
+    /**
+     * Errors keyed by the destination path that couldn't be created.
+     */
+    private final Map<String, FileSystemException> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance that copies into the specified folder.
+     *
+     * @param destination destination folder of the copy
+     */
+    public MantaCopyOperation(final MantaFileObject destination) {
+        this.destination = Objects.requireNonNull(destination, "Destination file must be present");
+    }
+
+    /**
+     * Sets the Manta folder to copy from.
+     *
+     * @param source folder to copy from
+     * @return the current instance of {@link MantaCopyOperation}
+     */
+    public MantaCopyOperation setSource(final FileObject source) {
+        this.source = Objects.requireNonNull(source, "Source file must be present");
+        return this;
+    }
+
+    /**
+     * Sets the selector that determines which files are copied.
+     *
+     * @param selector file selector
+     * @return the current instance of {@link MantaCopyOperation}
+     */
+    public MantaCopyOperation setSelector(final FileSelector selector) {
+        this.selector = Objects.requireNonNull(selector, "Selector must be present");
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        if (source == null) {
+            throw new FileSystemException("Source file must be set before copying");
+        }
+
+        if (!(FileObjectUtils.getAbstractFileObject(source) instanceof MantaFileObject)) {
+            final String msg = String.format("Source file isn't stored on Manta: %s", source.getName());
+            throw new FileSystemException(msg);
+        }
+
+        if (!source.exists()) {
+            throw new FileSystemException("vfs.provider/copy-missing-file.error", source);
+        }
+
+        createdDirectoryCount.set(0L);
+        linkedFileCount.set(0L);
+        failures.clear();
+
+        final MantaFileSystem fs = (MantaFileSystem)destination.getFileSystem();
+        final List<FileObject> selected = new MantaParallelTraversal(fs)
+                .findFiles(source, selector, false);
+
+        if (selected.isEmpty()) {
+            return;
+        }
+
+        final Map<MantaFileObject, FileObject> destinations = new LinkedHashMap<>();
+
+        for (FileObject sourceFile : selected) {
+            destinations.put(resolveDestination(sourceFile), sourceFile);
+        }
+
+        fs.prefetch(destinations.keySet());
+
+        for (Map.Entry<MantaFileObject, FileObject> entry : destinations.entrySet()) {
+            final MantaFileObject destFile = entry.getKey();
+
+            if (destFile.exists() && destFile.getType() != entry.getValue().getType()) {
+                new MantaDeleteOperation(destFile).process();
+            }
+        }
+
+        destination.createFolder();
+
+        final TreeMap<Integer, Map<String, MantaFileObject>> foldersByDepth = new TreeMap<>();
+        final Map<MantaFileObject, MantaFileObject> links = new LinkedHashMap<>();
+
+        for (Map.Entry<MantaFileObject, FileObject> entry : destinations.entrySet()) {
+            final FileObject sourceFile = entry.getValue();
+            final MantaFileObject destFile = entry.getKey();
+
+            if (sourceFile.getType().hasChildren()) {
+                addFolder(foldersByDepth, destFile);
+            } else {
+                links.put(destFile, (MantaFileObject)FileObjectUtils.getAbstractFileObject(sourceFile));
+
+                /* Snaplinks can only be created in existing directories, so any
+                 * parent directory that wasn't selected is created as well. */
+                for (FileObject parent = destFile.getParent();
+                     parent != null && !parent.getName().equals(destination.getName());
+                     parent = parent.getParent()) {
+                    addFolder(foldersByDepth, (MantaFileObject)FileObjectUtils.getAbstractFileObject(parent));
+                }
+            }
+        }
+
+        for (Map<String, MantaFileObject> folders : foldersByDepth.values()) {
+            run(fs, folders.values(), this::createFolder);
+        }
+
+        run(fs, links.entrySet(), this::link);
+
+        if (!failures.isEmpty()) {
+            final String msg = String.format("Unable to copy %d of %d files from %s to %s",
+                    failures.size(), selected.size(), source.getName().getPath(),
+                    destination.getName().getPath());
+            throw new FileSystemException(msg, failures.values().iterator().next());
+        }
+    }
+
+    /**
+     * Resolves the destination of a source file relative to the destination folder.
+     *
+     * @param sourceFile file being copied
+     * @return destination file
+     * @throws FileSystemException when the destination can't be resolved
+     */
+    private MantaFileObject resolveDestination(final FileObject sourceFile) throws FileSystemException {
+        final String relPath = source.getName().getRelativeName(sourceFile.getName());
+        final FileObject destFile = destination.resolveFile(relPath, NameScope.DESCENDENT_OR_SELF);
+
+        return (MantaFileObject)FileObjectUtils.getAbstractFileObject(destFile);
+    }
+
+    /**
+     * Adds a destination folder to be created unless it is the destination
+     * folder itself, which is created up front.
+     *
+     * @param foldersByDepth folders to create keyed by depth and path
+     * @param folder folder to add
+     */
+    private void addFolder(final TreeMap<Integer, Map<String, MantaFileObject>> foldersByDepth,
+                           final MantaFileObject folder) {
+        if (folder.getName().equals(destination.getName())) {
+            return;
+        }
+
+        foldersByDepth.computeIfAbsent(folder.getName().getDepth(), depth -> new LinkedHashMap<>())
+                .putIfAbsent(folder.getName().getPath(), folder);
+    }
+
+    /**
+     * Invokes an action concurrently for every item, waiting until all of
+     * them have been attempted.
+     *
+     * @param fs filesystem whose executor runs the actions
+     * @param items items to act upon
+     * @param action action to invoke
+     * @param <T> type of item
+     * @throws FileSystemException when interrupted
+     */
+    private <T> void run(final MantaFileSystem fs,
+                         final Collection<T> items,
+                         final Consumer<T> action) throws FileSystemException {
+        try {
+            fs.forEachConcurrently(items, action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemException("vfs.provider/copy-file.error", e, source, destination);
+        } catch (ExecutionException e) {
+            throw new FileSystemException("vfs.provider/copy-file.error", e.getCause(), source, destination);
+        }
+    }
+
+    /**
+     * Creates a destination folder and records the outcome. This runs on
+     * the filesystem's executor.
+     *
+     * @param folder folder to create
+     */
+    private void createFolder(final MantaFileObject folder) {
+        try {
+            folder.createFolderConcurrently();
+            createdDirectoryCount.incrementAndGet();
+        } catch (FileSystemException e) {
+            failures.put(folder.getName().getPath(), e);
+        }
+    }
+
+    /**
+     * Links a destination file to its source and records the outcome. This
+     * runs on the filesystem's executor.
+     *
+     * @param link destination file mapped to the source file
+     */
+    private void link(final Map.Entry<MantaFileObject, MantaFileObject> link) {
+        try {
+            link.getKey().snapLinkConcurrently(link.getValue());
+            linkedFileCount.incrementAndGet();
+        } catch (FileSystemException e) {
+            failures.put(link.getKey().getName().getPath(), e);
+        }
+    }
+
+    /**
+     * Gets the number of destination directories created so far.
+     *
+     * @return number of directories created
+     */
+    public long getCreatedDirectoryCount() {
+        return createdDirectoryCount.get();
+    }
+
+    /**
+     * Gets the number of files linked so far.
+     *
+     * @return number of files linked
+     */
+    public long getLinkedFileCount() {
+        return linkedFileCount.get();
+    }
+
+    /**
+     * Gets the destination paths that couldn't be created so far.
+     *
+     * @return unmodifiable map of errors keyed by destination path
+     */
+    public Map<String, FileSystemException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+}
@@ -0,0 +1,198 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link FileOperation} that deletes the files selected by a
+ * {@link FileSelector} below a Manta folder using concurrent DELETE requests.
+ * All selected files are deleted first, followed by the selected directories
+ * from the deepest level upwards. Directories that aren't empty because some
+ * of their contents weren't selected (or couldn't be deleted) are skipped.
+ *
+ * <p>The number of concurrent requests is bounded by the filesystem's
+ * {@link MantaFileSystemConfigBuilder#setParallelism parallelism}. Progress
+ * can be polled from another thread while {@link #process()} is running.
+ * Unlike {@link FileObject#delete(FileSelector)}, a failure doesn't stop
+ * the deletion of the remaining files. Instead, all failures are recorded
+ * and reported once every file has been attempted.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaDeleteOperation implements FileOperation {
+    /**
+     * Folder to delete files from.
+     */
+    private final MantaFileObject base;
+
+    /**
+     * Selector that determines which files are deleted.
+     */
+    private FileSelector selector = Selectors.SELECT_ALL;
+
+    /**
+     * Number of files selected for deletion.
+     */
+    private final AtomicLong selectedCount = new AtomicLong();
+
+    /**
+     * Number of files deleted.
+     */
+    private final AtomicLong deletedCount = new AtomicLong();
+
+    /**
+     * Number of directories skipped because they weren't empty.
+     */
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * Errors keyed by the path of the file that couldn't be deleted.
+     */
+    private final Map<String, FileSystemException> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance that deletes files below the specified folder.
+     *
+     * @param base folder to delete files from
+     */
+    public MantaDeleteOperation(final MantaFileObject base) {
+        this.base = Objects.requireNonNull(base, "Base file must be present");
+    }
+
+    /**
+     * Sets the selector that determines which files are deleted.
+     *
+     * @param selector file selector
+     * @return the current instance of {@link MantaDeleteOperation}
+     */
+    public MantaDeleteOperation setSelector(final FileSelector selector) {
+        this.selector = Objects.requireNonNull(selector, "Selector must be present");
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        selectedCount.set(0L);
+        deletedCount.set(0L);
+        skippedCount.set(0L);
+        failures.clear();
+
+        final MantaFileSystem fs = (MantaFileSystem)base.getFileSystem();
+        final List<FileObject> selected = new MantaParallelTraversal(fs)
+                .findFiles(base, selector, true);
+        selectedCount.set(selected.size());
+
+        final List<FileObject> files = new ArrayList<>();
+        final TreeMap<Integer, List<FileObject>> foldersByDepth = new TreeMap<>(Collections.reverseOrder());
+
+        for (FileObject file : selected) {
+            if (file.getType().hasChildren()) {
+                foldersByDepth.computeIfAbsent(file.getName().getDepth(), depth -> new ArrayList<>())
+                        .add(file);
+            } else {
+                files.add(file);
+            }
+        }
+
+        deleteAll(fs, files);
+
+        for (List<FileObject> folders : foldersByDepth.values()) {
+            deleteAll(fs, folders);
+        }
+
+        if (!failures.isEmpty()) {
+            final String msg = String.format("Unable to delete %d of %d files below %s",
+                    failures.size(), selected.size(), base.getName().getPath());
+            throw new FileSystemException(msg, failures.values().iterator().next());
+        }
+    }
+
+    /**
+     * Deletes files concurrently, waiting until all of them have been attempted.
+     *
+     * @param fs filesystem whose executor runs the deletes
+     * @param files files to delete
+     * @throws FileSystemException when interrupted
+     */
+    private void deleteAll(final MantaFileSystem fs, final List<FileObject> files) throws FileSystemException {
+        try {
+            fs.forEachConcurrently(files, this::delete);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemException("vfs.provider/delete.error", e, base.getName());
+        } catch (ExecutionException e) {
+            throw new FileSystemException("vfs.provider/delete.error", e.getCause(), base.getName());
+        }
+    }
+
+    /**
+     * Deletes a single file and records the outcome. This runs on the
+     * filesystem's executor.
+     *
+     * @param file file to delete
+     */
+    private void delete(final FileObject file) {
+        try {
+            final MantaFileObject mantaFile = (MantaFileObject)FileObjectUtils.getAbstractFileObject(file);
+
+            if (mantaFile.deleteConcurrently()) {
+                deletedCount.incrementAndGet();
+            } else {
+                skippedCount.incrementAndGet();
+            }
+        } catch (FileSystemException e) {
+            failures.put(file.getName().getPath(), e);
+        }
+    }
+
+    /**
+     * Gets the number of files selected for deletion.
+     *
+     * @return number of files selected
+     */
+    public long getSelectedCount() {
+        return selectedCount.get();
+    }
+
+    /**
+     * Gets the number of files deleted so far.
+     *
+     * @return number of files deleted
+     */
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+
+    /**
+     * Gets the number of directories that weren't deleted because they
+     * weren't empty.
+     *
+     * @return number of directories skipped
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Gets the files that couldn't be deleted so far.
+     *
+     * @return unmodifiable map of errors keyed by file path
+     */
+    public Map<String, FileSystemException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+}
@@ -0,0 +1,424 @@
+package com.joyent.manta.vfs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Size-capped cache of whole Manta objects stored as files in a local
+ * directory. Files are named after a digest of the object's path and etag,
+ * so an object that has been overwritten is never served from the file of
+ * its previous version. The cache outlives the filesystem: the files already
+ * in the directory are picked up on first use, ordered by their last
+ * modified time, which is updated whenever a file is served. When the
+ * configured byte budget is exceeded, the least recently used files are
+ * deleted.
+ *
+ * <p>Filesystems that use the same directory within a JVM share a single
+ * instance obtained through {@link #forDirectory(Path, long)}, so that they
+ * account for and evict each other's files. Downloads left incomplete are
+ * removed once they haven't been written to for an hour, which leaves the
+ * downloads in progress in other processes using the directory alone.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaDiskCache {
+    /**
+     * Initial capacity of the backing map.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the backing map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Suffix of files that are still being downloaded.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Time in milliseconds after which an incomplete download that isn't
+     * being written to is considered abandoned.
+     */
+    private static final long ABANDONED_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Instances shared by the filesystems of this JVM, keyed by absolute directory.
+     */
+    private static final ConcurrentMap<Path, MantaDiskCache> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * Pattern matching the names of cached files.
+     */
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Directory containing the cached files.
+     */
+    private final Path directory;
+
+    /**
+     * Maximum number of bytes of files held.
+     */
+    private final long maxBytes;
+
+    /**
+     * Access ordered map of file names to sizes used to implement LRU eviction.
+     */
+    private final LinkedHashMap<String, Long> entries =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * Number of bytes of files currently held.
+     */
+    private long bytes = 0L;
+
+    /**
+     * Flag indicating that the files already in the directory have been loaded.
+     */
+    private boolean loaded = false;
+
+    /**
+     * Number of lookups that found a file.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups that didn't find a file.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new instance. The directory is created when the first file is added.
+     *
+     * @param directory directory containing the cached files
+     * @param maxBytes maximum number of bytes of files to hold
+     */
+    public MantaDiskCache(final Path directory, final long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum bytes must be zero or greater");
+        }
+
+        this.directory = Objects.requireNonNull(directory, "Cache directory must be present");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the instance shared within this JVM for a directory, creating it
+     * if needed. The byte budget of the first instance created for a
+     * directory applies to every filesystem using it.
+     *
+     * @param directory directory containing the cached files
+     * @param maxBytes maximum number of bytes of files to hold
+     * @return cache of the directory
+     */
+    public static MantaDiskCache forDirectory(final Path directory, final long maxBytes) {
+        Objects.requireNonNull(directory, "Cache directory must be present");
+        final Path key = directory.toAbsolutePath().normalize();
+
+        return SHARED.computeIfAbsent(key, dir -> new MantaDiskCache(dir, maxBytes));
+    }
+
+    /**
+     * Gets the directory containing the cached files.
+     *
+     * @return cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the maximum number of bytes of files held.
+     *
+     * @return cache size in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets the cached file of a version of an object.
+     *
+     * @param path path of the object
+     * @param etag etag of the object
+     * @return cached file or null if not present
+     * @throws IOException thrown when the cache directory can't be read
+     */
+    public Path get(final String path, final String etag) throws IOException {
+        final String name = entryName(path, etag);
+
+        synchronized (entries) {
+            load();
+
+            if (entries.get(name) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        final Path file = directory.resolve(name);
+
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            /* The file was removed from outside of this cache, so it is
+             * forgotten and requested again. */
+            synchronized (entries) {
+                final Long size = entries.remove(name);
+
+                if (size != null) {
+                    bytes -= size;
+                }
+            }
+
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return file;
+    }
+
+    /**
+     * Copies a version of an object into the cache, deleting the least
+     * recently used files until the cache fits within its budget. Objects
+     * larger than the whole cache aren't stored.
+     *
+     * @param path path of the object
+     * @param etag etag of the object
+     * @param in stream of the object's content
+     * @param size size of the object in bytes
+     * @return cached file or null if the object is too large to be cached
+     * @throws IOException thrown when the stream can't be read or the file can't be written
+     */
+    public Path put(final String path, final String etag, final InputStream in,
+                    final long size) throws IOException {
+        if (size > maxBytes) {
+            return null;
+        }
+
+        final String name = entryName(path, etag);
+        final Path file = directory.resolve(name);
+
+        /* Abandoned downloads are removed before any download of this
+         * instance starts. */
+        synchronized (entries) {
+            load();
+        }
+
+        Files.createDirectories(directory);
+        final Path temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+
+        try {
+            final long copied = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+
+            if (copied != size) {
+                final String msg = String.format("Expected %d bytes of %s but received %d",
+                        size, path, copied);
+                throw new IOException(msg);
+            }
+
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        final List<String> evicted = new ArrayList<>();
+
+        synchronized (entries) {
+            final Long previous = entries.put(name, size);
+
+            if (previous != null) {
+                bytes -= previous;
+            }
+
+            bytes += size;
+
+            final Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+
+            while (bytes > maxBytes && eldest.hasNext()) {
+                final Map.Entry<String, Long> entry = eldest.next();
+
+                if (entry.getKey().equals(name)) {
+                    continue;
+                }
+
+                bytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+
+        /* Files that are open or mapped by readers remain readable after
+         * being deleted. */
+        for (String evictedName : evicted) {
+            Files.deleteIfExists(directory.resolve(evictedName));
+        }
+
+        return file;
+    }
+
+    /**
+     * Gets the number of files currently held.
+     *
+     * @return number of files
+     * @throws IOException thrown when the cache directory can't be read
+     */
+    public int size() throws IOException {
+        synchronized (entries) {
+            load();
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets the number of bytes of files currently held.
+     *
+     * @return number of bytes
+     * @throws IOException thrown when the cache directory can't be read
+     */
+    public long getByteSize() throws IOException {
+        synchronized (entries) {
+            load();
+            return bytes;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a file.
+     *
+     * @return number of cache hits since creation
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that didn't find a file.
+     *
+     * @return number of cache misses since creation
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Loads the files already in the cache directory in the order they were
+     * last used, removing downloads that were abandoned by a previous process.
+     * Must be called while holding the lock on the entries.
+     *
+     * @throws IOException thrown when the cache directory can't be read
+     */
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+
+        if (Files.isDirectory(directory)) {
+            final List<Path> files = new ArrayList<>();
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path file : stream) {
+                    final String name = file.getFileName().toString();
+
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        deleteIfAbandoned(file);
+                    } else if (ENTRY_NAME.matcher(name).matches() && Files.isRegularFile(file)) {
+                        files.add(file);
+                    }
+                }
+            }
+
+            final Map<Path, FileTime> modified = new LinkedHashMap<>(files.size());
+
+            for (Path file : files) {
+                modified.put(file, Files.getLastModifiedTime(file));
+            }
+
+            files.sort(Comparator.comparing(modified::get));
+
+            for (Path file : files) {
+                final long size = Files.size(file);
+                entries.put(file.getFileName().toString(), size);
+                bytes += size;
+            }
+        }
+
+        loaded = true;
+    }
+
+    /**
+     * Deletes an incomplete download that hasn't been written to for long
+     * enough to be considered abandoned.
+     *
+     * @param temp incomplete download
+     * @throws IOException thrown when the file can't be deleted
+     */
+    private static void deleteIfAbandoned(final Path temp) throws IOException {
+        final long modified;
+
+        try {
+            modified = Files.getLastModifiedTime(temp).toMillis();
+        } catch (NoSuchFileException e) {
+            return;
+        }
+
+        if (System.currentTimeMillis() - modified > ABANDONED_TEMP_MILLIS) {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gets the name of the cached file of a version of an object.
+     *
+     * @param path path of the object
+     * @param etag etag of the object
+     * @return hex encoded SHA-256 digest of the path and etag
+     */
+    private static String entryName(final String path, final String etag) {
+        Objects.requireNonNull(path, "Path must be present");
+        Objects.requireNonNull(etag, "Etag must be present");
+
+        final byte[] digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256")
+                    .digest((path + '\0' + etag).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported", e);
+        }
+
+        final StringBuilder name = new StringBuilder(digest.length * 2);
+
+        for (byte b : digest) {
+            name.append(String.format("%02x", b));
+        }
+
+        return name.toString();
+    }
+}
@@ -0,0 +1,364 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaObject;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link FileOperation} that downloads a Manta object to a local file,
+ * writing response bodies straight into a {@link FileChannel} instead of
+ * copying them through VFS streams and heap buffers. When parallel downloads
+ * are enabled and the object is larger than a download chunk, the file is
+ * preallocated and its ranges are downloaded concurrently into their
+ * regions of the file.
+ *
+ * <p>The object is written to a temporary file next to the destination and
+ * moved into place once complete, so a failed download never leaves a
+ * truncated file behind. The temporary file gets the default permissions of
+ * new files, or the permissions of the file it replaces. Ranges are
+ * downloaded on the filesystem's shared download pool, and each must be
+ * returned as a partial response starting at the requested offset. Ranged
+ * requests carry an <code>If-Match</code> header containing the object's
+ * etag, so that the download fails rather than mixing two versions of an
+ * object that is replaced meanwhile. When download verification is enabled,
+ * the file is checked against the MD5 recorded by Manta before it is moved
+ * into place.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaDownloadOperation implements FileOperation {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaDownloadOperation.class);
+
+    /**
+     * Object to download.
+     */
+    private final MantaFileObject file;
+
+    /**
+     * Local file to write to.
+     */
+    private Path destination;
+
+    /**
+     * Local file object to refresh once written or null.
+     */
+    private FileObject destinationFile;
+
+    /**
+     * Number of requests made by the last invocation of {@link #process()}.
+     */
+    private int requestCount = 0;
+
+    /**
+     * Creates a new instance that downloads the specified file.
+     *
+     * @param file object to download
+     */
+    public MantaDownloadOperation(final MantaFileObject file) {
+        this.file = Objects.requireNonNull(file, "File must be present");
+    }
+
+    /**
+     * Sets the local file to download to. An existing file is replaced.
+     *
+     * @param path local path to write to
+     * @return the current instance of {@link MantaDownloadOperation}
+     */
+    public MantaDownloadOperation setDestination(final Path path) {
+        this.destination = Objects.requireNonNull(path, "Destination must be present");
+        this.destinationFile = null;
+        return this;
+    }
+
+    /**
+     * Sets the local file to download to. An existing file is replaced.
+     *
+     * @param localFile file object of the local filesystem to write to
+     * @return the current instance of {@link MantaDownloadOperation}
+     * @throws FileSystemException thrown when the file isn't a local file
+     */
+    public MantaDownloadOperation setDestination(final FileObject localFile) throws FileSystemException {
+        Objects.requireNonNull(localFile, "Destination must be present");
+
+        if (!(FileObjectUtils.getAbstractFileObject(localFile) instanceof LocalFile)) {
+            final String msg = String.format("Destination [%s] is not a local file", localFile.getName());
+            throw new FileSystemException(msg);
+        }
+
+        this.destination = Paths.get(URI.create(localFile.getName().getURI()));
+        this.destinationFile = localFile;
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        if (destination == null) {
+            throw new IllegalStateException("Destination must be set before processing");
+        }
+
+        final MantaObject metadata = file.readableMetadata();
+
+        if (metadata == null || metadata.isDirectory()) {
+            throw new FileSystemException("vfs.provider/read-not-file.error", file);
+        }
+
+        final MantaFileSystem fs = (MantaFileSystem)file.getFileSystem();
+        final Long size = metadata.getContentLength();
+        requestCount = 0;
+        Path temp = null;
+
+        try {
+            final Path parent = destination.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temp = createTempFile(parent);
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (fs.isParallelDownloadEnabled() && size != null && size > fs.getDownloadChunkSize()) {
+                    downloadRanges(fs, channel, size, metadata.getEtag());
+                    verifyRanges(fs, channel, metadata.getMd5Bytes());
+                } else {
+                    downloadSingle(fs, channel);
+                }
+
+                channel.force(false);
+            }
+
+            Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/copy-file.error", e, file, destination);
+        } finally {
+            deleteQuietly(temp);
+        }
+
+        if (destinationFile != null) {
+            destinationFile.refresh();
+        }
+    }
+
+    /**
+     * Downloads the object with a single request.
+     *
+     * @param fs filesystem to download from
+     * @param channel channel of the file to write to
+     * @throws IOException thrown when the download fails
+     */
+    private void downloadSingle(final MantaFileSystem fs, final FileChannel channel) throws IOException {
+        requestCount++;
+
+        final InputStream in;
+
+        if (fs.getDownloadMaxResumes() > 0 && !fs.isClientEncryptionEnabled()) {
+            final MantaResumableInputStream resumable = new MantaResumableInputStream(fs, file.path());
+            in = fs.verifyDownload(resumable, file.path(), resumable.getMd5Bytes());
+        } else {
+            in = fs.verifyDownload(fs.getClient().getAsInputStream(file.path()));
+        }
+
+        try (ReadableByteChannel source = Channels.newChannel(in)) {
+            long position = 0L;
+            long transferred;
+
+            while ((transferred = channel.transferFrom(source, position, Long.MAX_VALUE - position)) > 0) {
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Downloads the object as concurrent ranges written to their regions of
+     * a preallocated file.
+     *
+     * @param fs filesystem to download from
+     * @param channel channel of the file to write to
+     * @param size size of the object in bytes
+     * @param etag etag the object must match or null to skip the check
+     * @throws IOException thrown when any range fails
+     */
+    private void downloadRanges(final MantaFileSystem fs, final FileChannel channel,
+                                final long size, final String etag) throws IOException {
+        /* Allocating the whole file up front keeps writes at distant
+         * offsets from extending the file one range at a time. */
+        channel.write(ByteBuffer.allocate(1), size - 1);
+
+        final int chunkSize = fs.getDownloadChunkSize();
+        final int window = fs.getDownloadParallelism();
+        final ExecutorService downloader = fs.getDownloadExecutor();
+        final Deque<Future<?>> ranges = new ArrayDeque<>(window);
+
+        try {
+            for (long start = 0L; start < size; start += chunkSize) {
+                /* Only a window of ranges is queued on the shared pool at a time. */
+                if (ranges.size() >= window) {
+                    ranges.poll().get();
+                }
+
+                final long rangeStart = start;
+                final long length = Math.min(chunkSize, size - start);
+                requestCount++;
+                ranges.add(downloader.submit(() -> {
+                    downloadRange(fs, channel, rangeStart, length, etag);
+                    return null;
+                }));
+            }
+
+            while (!ranges.isEmpty()) {
+                ranges.poll().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + file.path());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+
+            throw new IOException(String.format("Unable to download %s", file.path()), cause);
+        } catch (RejectedExecutionException e) {
+            throw new IOException(String.format("Unable to download %s", file.path()), e);
+        } finally {
+            ranges.forEach(range -> range.cancel(true));
+        }
+    }
+
+    /**
+     * Downloads a range of the object into its region of the file. This
+     * runs on a download thread.
+     *
+     * @param fs filesystem to download from
+     * @param channel channel of the file to write to
+     * @param start offset of the range within the object
+     * @param length number of bytes in the range
+     * @param etag etag the object must match or null to skip the check
+     * @throws IOException thrown when the range can't be downloaded
+     */
+    private void downloadRange(final MantaFileSystem fs, final FileChannel channel,
+                               final long start, final long length, final String etag) throws IOException {
+        try (ReadableByteChannel source = Channels.newChannel(MantaFileSystem.getRange(
+                fs.getClient(), file.path(), start, start + length - 1L, etag))) {
+            long written = 0L;
+
+            while (written < length) {
+                final long transferred = channel.transferFrom(source, start + written, length - written);
+
+                if (transferred <= 0) {
+                    throw new EOFException(String.format("Range at %d of %s ended after %d of %d bytes",
+                            start, file.path(), written, length));
+                }
+
+                written += transferred;
+            }
+        }
+    }
+
+    /**
+     * Verifies a file downloaded as ranges against the MD5 recorded by Manta.
+     * Ranges arrive out of order, so the digest is computed from the local
+     * file once every range has been written.
+     *
+     * @param fs filesystem the object was downloaded from
+     * @param channel channel of the downloaded file
+     * @param md5 MD5 recorded by Manta or null if unknown
+     * @throws IOException thrown when the file can't be read or doesn't match
+     */
+    private void verifyRanges(final MantaFileSystem fs, final FileChannel channel,
+                              final byte[] md5) throws IOException {
+        if (!fs.isVerifyDownloadsEnabled() || md5 == null) {
+            return;
+        }
+
+        /* The stream isn't closed, because that would close the channel. */
+        final InputStream in = new MantaChecksumInputStream(Channels.newInputStream(channel.position(0L)),
+                file.path(), md5);
+        IOUtils.skip(in, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates the temporary file the object is downloaded to. Unlike
+     * {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])},
+     * which restricts the file to its owner, the file is created with the
+     * default permissions of new files, or with the permissions of the
+     * destination when it is replaced.
+     *
+     * @param parent directory of the destination
+     * @return path of the new, empty file
+     * @throws IOException thrown when the file can't be created
+     */
+    private Path createTempFile(final Path parent) throws IOException {
+        final Path temp = Files.createFile(parent.resolve(
+                String.format(".%s.%s.download", destination.getFileName(), UUID.randomUUID())));
+
+        if (Files.exists(destination)
+                && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            try {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(destination));
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(temp);
+                throw e;
+            }
+        }
+
+        return temp;
+    }
+
+    /**
+     * Deletes a temporary file, logging rather than throwing on failure.
+     *
+     * @param temp file to delete or null
+     */
+    private static void deleteQuietly(final Path temp) {
+        if (temp == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOG.warn(String.format("Unable to delete temporary file %s", temp), e);
+        }
+    }
+
+    /**
+     * Gets the number of requests made by the last invocation of {@link #process()}.
+     *
+     * @return number of requests
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+}
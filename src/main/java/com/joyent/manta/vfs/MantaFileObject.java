@@ -6,12 +6,15 @@ import com.joyent.manta.client.MantaObject;
 import com.joyent.manta.client.MantaObjectResponse;
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaErrorCode;
 import com.joyent.manta.http.MantaHttpHeaders;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSelector;
@@ -21,18 +24,26 @@ import org.apache.commons.vfs2.RandomAccessContent;
 import org.apache.commons.vfs2.Selectors;
 import org.apache.commons.vfs2.provider.AbstractFileName;
 import org.apache.commons.vfs2.provider.AbstractFileObject;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.apache.commons.vfs2.util.FileObjectUtils;
 import org.apache.commons.vfs2.util.RandomAccessMode;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static com.joyent.manta.client.MantaClient.SEPARATOR;
 import static java.util.stream.Collectors.toMap;
@@ -53,7 +64,34 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     /**
      * Last HEAD response from the Manta API that is reused when the object is attached.
      */
-    private MantaObject lastResponse = null;
+    private volatile MantaObject lastResponse = null;
+
+    /**
+     * Flag indicating that the metadata for this object has been loaded (even
+     * if the object turned out not to exist) and doesn't need to be requested again.
+     */
+    private volatile boolean metadataLoaded = false;
+
+    /**
+     * Flag indicating that the user metadata of the last response can't be
+     * used, either because it came from a directory listing, which only
+     * contains the type, size, last modified time and etag, or because the
+     * metadata was changed since. A HEAD request is made when the full
+     * metadata is needed.
+     */
+    private volatile boolean partialMetadata = false;
+
+    /**
+     * Flag indicating that {@link AbstractFileObject} holds the children of
+     * this directory, so listing it doesn't make a request.
+     */
+    private volatile boolean childrenCached = false;
+
+    /**
+     * Children listed by {@link #getChildren()} before acquiring the
+     * filesystem-wide monitor, handed to {@link #doListChildrenResolved()}.
+     */
+    private final AtomicReference<FileObject[]> prefetchedChildren = new AtomicReference<>();
 
     /**
      * Creates a new instance for the specified filename and filesystem.
@@ -80,18 +118,104 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
 
     @Override
     protected InputStream doGetInputStream() throws Exception {
-        final MantaClient client = getAbstractFileSystem().getClient();
+        final MantaFileSystem fs = getAbstractFileSystem();
+        final MantaObject response = this.lastResponse;
+
+        if (fs.isDiskCacheEnabled()) {
+            final MantaMappedRandomAccessContent cached = openDiskCached(fs, response, true);
+
+            if (cached != null) {
+                return cached.getInputStream();
+            }
+        }
+
+        /* The size and etag known from the last response let large objects be
+         * downloaded as concurrent ranges. If-Match makes the download fail if
+         * that response is stale rather than returning the wrong content. */
+        if (fs.isParallelDownloadEnabled() && response != null
+                && response.getContentLength() != null
+                && response.getContentLength() > fs.getDownloadChunkSize()) {
+            return fs.verifyDownload(new MantaParallelInputStream(fs, path(), response.getContentLength(),
+                    response.getEtag()), path(), response.getMd5Bytes());
+        }
+
+        /* Encrypted objects are decrypted as a single stream, so a download
+         * can't be resumed part way through. */
+        if (fs.getDownloadMaxResumes() > 0 && !fs.isClientEncryptionEnabled()) {
+            final MantaResumableInputStream in = new MantaResumableInputStream(fs, path());
+            return fs.verifyDownload(in, path(), in.getMd5Bytes());
+        }
+
+        return fs.verifyDownload(fs.getClient().getAsInputStream(path()));
+    }
+
+    /**
+     * Opens the copy of this object in the disk cache that matches the etag
+     * of the last response, optionally downloading it when it isn't cached.
+     * Downloads are requested with If-Match, so that a stale response never
+     * causes content of another version to be cached under its etag.
+     *
+     * @param fs filesystem owning the disk cache
+     * @param response last response for this object
+     * @param download true to download the object when it isn't cached
+     * @return mapped content of the cached copy or null if it isn't available
+     * @throws IOException thrown when the cache can't be read or written
+     */
+    private MantaMappedRandomAccessContent openDiskCached(final MantaFileSystem fs,
+                                                         final MantaObject response,
+                                                         final boolean download)
+            throws IOException {
+        if (response == null || response.getEtag() == null || response.getContentLength() == null) {
+            return null;
+        }
+
+        final MantaDiskCache cache = fs.getDiskCache();
+        final String etag = response.getEtag();
+        Path file = cache.get(path(), etag);
+
+        if (file == null && download && response.getContentLength() <= cache.getMaxBytes()) {
+            try (InputStream in = fs.verifyDownload(MantaFileSystem.getVersion(fs.getClient(), path(), etag))) {
+                file = cache.put(path(), etag, in, response.getContentLength());
+            } catch (MantaResponseMismatchException e) {
+                /* The object changed after the last response, so it is read
+                 * without the cache. */
+                fs.invalidateCachedMetadata(path());
+                return null;
+            }
+        }
 
-        return client.getAsInputStream(path());
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            return new MantaMappedRandomAccessContent(file);
+        } catch (NoSuchFileException e) {
+            /* The file was evicted after it was looked up. */
+            return null;
+        }
     }
 
     @Override
     protected OutputStream doGetOutputStream(final boolean bAppend) throws Exception {
+        /* Manta multipart uploads can't reference an existing object as a
+         * part and there is no server-side concatenation, so appending would
+         * mean re-uploading the whole object. */
         if (bAppend) {
             throw new FileSystemException("vfs.provider/write-append-not-supported.error", getName());
         }
 
-        final MantaClient client = getAbstractFileSystem().getClient();
+        final MantaFileSystem fs = getAbstractFileSystem();
+
+        if (fs.isWriteBehindEnabled()) {
+            return new MantaWriteBehindOutputStream(fs, path());
+        }
+
+        if (fs.isMultipartUploadEnabled()) {
+            return new MantaMultipartOutputStream(fs, path());
+        }
+
+        final MantaClient client = fs.getClient();
 
         return client.putAsOutputStream(path());
     }
@@ -117,65 +241,190 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected String[] doListChildren() throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
         /* Don't bother to query Manta directly if we are attempting to list
          * the root directory. Rather, we just simulate a single directory
          * listing containing the home directory. */
-            if (isRoot()) {
-                final String homeDir = fs.getMantaConfig().getMantaHomeDirectory();
-                final String stripped = StringUtils.stripStart(homeDir, SEPARATOR);
-                return new String[] {stripped};
-            }
+        if (isRoot()) {
+            final String homeDir = fs.getMantaConfig().getMantaHomeDirectory();
+            final String stripped = StringUtils.stripStart(homeDir, SEPARATOR);
+            return new String[] {stripped};
+        }
 
-            final MantaClient client = fs.getClient();
-            final String filePath = path();
-
-            return client
-                    .listObjects(filePath)
-                    .map(mantaObject -> {
-                        final String mantaPath = mantaObject.getPath();
-                        final String child = StringUtils.removeStart(mantaPath, filePath);
-                        return StringUtils.stripStart(child, SEPARATOR);
-                    })
+        final MantaClient client = fs.getClient();
+
+        try (Stream<MantaObject> listing = client.listObjects(path())) {
+            return listing
+                    .map(this::childFromListing)
+                    .map(child -> child.getName().getBaseName())
                     .toArray(String[]::new);
         }
     }
 
     @Override
     protected FileObject[] doListChildrenResolved() throws Exception {
+        final FileObject[] prefetched = this.prefetchedChildren.getAndSet(null);
+
+        if (prefetched != null) {
+            return prefetched;
+        }
+
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
-            /* Don't bother to query Manta directly if we are attempting to list
-             * the root directory. Rather, we just simulate a single directory
-             * listing containing the home directory. */
-                if (isRoot()) {
-                    final String homeDir = fs.getMantaConfig().getMantaHomeDirectory();
-                    final MantaFileName fileName = new MantaFileName(homeDir, FileType.FOLDER);
-                    return new FileObject[] {new MantaFileObject(fileName, fs)};
-                }
+        /* Don't bother to query Manta directly if we are attempting to list
+         * the root directory. Rather, we just simulate a single directory
+         * listing containing the home directory. */
+        if (isRoot()) {
+            return new FileObject[] {homeDirectory()};
+        }
+
+        final MantaClient client = fs.getClient();
 
-                final MantaClient client = fs.getClient();
-                final String filePath = path();
-
-                return client
-                        .listObjects(filePath)
-                        .map(mantaObject -> {
-                            final String mantaPath = mantaObject.getPath();
-                            final FileType type = mantaObject.isDirectory() ? FileType.FOLDER : FileType.FILE;
-                            final MantaFileName fileName = new MantaFileName(mantaPath, type);
-                            final MantaFileObject object = new MantaFileObject(fileName, fs);
-                            object.lastResponse = mantaObject;
-
-                            return object;
-                        })
-                        .toArray(MantaFileObject[]::new);
+        try (Stream<MantaObject> listing = client.listObjects(path())) {
+            return listing
+                    .map(this::childFromListing)
+                    .toArray(FileObject[]::new);
+        }
+    }
+
+    /**
+     * Lists the children of this directory lazily. Unlike {@link #getChildren()},
+     * entries are yielded as each page of the Manta directory listing arrives,
+     * so very large directories can be processed with bounded memory and without
+     * holding any filesystem-wide lock while the listing is read. Children are
+     * new file objects carrying their listing entry as metadata; they aren't
+     * added to the filesystem's files cache, so streaming a huge directory
+     * neither fills the cache nor contends for it.
+     *
+     * <p>The returned stream holds an open connection to Manta and must be
+     * closed when it is no longer needed (e.g. by using try-with-resources).</p>
+     *
+     * @return stream of child file objects in listing order
+     * @throws FileSystemException when this file isn't a directory or the listing can't be started
+     */
+    public Stream<FileObject> streamChildren() throws FileSystemException {
+        if (!getType().hasChildren()) {
+            throw new FileSystemException("vfs.provider/list-children-not-folder.error", getName());
+        }
+
+        if (isRoot()) {
+            return Stream.of(homeDirectory());
+        }
+
+        final MantaClient client = getAbstractFileSystem().getClient();
+
+        try {
+            return client.listObjects(path()).map(this::detachedChild);
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/list-children.error", e, getName());
+        }
+    }
+
+    /**
+     * Creates the file object for the home directory, which is the only entry
+     * that is listed for the root directory.
+     *
+     * @return file object for the home directory
+     */
+    private MantaFileObject homeDirectory() {
+        final MantaFileSystem fs = getAbstractFileSystem();
+        final String homeDir = fs.getMantaConfig().getMantaHomeDirectory();
+        final MantaFileName fileName = new MantaFileName(homeDir, FileType.FOLDER);
+        return new MantaFileObject(fileName, fs);
+    }
+
+    /**
+     * Creates the name of a directory listing entry.
+     *
+     * @param mantaObject entry from a directory listing
+     * @return name of the entry
+     */
+    private static MantaFileName listingName(final MantaObject mantaObject) {
+        final FileType type = mantaObject.isDirectory() ? FileType.FOLDER : FileType.FILE;
+        return new MantaFileName(mantaObject.getPath(), type);
+    }
+
+    /**
+     * Creates a file object for a directory listing entry that isn't shared
+     * through the filesystem's files cache, like {@link #homeDirectory()},
+     * and hands it the listing entry as its metadata.
+     *
+     * @param mantaObject entry from a directory listing
+     * @return file object for the entry
+     */
+    private FileObject detachedChild(final MantaObject mantaObject) {
+        final MantaFileObject child = new MantaFileObject(listingName(mantaObject), getAbstractFileSystem());
+        child.useListingMetadata(mantaObject);
+        return child;
+    }
+
+    /**
+     * Resolves the file object for a directory listing entry through the
+     * filesystem's files cache and hands it the listing entry as its metadata,
+     * so that reading the type, size or last modified time of a listed child
+     * doesn't require a HEAD request per child.
+     *
+     * @param mantaObject entry from a directory listing
+     * @return file object for the entry
+     */
+    private FileObject childFromListing(final MantaObject mantaObject) {
+        try {
+            final FileObject resolved = getAbstractFileSystem().resolveFile(listingName(mantaObject));
+            final FileObject unwrapped = FileObjectUtils.getAbstractFileObject(resolved);
+
+            if (unwrapped instanceof MantaFileObject) {
+                ((MantaFileObject)unwrapped).useListingMetadata(mantaObject);
             }
+
+            return resolved;
+        } catch (FileSystemException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Uses a directory listing entry as the metadata for this object unless
+     * it has already been attached or loaded its metadata.
+     *
+     * @param mantaObject entry from a directory listing
+     */
+    private void useListingMetadata(final MantaObject mantaObject) {
+        if (isAttached() || this.metadataLoaded) {
+            return;
+        }
+
+        this.lastResponse = mantaObject;
+        this.partialMetadata = true;
+        this.metadataLoaded = true;
+    }
+
+    /**
+     * Gets the last response, replacing it with a HEAD response when it was
+     * populated from a directory listing, because listings don't include
+     * user metadata or headers like the content MD5, or when its metadata
+     * was changed since.
+     *
+     * @return full metadata for the object or null if it doesn't exist
+     * @throws IOException when the HEAD request fails
+     */
+    private MantaObject fullMetadata() throws IOException {
+        if (!this.partialMetadata || this.lastResponse == null) {
+            return this.lastResponse;
+        }
+
+        final MantaFileSystem fs = getAbstractFileSystem();
+        final long generation = fs.getMetadataCache().getGeneration();
+        final MantaObject response = head();
+        fs.getMetadataCache().put(path(), response, generation);
+
+        this.lastResponse = response;
+        this.partialMetadata = false;
+
+        return response;
     }
 
     @Override
     protected Map<String, Object> doGetAttributes() throws Exception {
-        return lastResponse.getMetadata()
+        return fullMetadata().getMetadata()
                 .entrySet()
                 .stream()
                 .collect(toMap(entry -> StringUtils.removeStart(entry.getKey(), "m-"), Map.Entry::getValue));
@@ -185,7 +434,9 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected void doSetAttribute(final String attrName, final Object objVal) throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
+        final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+        try {
             final MantaClient client = fs.getClient();
 
             final String key = String.format("m-%s", attrName);
@@ -194,11 +445,11 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
             MantaMetadata metadata = new MantaMetadata();
             metadata.put(key, val);
 
-            if (isAttached()) {
-                lastResponse.getMetadata().put(key, val);
-            }
-
             client.putMetadata(path(), metadata);
+            fs.invalidateCachedMetadata(path());
+            this.partialMetadata = true;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -206,7 +457,9 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected void doRemoveAttribute(final String attrName) throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
+        final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+        try {
             final MantaClient client = fs.getClient();
 
             final String key = String.format("m-%s", attrName);
@@ -214,11 +467,11 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
             MantaMetadata metadata = new MantaMetadata();
             metadata.delete(key);
 
-            if (isAttached()) {
-                lastResponse.getMetadata().remove(key);
-            }
-
             client.putMetadata(path(), metadata);
+            fs.invalidateCachedMetadata(path());
+            this.partialMetadata = true;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -240,21 +493,18 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
 
         final String path = path();
         final MantaFileSystem fs = getAbstractFileSystem();
+        final ConfigContext config = fs.getMantaConfig();
+        final String homeDir = config.getMantaHomeDirectory();
+        final String publicDir = String.format("%s/public", homeDir);
+        final String storDir = String.format("%s/stor", homeDir);
 
-        synchronized (fs) {
-            final ConfigContext config = fs.getMantaConfig();
-            final String homeDir = config.getMantaHomeDirectory();
-            final String publicDir = String.format("%s/public", homeDir);
-            final String storDir = String.format("%s/stor", homeDir);
-
-            if (FilenameUtils.equalsNormalized(path, homeDir)) {
-                return false;
-            }
+        if (FilenameUtils.equalsNormalized(path, homeDir)) {
+            return false;
+        }
 
-            if (FilenameUtils.equalsNormalized(path, publicDir)
-                    || FilenameUtils.equalsNormalized(path, storDir)) {
-                return true;
-            }
+        if (FilenameUtils.equalsNormalized(path, publicDir)
+                || FilenameUtils.equalsNormalized(path, storDir)) {
+            return true;
         }
 
         return false;
@@ -286,27 +536,24 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     @Override
     public String getPublicURIString() {
         final MantaFileSystem fs = getAbstractFileSystem();
+        final ConfigContext config = fs.getMantaConfig();
+        final String path = path();
 
-        synchronized (fs) {
-            final ConfigContext config = fs.getMantaConfig();
-            final String path = path();
-
-            if (path.startsWith(SEPARATOR + "public" + SEPARATOR)) {
-                final StringBuilder publicUri = new StringBuilder();
-                publicUri.append(config.getMantaURL());
-                publicUri.append(path);
-                return publicUri.toString();
-            }
+        if (path.startsWith(SEPARATOR + "public" + SEPARATOR)) {
+            final StringBuilder publicUri = new StringBuilder();
+            publicUri.append(config.getMantaURL());
+            publicUri.append(path);
+            return publicUri.toString();
+        }
 
-            final MantaClient client = getAbstractFileSystem().getClient();
+        final MantaClient client = fs.getClient();
 
-            try {
-                final URI signed = client.getAsSignedURI(path, "GET", Duration.ofHours(1L));
-                return signed.toString();
-            } catch (IOException e) {
-                final String msg = String.format("Unable to create signed URL for path: %s", path);
-                throw new UncheckedIOException(msg, e);
-            }
+        try {
+            final URI signed = client.getAsSignedURI(path, "GET", Duration.ofHours(1L));
+            return signed.toString();
+        } catch (IOException e) {
+            final String msg = String.format("Unable to create signed URL for path: %s", path);
+            throw new UncheckedIOException(msg, e);
         }
     }
 
@@ -314,9 +561,18 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected void doRename(final FileObject newFile) throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
+        final String source = path();
+        final String destination = path(newFile.getName());
+
+        final MantaPathLocks.Held lock = fs.getPathLocks().lock(source, destination);
+
+        try {
             final MantaClient client = fs.getClient();
-            client.move(path(), path(newFile.getName()));
+            client.move(source, destination);
+            fs.invalidateCachedMetadata(source);
+            fs.invalidateCachedMetadata(destination);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -324,9 +580,14 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected void doCreateFolder() throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
+        final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+        try {
             final MantaClient client = fs.getClient();
             client.putDirectory(path());
+            fs.invalidateCachedMetadata(path());
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -334,12 +595,64 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     protected void doDelete() throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
 
-        synchronized (fs) {
+        final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+        try {
             final MantaClient client = fs.getClient();
             client.delete(path());
+            fs.invalidateCachedMetadata(path());
+        } finally {
+            lock.unlock();
         }
     }
 
+    @Override
+    public int delete(final FileSelector selector) throws FileSystemException {
+        /* Replaces AbstractFileObject#delete(FileSelector) for a single file,
+         * which holds the filesystem-wide monitor for the duration of the
+         * request. A directory that isn't empty is left in place. */
+        if (Selectors.SELECT_SELF.equals(selector)) {
+            if (!exists()) {
+                return 0;
+            }
+
+            return deleteConcurrently() ? 1 : 0;
+        }
+
+        final MantaDeleteOperation operation = new MantaDeleteOperation(this)
+                .setSelector(selector);
+        operation.process();
+
+        return Math.toIntExact(operation.getDeletedCount());
+    }
+
+    /**
+     * Deletes this file without holding the filesystem-wide monitor that
+     * {@link AbstractFileObject#delete()} holds for the duration of the DELETE
+     * request, so that many files can be deleted concurrently.
+     *
+     * @return true if the file was deleted, false if it is a directory that isn't empty
+     * @throws FileSystemException when the file couldn't be deleted
+     */
+    boolean deleteConcurrently() throws FileSystemException {
+        try {
+            doDelete();
+            handleDelete();
+        } catch (MantaClientHttpResponseException e) {
+            if (MantaErrorCode.DIRECTORY_NOT_EMPTY_ERROR.equals(e.getServerCode())) {
+                return false;
+            }
+
+            throw new FileSystemException("vfs.provider/delete.error", e, getName());
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/delete.error", e, getName());
+        }
+
+        return true;
+    }
+
     @Override
     protected long doGetLastModifiedTime() throws Exception {
         final MantaObject response = this.lastResponse;
@@ -348,30 +661,223 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
     }
 
     @Override
-    @SuppressWarnings("MagicNumber")
     protected void doAttach() throws Exception {
         if (isRoot()) {
             return;
         }
 
+        if (!this.metadataLoaded) {
+            loadMetadata();
+        }
+    }
+
+    @Override
+    protected void doDetach() throws Exception {
+        this.lastResponse = null;
+        this.metadataLoaded = false;
+        this.partialMetadata = false;
+        this.childrenCached = false;
+    }
+
+    @Override
+    protected void onChange() throws Exception {
+        /* AbstractFileObject discards its children when this file is created
+         * or deleted. */
+        this.childrenCached = false;
+        super.onChange();
+    }
+
+    @Override
+    protected void endOutput() throws Exception {
+        final MantaFileSystem fs = getAbstractFileSystem();
+        fs.invalidateCachedMetadata(path());
+        super.endOutput();
+
+        /* A write-behind upload is still running, so nothing is known about
+         * the object until it is looked up again. */
+        if (fs.isWriteBehindEnabled()) {
+            refresh();
+        }
+    }
+
+    @Override
+    public FileType getType() throws FileSystemException {
+        prefetchMetadata();
+        return super.getType();
+    }
+
+    @Override
+    public FileContent getContent() throws FileSystemException {
+        prefetchMetadata();
+        return super.getContent();
+    }
+
+    @Override
+    public FileObject[] getChildren() throws FileSystemException {
+        prefetchMetadata();
+        prefetchChildren();
+
         try {
-            if (this.lastResponse == null) {
-                this.lastResponse = head();
-            }
+            final FileObject[] children = super.getChildren();
+            this.childrenCached = true;
+            return children;
+        } finally {
+            this.prefetchedChildren.set(null);
+        }
+    }
+
+    /**
+     * Lists this directory before VFS acquires its filesystem-wide monitor,
+     * so that {@link #doListChildrenResolved()} doesn't make the listing
+     * request while holding it. Nothing is listed when VFS already holds
+     * the children of this directory.
+     *
+     * @throws FileSystemException when the listing fails
+     */
+    private void prefetchChildren() throws FileSystemException {
+        if (isRoot() || this.childrenCached || !getType().hasChildren()) {
+            return;
+        }
+
+        final MantaClient client = getAbstractFileSystem().getClient();
+
+        try (Stream<MantaObject> listing = client.listObjects(path())) {
+            this.prefetchedChildren.set(listing
+                    .map(this::childFromListing)
+                    .toArray(FileObject[]::new));
+        } catch (IOException | UncheckedIOException e) {
+            throw new FileSystemException("vfs.provider/list-children.error", e, getName());
+        }
+    }
+
+    @Override
+    public void createFolder() throws FileSystemException {
+        /* Replaces AbstractFileObject#createFolder(), which holds the
+         * filesystem-wide monitor for the duration of the request. */
+        if (getType().hasChildren()) {
+            return;
+        }
+
+        if (getType() != FileType.IMAGINARY) {
+            throw new FileSystemException("vfs.provider/create-folder-mismatched-type.error", getName());
+        }
+
+        final FileObject parent = getParent();
+
+        if (parent != null) {
+            parent.createFolder();
+        }
+
+        createFolderConcurrently();
+    }
+
+    /**
+     * Loads the metadata needed to attach this object before VFS acquires its
+     * filesystem-wide monitor. {@link AbstractFileObject} attaches while holding
+     * that monitor, so without doing the HEAD request up front, attaching objects
+     * on unrelated paths would serialize every network round trip.
+     *
+     * @throws FileSystemException when the HEAD request fails
+     */
+    private void prefetchMetadata() throws FileSystemException {
+        if (isRoot() || isAttached() || this.metadataLoaded) {
+            return;
+        }
+
+        try {
+            loadMetadata();
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/get-type.error", e, getName());
+        }
+    }
+
+    /**
+     * Gets the metadata last loaded for this object without making a request.
+     *
+     * @return last response or null if it isn't loaded or the object doesn't exist
+     */
+    MantaObject cachedMetadata() {
+        return this.lastResponse;
+    }
+
+    /**
+     * Gets the metadata of the version of this object that reads are made
+     * against, loading it first if needed.
+     *
+     * @return last response or null if the object doesn't exist
+     * @throws FileSystemException when the HEAD request fails
+     */
+    MantaObject readableMetadata() throws FileSystemException {
+        prefetchMetadata();
+        return this.lastResponse;
+    }
+
+    /**
+     * Loads the full metadata for this object (including user metadata) so
+     * that subsequent reads don't require a request to Manta. This is used
+     * by {@link MantaFileSystem#prefetch(java.util.Collection)} and is safe
+     * to invoke concurrently with other operations on this object.
+     *
+     * @throws IOException when the HEAD request fails
+     */
+    void loadFullMetadata() throws IOException {
+        if (isRoot()) {
+            return;
+        }
+
+        if (!this.metadataLoaded) {
+            loadMetadata();
+        }
+
+        fullMetadata();
+    }
+
+    /**
+     * Loads the metadata for the current path from the filesystem's caches
+     * or requests it from Manta and stores it as the last response.
+     * A HTTP 404 indicates that the file doesn't exist and results in a null
+     * last response.
+     *
+     * @throws IOException when HTTP HEAD fails for any reason other than a 404
+     */
+    @SuppressWarnings("MagicNumber")
+    private void loadMetadata() throws IOException {
+        final MantaFileSystem fs = getAbstractFileSystem();
+        final String path = path();
+
+        if (fs.getNegativeLookupCache().get(path) != null) {
+            this.lastResponse = null;
+            this.metadataLoaded = true;
+            return;
+        }
+
+        final MantaObject cached = fs.getMetadataCache().get(path);
+
+        if (cached != null) {
+            this.lastResponse = cached;
+            this.metadataLoaded = true;
+            return;
+        }
+
+        final long metadataGeneration = fs.getMetadataCache().getGeneration();
+        final long negativeGeneration = fs.getNegativeLookupCache().getGeneration();
+
+        try {
+            final MantaObject response = head();
+            fs.getMetadataCache().put(path, response, metadataGeneration);
+            this.lastResponse = response;
+            this.partialMetadata = false;
         } catch (MantaClientHttpResponseException e) {
             // Indicate that files don't exist when we hit a HTTP 404
-            if (e.getStatusCode() == 404) {
-                this.lastResponse = null;
-                return;
+            if (e.getStatusCode() != 404) {
+                throw e;
             }
 
-            throw e;
+            fs.getNegativeLookupCache().put(path, Boolean.TRUE, negativeGeneration);
+            this.lastResponse = null;
         }
-    }
 
-    @Override
-    protected void doDetach() throws Exception {
-        this.lastResponse = null;
+        this.metadataLoaded = true;
     }
 
     @Override
@@ -385,30 +891,185 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
             final MantaFileObject sourceFile = (MantaFileObject)file;
             final MantaFileSystem fs = getAbstractFileSystem();
 
-            synchronized (fs) {
-                try {
-                    final MantaClient client = fs.getClient();
-                    client.putSnapLink(path(), path(sourceFile.getName()), new MantaHttpHeaders());
-                } catch (IOException e) {
-                    final String msg = String.format("Unable to link source file [%s] to destination: %s",
-                            path(sourceFile.getName()), path());
-                    throw new FileSystemException(msg, e);
-                }
+            final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+            try {
+                final MantaClient client = fs.getClient();
+                client.putSnapLink(path(), path(sourceFile.getName()), new MantaHttpHeaders());
+                fs.invalidateCachedMetadata(path());
+            } catch (IOException e) {
+                final String msg = String.format("Unable to link source file [%s] to destination: %s",
+                        path(sourceFile.getName()), path());
+                throw new FileSystemException(msg, e);
+            } finally {
+                lock.unlock();
             }
 
+        } else if (file.getType().equals(FileType.FILE)
+                && FileObjectUtils.getAbstractFileObject(file) instanceof LocalFile
+                && selector.equals(Selectors.SELECT_SELF)) {
+            uploadLocalFile(file);
+        } else if (FileObjectUtils.getAbstractFileObject(file) instanceof MantaFileObject
+                && file.getType().hasChildren() && !selector.equals(Selectors.SELECT_SELF)) {
+            new MantaCopyOperation(this)
+                    .setSource(file)
+                    .setSelector(selector)
+                    .process();
         } else {
             super.copyFrom(file, selector);
         }
     }
 
+    /**
+     * Uploads a local file to this path directly from disk rather than
+     * copying it through an output stream. Like a copy through an output
+     * stream, a destination of another type is deleted first and a missing
+     * parent directory is created.
+     *
+     * @param file local file to upload
+     * @throws FileSystemException when the file couldn't be uploaded
+     */
+    private void uploadLocalFile(final FileObject file) throws FileSystemException {
+        final MantaFileSystem fs = getAbstractFileSystem();
+        final File source = file.getFileSystem().replicateFile(file, Selectors.SELECT_SELF);
+
+        if (exists() && getType() != FileType.FILE) {
+            deleteAll();
+        }
+
+        if (getType() == FileType.IMAGINARY) {
+            final FileObject parent = getParent();
+
+            if (parent != null) {
+                parent.createFolder();
+            }
+        }
+
+        try {
+            final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+            try {
+                new MantaLocalFileUpload(fs, path(), source).upload();
+            } finally {
+                lock.unlock();
+            }
+
+            /* Detached so that the size and etag of the upload are loaded
+             * when next needed. */
+            endOutput();
+            refresh();
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/copy-file.error", e, file, this);
+        }
+    }
+
+    /**
+     * Creates a snaplink at this path to a file on Manta without holding the
+     * filesystem-wide monitor, so that many files can be linked concurrently.
+     *
+     * @param source file to link to
+     * @throws FileSystemException when the link couldn't be created
+     */
+    void snapLinkConcurrently(final MantaFileObject source) throws FileSystemException {
+        final MantaFileSystem fs = getAbstractFileSystem();
+
+        try {
+            final MantaPathLocks.Held lock = fs.getPathLocks().lock(path());
+
+            try {
+                fs.getClient().putSnapLink(path(), source.path(), new MantaHttpHeaders());
+                fs.invalidateCachedMetadata(path());
+            } finally {
+                lock.unlock();
+            }
+
+            handleCreate(FileType.FILE);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/copy-file.error", e, source.getName(), getName());
+        }
+    }
+
+    /**
+     * Creates this directory without checking if it exists first and without
+     * holding the filesystem-wide monitor, so that many directories can be
+     * created concurrently. The parent directory must already exist.
+     *
+     * @throws FileSystemException when the directory couldn't be created
+     */
+    void createFolderConcurrently() throws FileSystemException {
+        try {
+            doCreateFolder();
+            handleCreate(FileType.FOLDER);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/create-folder.error", e, getName());
+        }
+    }
+
     @Override
     protected RandomAccessContent doGetRandomAccessContent(
             final RandomAccessMode mode) throws Exception {
         final MantaFileSystem fs = getAbstractFileSystem();
+        final MantaObject response = this.lastResponse;
 
-        synchronized (fs) {
-            final MantaClient client = fs.getClient();
-            return new MantaRandomAccessContent(client.getSeekableByteChannel(path()));
+        /* Objects are only added to the disk cache by input streams, so that
+         * reading a few blocks of a large object doesn't download all of it. */
+        if (fs.isDiskCacheEnabled()) {
+            final MantaMappedRandomAccessContent cached = openDiskCached(fs, response, false);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        /* Small objects are fetched whole, so that seeks never make requests.
+         * The etag is required so that an object that has grown since the last
+         * response is never fetched into memory. */
+        if (fs.getRandomAccessInMemoryThreshold() > 0 && response != null
+                && response.getEtag() != null && response.getContentLength() != null
+                && response.getContentLength() <= fs.getRandomAccessInMemoryThreshold()) {
+            final MantaMappedRandomAccessContent inMemory = fetchIntoMemory(fs, response.getEtag());
+
+            if (inMemory != null) {
+                return inMemory;
+            }
+        }
+
+        /* Blocks can only be cached when the version of the object being read
+         * is known, so that they can be requested with If-Match. */
+        if (fs.isBlockCacheEnabled() && response != null
+                && response.getEtag() != null && response.getContentLength() != null) {
+            return new MantaRandomAccessContent(new MantaBlockReader(fs, path(),
+                    response.getContentLength(), response.getEtag()));
+        }
+
+        return new MantaRandomAccessContent(fs.getClient().getSeekableByteChannel(path()),
+                fs.getRandomAccessBlockSize(), fs.getRandomAccessMaxSkip(),
+                fs.getRandomAccessReadAhead(), fs.getDownloadExecutor());
+    }
+
+    /**
+     * Fetches the whole object into memory with a single request.
+     *
+     * @param fs filesystem to read from
+     * @param etag etag of the version of the object to fetch
+     * @return content held in memory or null if the object has changed
+     * @throws IOException thrown when the object can't be read
+     */
+    private MantaMappedRandomAccessContent fetchIntoMemory(final MantaFileSystem fs,
+                                                          final String etag) throws IOException {
+        try (InputStream in = fs.verifyDownload(MantaFileSystem.getVersion(fs.getClient(), path(), etag))) {
+            return new MantaMappedRandomAccessContent(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+        } catch (MantaResponseMismatchException e) {
+            /* The object changed after the last response, so it is read
+             * through a channel instead. */
+            fs.invalidateCachedMetadata(path());
+            return null;
         }
     }
 
@@ -430,12 +1091,8 @@ public class MantaFileObject extends AbstractFileObject<MantaFileSystem> {
      * @throws IOException when HTTP HEAD fails
      */
     public MantaObjectResponse head() throws IOException {
-        final MantaFileSystem fs = getAbstractFileSystem();
-
-        synchronized (fs) {
-            final MantaClient client = fs.getClient();
-            return client.head(path());
-        }
+        final MantaClient client = getAbstractFileSystem().getClient();
+        return client.head(path());
     }
 
     /**
@@ -4,7 +4,10 @@ import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.operations.AbstractFileOperationProvider;
 import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.provider.AbstractFileObject;
+import org.apache.commons.vfs2.util.FileObjectUtils;
 
+import java.io.UncheckedIOException;
 import java.util.Collection;
 
 /**
@@ -19,20 +22,51 @@ public class MantaFileOperationsProvider extends AbstractFileOperationProvider {
      * Creates new instance.
      */
     public MantaFileOperationsProvider() {
+        try {
+            addOperation(MantaFindFilesOperation.class);
+            addOperation(MantaDeleteOperation.class);
+            addOperation(MantaCopyOperation.class);
+            addOperation(MantaVectoredReadOperation.class);
+            addOperation(MantaRangedReadOperation.class);
+            addOperation(MantaDownloadOperation.class);
+        } catch (FileSystemException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     protected void doCollectOperations(final Collection<Class<? extends FileOperation>> availableOperations,
                                        final Collection<Class<? extends FileOperation>> resultList,
                                        final FileObject file) throws FileSystemException {
-        // no operations defined yet
+        if (FileObjectUtils.getAbstractFileObject(file) instanceof MantaFileObject) {
+            resultList.addAll(availableOperations);
+        }
     }
 
     @Override
     protected FileOperation instantiateOperation(final FileObject file,
                                                  final Class<? extends FileOperation> operationClass)
             throws FileSystemException {
-        // define operations here
+        final AbstractFileObject<?> unwrapped = FileObjectUtils.getAbstractFileObject(file);
+
+        if (unwrapped instanceof MantaFileObject) {
+            final MantaFileObject mantaFile = (MantaFileObject)unwrapped;
+
+            if (MantaFindFilesOperation.class.equals(operationClass)) {
+                return new MantaFindFilesOperation(mantaFile);
+            } else if (MantaDeleteOperation.class.equals(operationClass)) {
+                return new MantaDeleteOperation(mantaFile);
+            } else if (MantaCopyOperation.class.equals(operationClass)) {
+                return new MantaCopyOperation(mantaFile);
+            } else if (MantaVectoredReadOperation.class.equals(operationClass)) {
+                return new MantaVectoredReadOperation(mantaFile);
+            } else if (MantaRangedReadOperation.class.equals(operationClass)) {
+                return new MantaRangedReadOperation(mantaFile);
+            } else if (MantaDownloadOperation.class.equals(operationClass)) {
+                return new MantaDownloadOperation(mantaFile);
+            }
+        }
+
         final String msg = String.format("Operation [%s] is not available for file: %s",
                 operationClass.getName(), file.getName().getPath());
         throw new FileSystemException(msg);
@@ -0,0 +1,89 @@
+package com.joyent.manta.vfs;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Range of bytes of a Manta object requested by a {@link MantaVectoredReadOperation}.
+ * The content of the range is delivered asynchronously through {@link #getData()}.
+ *
+ * @since 1.0.2
+ */
+public class MantaFileRange {
+    /**
+     * Offset within the object of the first byte of the range.
+     */
+    private final long offset;
+
+    /**
+     * Number of bytes in the range.
+     */
+    private final int length;
+
+    /**
+     * Content of the range, completed when it has been read.
+     */
+    private final CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param offset offset within the object of the first byte of the range
+     * @param length number of bytes in the range
+     */
+    public MantaFileRange(final long offset, final int length) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must be zero or greater");
+        }
+
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must be zero or greater");
+        }
+
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets the offset within the object of the first byte of the range.
+     *
+     * @return offset in bytes
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the number of bytes in the range.
+     *
+     * @return length in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the offset within the object just past the last byte of the range.
+     *
+     * @return end offset in bytes (exclusive)
+     */
+    public long getEnd() {
+        return offset + length;
+    }
+
+    /**
+     * Gets the content of the range. The future completes with a buffer
+     * positioned at the first byte of the range, or exceptionally when the
+     * range couldn't be read.
+     *
+     * @return future of the range's content
+     */
+    public CompletableFuture<ByteBuffer> getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%d-%d)", offset, getEnd());
+    }
+}
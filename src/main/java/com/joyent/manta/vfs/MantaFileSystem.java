@@ -1,16 +1,44 @@
 package com.joyent.manta.vfs;
 
 import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.client.MantaObject;
+import com.joyent.manta.client.MantaObjectInputStream;
+import com.joyent.manta.client.multipart.ServerSideMultipartManager;
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.config.SystemSettingsConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.org.apache.http.HttpResponse;
+import com.joyent.manta.org.apache.http.StatusLine;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.Capability;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.provider.AbstractFileObject;
 import org.apache.commons.vfs2.provider.AbstractFileSystem;
+import org.apache.commons.vfs2.util.FileObjectUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Manta specific implementation of {@link org.apache.commons.vfs2.FileSystem}.
@@ -24,6 +52,26 @@ public class MantaFileSystem extends AbstractFileSystem {
      */
     private static final FileObject DEFAULT_PARENT_LAYER = null;
 
+    /**
+     * Number of tasks queued by bulk operations per thread of the executor.
+     */
+    private static final int QUEUED_PER_THREAD = 4;
+
+    /**
+     * HTTP status returned for a ranged request that was honored.
+     */
+    private static final int PARTIAL_CONTENT = 206;
+
+    /**
+     * HTTP status returned when an object no longer matches an If-Match etag.
+     */
+    private static final int PRECONDITION_FAILED = 412;
+
+    /**
+     * Unit prefix of a <code>Content-Range</code> header.
+     */
+    private static final String CONTENT_RANGE_PREFIX = "bytes ";
+
     /**
      * Utility instance of config builder used to convert between configuration
      * formats.
@@ -41,6 +89,71 @@ public class MantaFileSystem extends AbstractFileSystem {
      */
     private final MantaClient client;
 
+    /**
+     * Striped locks used to serialize mutations on the same path.
+     */
+    private final MantaPathLocks pathLocks = new MantaPathLocks();
+
+    /**
+     * Cache of HEAD responses shared by all file objects in this filesystem.
+     */
+    private final MantaPathCache<MantaObject> metadataCache;
+
+    /**
+     * Cache of paths known not to exist.
+     */
+    private final MantaPathCache<Boolean> negativeLookupCache;
+
+    /**
+     * Cache of object blocks shared by random access readers.
+     */
+    private final MantaBlockCache blockCache;
+
+    /**
+     * Cache of whole objects on local disk or null when disabled.
+     */
+    private final MantaDiskCache diskCache;
+
+    /**
+     * Number of times downloads were resumed after their connection failed.
+     */
+    private final AtomicLong downloadResumeCount = new AtomicLong();
+
+    /**
+     * Number of bytes that resumed downloads didn't have to download again.
+     */
+    private final AtomicLong downloadResumedBytes = new AtomicLong();
+
+    /**
+     * Maximum number of concurrent requests made by bulk operations.
+     */
+    private final int parallelism;
+
+    /**
+     * Thread pool used by bulk operations, created on first use.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Thread pool shared by parallel downloads, created on first use.
+     */
+    private ExecutorService downloadExecutor;
+
+    /**
+     * Thread pool shared by the parts of multipart uploads, created on first use.
+     */
+    private ExecutorService uploadExecutor;
+
+    /**
+     * Manager for multipart uploads, created on first use.
+     */
+    private ServerSideMultipartManager multipartManager;
+
+    /**
+     * Runner of write-behind uploads, created on first use.
+     */
+    private MantaWriteBehindUploader writeBehindUploader;
+
     /**
      * Creates a new instance based on the root name and Manta configuration object.
      *
@@ -53,6 +166,11 @@ public class MantaFileSystem extends AbstractFileSystem {
                 CONFIG_BUILDER.importContext(config, new FileSystemOptions()));
         this.mantaConfig = config;
         this.client = createClient(this.mantaConfig);
+        this.metadataCache = createMetadataCache(getFileSystemOptions());
+        this.negativeLookupCache = createNegativeLookupCache(getFileSystemOptions());
+        this.blockCache = createBlockCache(getFileSystemOptions());
+        this.diskCache = createDiskCache(getFileSystemOptions());
+        this.parallelism = CONFIG_BUILDER.getParallelism(getFileSystemOptions());
     }
 
     /**
@@ -75,6 +193,11 @@ public class MantaFileSystem extends AbstractFileSystem {
         }
 
         this.client = createClient(this.mantaConfig);
+        this.metadataCache = createMetadataCache(fileSystemOptions);
+        this.negativeLookupCache = createNegativeLookupCache(fileSystemOptions);
+        this.blockCache = createBlockCache(fileSystemOptions);
+        this.diskCache = createDiskCache(fileSystemOptions);
+        this.parallelism = CONFIG_BUILDER.getParallelism(fileSystemOptions);
     }
 
     /**
@@ -88,6 +211,65 @@ public class MantaFileSystem extends AbstractFileSystem {
         return new MantaClient(config);
     }
 
+    /**
+     * Creates new instance of the Manta multipart upload manager.
+     *
+     * @param mantaClient Manta driver instance
+     * @return multipart upload manager instance
+     */
+    protected ServerSideMultipartManager createMultipartManager(final MantaClient mantaClient) {
+        return new ServerSideMultipartManager(mantaClient);
+    }
+
+    /**
+     * Creates the cache of HEAD responses based on the VFS configuration.
+     *
+     * @param opts VFS configuration object
+     * @return metadata cache instance (disabled when the TTL is zero)
+     */
+    private static MantaPathCache<MantaObject> createMetadataCache(final FileSystemOptions opts) {
+        return new MantaPathCache<>(CONFIG_BUILDER.getMetadataCacheTtl(opts),
+                CONFIG_BUILDER.getMetadataCacheSize(opts));
+    }
+
+    /**
+     * Creates the cache of paths known not to exist based on the VFS configuration.
+     *
+     * @param opts VFS configuration object
+     * @return negative lookup cache instance (disabled when the TTL is zero)
+     */
+    private static MantaPathCache<Boolean> createNegativeLookupCache(final FileSystemOptions opts) {
+        return new MantaPathCache<>(CONFIG_BUILDER.getNegativeCacheTtl(opts),
+                CONFIG_BUILDER.getNegativeCacheSize(opts));
+    }
+
+    /**
+     * Creates the cache of object blocks based on the VFS configuration.
+     *
+     * @param opts VFS configuration object
+     * @return block cache instance (disabled when the size is zero)
+     */
+    private static MantaBlockCache createBlockCache(final FileSystemOptions opts) {
+        return new MantaBlockCache(CONFIG_BUILDER.getBlockCacheSize(opts),
+                CONFIG_BUILDER.getRandomAccessBlockSize(opts));
+    }
+
+    /**
+     * Creates the cache of whole objects on local disk based on the VFS configuration.
+     *
+     * @param opts VFS configuration object
+     * @return disk cache instance or null when no directory is configured
+     */
+    private static MantaDiskCache createDiskCache(final FileSystemOptions opts) {
+        final String directory = CONFIG_BUILDER.getDiskCacheDirectory(opts);
+
+        if (directory == null) {
+            return null;
+        }
+
+        return MantaDiskCache.forDirectory(Paths.get(directory), CONFIG_BUILDER.getDiskCacheSize(opts));
+    }
+
     @Override
     protected FileObject createFile(final AbstractFileName name) throws Exception {
         return new MantaFileObject(name, this);
@@ -105,13 +287,668 @@ public class MantaFileSystem extends AbstractFileSystem {
 
     @Override
     public void close() {
+        /* Spooled objects are uploaded before the client is closed. */
+        final MantaWriteBehindUploader uploader;
+
+        synchronized (this) {
+            uploader = this.writeBehindUploader;
+            this.writeBehindUploader = null;
+        }
+
+        if (uploader != null) {
+            uploader.close();
+        }
+
         super.close();
 
+        synchronized (this) {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+                this.executor = null;
+            }
+
+            if (this.downloadExecutor != null) {
+                this.downloadExecutor.shutdownNow();
+                this.downloadExecutor = null;
+            }
+
+            if (this.uploadExecutor != null) {
+                this.uploadExecutor.shutdownNow();
+                this.uploadExecutor = null;
+            }
+        }
+
+        this.blockCache.invalidateAll();
+
         if (this.client != null) {
             this.client.closeWithWarning();
         }
     }
 
+    /**
+     * Gets the maximum number of concurrent requests made by bulk operations.
+     *
+     * @return number of concurrent requests
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the manager used for multipart uploads, creating it if needed.
+     *
+     * @return multipart upload manager
+     */
+    public synchronized ServerSideMultipartManager getMultipartManager() {
+        if (this.multipartManager == null) {
+            this.multipartManager = createMultipartManager(client);
+        }
+
+        return this.multipartManager;
+    }
+
+    /**
+     * Indicates if output streams upload in the background once closed.
+     *
+     * @return true if write-behind is enabled
+     */
+    public boolean isWriteBehindEnabled() {
+        return CONFIG_BUILDER.isWriteBehind(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the number of bytes a write-behind output stream keeps in memory.
+     *
+     * @return number of bytes kept in memory
+     */
+    public int getWriteBehindMemoryThreshold() {
+        return CONFIG_BUILDER.getWriteBehindMemoryThreshold(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the runner of write-behind uploads, creating it if needed.
+     *
+     * @return write-behind uploader
+     */
+    public synchronized MantaWriteBehindUploader getWriteBehindUploader() {
+        if (this.writeBehindUploader == null) {
+            this.writeBehindUploader = new MantaWriteBehindUploader(
+                    CONFIG_BUILDER.getWriteBehindMaxInFlight(getFileSystemOptions()));
+        }
+
+        return this.writeBehindUploader;
+    }
+
+    /**
+     * Gets the latest unfinished write-behind upload of an object.
+     *
+     * @param path path of the object
+     * @return future of the upload or a completed future if none is pending
+     */
+    public CompletableFuture<Void> getPendingUpload(final String path) {
+        return getWriteBehindUploader().getPendingUpload(path);
+    }
+
+    /**
+     * Waits for every pending write-behind upload to finish.
+     *
+     * @throws IOException thrown when an upload has failed since the last
+     *                     invocation
+     */
+    public void awaitUploads() throws IOException {
+        getWriteBehindUploader().awaitUploads();
+    }
+
+    /**
+     * Indicates if output streams switch to multipart uploads when enough data
+     * is written. Multipart uploads are disabled when client-side encryption
+     * is enabled, because the server-side multipart manager doesn't encrypt parts.
+     *
+     * @return true if a multipart threshold is configured and encryption is disabled
+     */
+    public boolean isMultipartUploadEnabled() {
+        return getMultipartThreshold() > 0L
+                && !isClientEncryptionEnabled();
+    }
+
+    /**
+     * Indicates if objects are encrypted and decrypted by the client. Features
+     * that rely on requesting arbitrary byte ranges or on storing content
+     * locally are disabled when this is the case.
+     *
+     * @return true if client-side encryption is enabled
+     */
+    public boolean isClientEncryptionEnabled() {
+        return Boolean.TRUE.equals(mantaConfig.isClientEncryptionEnabled());
+    }
+
+    /**
+     * Gets the number of bytes written after which uploads switch to multipart uploads.
+     *
+     * @return threshold in bytes (0 when disabled)
+     */
+    public long getMultipartThreshold() {
+        return CONFIG_BUILDER.getMultipartThreshold(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the size in bytes of each part of a multipart upload.
+     *
+     * @return part size in bytes
+     */
+    public int getMultipartPartSize() {
+        return CONFIG_BUILDER.getMultipartPartSize(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the maximum number of parts of a multipart upload uploaded concurrently.
+     *
+     * @return number of concurrently uploaded parts
+     */
+    public int getMultipartMaxInFlight() {
+        return CONFIG_BUILDER.getMultipartMaxInFlight(getFileSystemOptions());
+    }
+
+    /**
+     * Indicates if input streams download ranges of an object concurrently.
+     * Parallel downloads are disabled when client-side encryption is enabled,
+     * because ranges of encrypted objects can't be decrypted independently.
+     *
+     * @return true if download parallelism is above one and encryption is disabled
+     */
+    public boolean isParallelDownloadEnabled() {
+        return getDownloadParallelism() > 1
+                && !isClientEncryptionEnabled();
+    }
+
+    /**
+     * Gets the number of ranges of an object downloaded concurrently.
+     *
+     * @return number of concurrently downloaded ranges
+     */
+    public int getDownloadParallelism() {
+        return CONFIG_BUILDER.getDownloadParallelism(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the size in bytes of each range requested by a parallel download.
+     *
+     * @return range size in bytes
+     */
+    public int getDownloadChunkSize() {
+        return CONFIG_BUILDER.getDownloadChunkSize(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the maximum number of bytes that each parallel download buffers.
+     *
+     * @return buffer budget in bytes
+     */
+    public long getDownloadBufferSize() {
+        return CONFIG_BUILDER.getDownloadBufferSize(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the maximum number of times an input stream resumes a download
+     * after its connection fails.
+     *
+     * @return maximum number of resumes per download
+     */
+    public int getDownloadMaxResumes() {
+        return CONFIG_BUILDER.getDownloadMaxResumes(getFileSystemOptions());
+    }
+
+    /**
+     * Indicates if downloads are verified against the MD5 recorded by Manta.
+     * The checksum of an encrypted object is of its ciphertext, so
+     * downloads aren't verified when client-side encryption is enabled.
+     *
+     * @return true if downloads are verified
+     */
+    public boolean isVerifyDownloadsEnabled() {
+        return CONFIG_BUILDER.isVerifyDownloads(getFileSystemOptions())
+                && !isClientEncryptionEnabled();
+    }
+
+    /**
+     * Indicates if uploads are verified against the MD5 computed by Manta.
+     *
+     * @return true if uploads are verified
+     */
+    public boolean isVerifyUploadsEnabled() {
+        return Boolean.TRUE.equals(mantaConfig.verifyUploads());
+    }
+
+    /**
+     * Wraps the content of an object so that it is verified against the MD5
+     * recorded by Manta as it is read, when download verification is
+     * enabled and the checksum is known.
+     *
+     * @param in stream of the object's content
+     * @param path path of the object
+     * @param md5 MD5 recorded by Manta or null if unknown
+     * @return verifying stream or the stream itself
+     */
+    InputStream verifyDownload(final InputStream in, final String path, final byte[] md5) {
+        if (!isVerifyDownloadsEnabled() || md5 == null) {
+            return in;
+        }
+
+        return new MantaChecksumInputStream(in, path, md5);
+    }
+
+    /**
+     * Wraps the response to a request for a whole object so that it is
+     * verified against the MD5 in the response as it is read, when download
+     * verification is enabled.
+     *
+     * @param in response to a request for an object
+     * @return verifying stream or the response itself
+     */
+    InputStream verifyDownload(final MantaObjectInputStream in) {
+        return verifyDownload(in, in.getPath(), in.getMd5Bytes());
+    }
+
+    /**
+     * Gets an object, requiring it to still be the version with the
+     * specified etag.
+     *
+     * @param client Manta client to request with
+     * @param path path of the object
+     * @param etag etag the object must match or null to skip the check
+     * @return the response
+     * @throws MantaResponseMismatchException thrown when the object has changed
+     * @throws IOException thrown when the request fails
+     */
+    static MantaObjectInputStream getVersion(final MantaClient client, final String path,
+                                             final String etag) throws IOException {
+        return get(client, path, new MantaHttpHeaders(), etag);
+    }
+
+    /**
+     * Gets a range of an object, requiring it to still be the version with
+     * the specified etag and the response to be the requested range.
+     *
+     * @param client Manta client to request with
+     * @param path path of the object
+     * @param start offset of the first byte of the range
+     * @param end offset of the last byte of the range or null to read to the end
+     * @param etag etag the object must match or null to skip the check
+     * @return the response
+     * @throws MantaResponseMismatchException thrown when the object has changed
+     *                                        or the response isn't the requested range
+     * @throws IOException thrown when the request fails
+     */
+    static MantaObjectInputStream getRange(final MantaClient client, final String path, final long start,
+                                           final Long end, final String etag) throws IOException {
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setByteRange(start, end);
+
+        return checkRange(get(client, path, headers, etag), path, start);
+    }
+
+    /**
+     * Gets an object with the specified headers and an If-Match etag.
+     *
+     * @param client Manta client to request with
+     * @param path path of the object
+     * @param headers headers of the request
+     * @param etag etag the object must match or null to skip the check
+     * @return the response
+     * @throws IOException thrown when the request fails or the object has changed
+     */
+    private static MantaObjectInputStream get(final MantaClient client, final String path,
+                                              final MantaHttpHeaders headers,
+                                              final String etag) throws IOException {
+        if (etag != null) {
+            headers.setIfMatch(etag);
+        }
+
+        try {
+            return client.getAsInputStream(path, headers);
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() == PRECONDITION_FAILED) {
+                throw new MantaResponseMismatchException(
+                        String.format("%s changed while it was being read", path), e);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that the response to a ranged request is a partial response
+     * whose <code>Content-Range</code> starts at the requested offset,
+     * closing the response and failing otherwise. A server or proxy that
+     * ignores the <code>Range</code> header responds with the whole object,
+     * which would otherwise be read as if it started at the offset.
+     *
+     * @param in response to a ranged request
+     * @param path path of the object
+     * @param start offset the range was requested from or null when the
+     *              end of the object was requested
+     * @return the response
+     * @throws MantaResponseMismatchException thrown when the response isn't the requested range
+     */
+    static MantaObjectInputStream checkRange(final MantaObjectInputStream in, final String path,
+                                             final Long start) throws MantaResponseMismatchException {
+        final Object http = in.getHttpResponse();
+        final StatusLine status = http instanceof HttpResponse ? ((HttpResponse)http).getStatusLine() : null;
+        final String contentRange = in.getHttpHeaders() == null ? null : in.getHttpHeaders().getContentRange();
+
+        final long rangeStart = rangeStart(contentRange);
+
+        if ((status != null && status.getStatusCode() != PARTIAL_CONTENT) || rangeStart < 0
+                || (start != null && rangeStart != start)) {
+            IOUtils.closeQuietly(in);
+            final String msg = String.format("Requested %s from byte %s, but the response was %s with "
+                    + "Content-Range [%s]", path, start == null ? "-" : start, status, contentRange);
+            throw new MantaResponseMismatchException(msg);
+        }
+
+        return in;
+    }
+
+    /**
+     * Parses the offset of the first byte of a <code>Content-Range</code> header.
+     *
+     * @param contentRange value of the header or null
+     * @return offset or -1 if the header is missing or malformed
+     */
+    private static long rangeStart(final String contentRange) {
+        if (contentRange == null || !contentRange.startsWith(CONTENT_RANGE_PREFIX)) {
+            return -1L;
+        }
+
+        final int dash = contentRange.indexOf('-', CONTENT_RANGE_PREFIX.length());
+
+        if (dash < 0) {
+            return -1L;
+        }
+
+        try {
+            return Long.parseLong(contentRange.substring(CONTENT_RANGE_PREFIX.length(), dash).trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Gets the number of times downloads were resumed after their connection failed.
+     *
+     * @return number of resumes
+     */
+    public long getDownloadResumeCount() {
+        return downloadResumeCount.get();
+    }
+
+    /**
+     * Gets the number of bytes that resumed downloads didn't have to
+     * download again.
+     *
+     * @return number of bytes
+     */
+    public long getDownloadResumedBytes() {
+        return downloadResumedBytes.get();
+    }
+
+    /**
+     * Records a download resumed after its connection failed.
+     *
+     * @param offset offset within the object at which the download resumed
+     */
+    void recordDownloadResume(final long offset) {
+        downloadResumeCount.incrementAndGet();
+        downloadResumedBytes.addAndGet(offset);
+    }
+
+    /**
+     * Gets the number of bytes that random access content reads from Manta at a time.
+     *
+     * @return block size in bytes
+     */
+    public int getRandomAccessBlockSize() {
+        return CONFIG_BUILDER.getRandomAccessBlockSize(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the maximum number of bytes that random access content skips on an
+     * open connection when seeking forward.
+     *
+     * @return maximum skip in bytes
+     */
+    public long getRandomAccessMaxSkip() {
+        return CONFIG_BUILDER.getRandomAccessMaxSkip(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the maximum number of bytes that random access content reads ahead
+     * of sequential reads.
+     *
+     * @return maximum read-ahead in bytes (0 when disabled)
+     */
+    public int getRandomAccessReadAhead() {
+        return CONFIG_BUILDER.getRandomAccessReadAhead(getFileSystemOptions());
+    }
+
+    /**
+     * Gets the size in bytes up to which objects opened for random access are
+     * fetched whole into memory.
+     *
+     * @return maximum object size in bytes (0 when disabled)
+     */
+    public int getRandomAccessInMemoryThreshold() {
+        return CONFIG_BUILDER.getRandomAccessInMemoryThreshold(getFileSystemOptions());
+    }
+
+    /**
+     * Indicates if random access content reads through the shared block cache.
+     * The cache is bypassed when client-side encryption is enabled, because
+     * ranges of encrypted objects can't be decrypted independently.
+     *
+     * @return true if a block cache size is configured and encryption is disabled
+     */
+    public boolean isBlockCacheEnabled() {
+        return blockCache.isEnabled()
+                && !isClientEncryptionEnabled();
+    }
+
+    /**
+     * Gets the cache of object blocks shared by random access readers. The
+     * hit rate and bytes saved by this cache can be used to tune its size.
+     *
+     * @return block cache keyed by path, etag and block number
+     */
+    public MantaBlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    /**
+     * Indicates if objects are cached on local disk. The disk cache is
+     * disabled when client-side encryption is enabled, so that decrypted
+     * content is never written to disk.
+     *
+     * @return true if a disk cache directory is configured and encryption is disabled
+     */
+    public boolean isDiskCacheEnabled() {
+        return diskCache != null
+                && !isClientEncryptionEnabled();
+    }
+
+    /**
+     * Gets the cache of whole objects on local disk.
+     *
+     * @return disk cache keyed by path and etag or null when no directory is configured
+     */
+    public MantaDiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * Gets the thread pool used by bulk operations, creating it if needed.
+     * The pool is sized to the configured parallelism and is shut down when
+     * this filesystem is closed. Tasks running on the pool must never wait
+     * on other tasks submitted to it.
+     *
+     * @return executor owned by this filesystem
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable,
+                        String.format("manta-vfs-%d", count.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+        }
+
+        return this.executor;
+    }
+
+    /**
+     * Gets the thread pool shared by parallel downloads of this filesystem,
+     * creating it if needed. The pool is sized to the configured download
+     * parallelism and is shut down when this filesystem is closed. Each
+     * download limits the number of ranges it has in flight, so concurrent
+     * downloads share the pool rather than each starting their own threads.
+     * It is separate from {@link #getExecutor()}, so that bulk operations
+     * that read objects never wait on ranges queued behind them.
+     *
+     * @return executor owned by this filesystem
+     */
+    public synchronized ExecutorService getDownloadExecutor() {
+        if (this.downloadExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable,
+                        String.format("manta-vfs-download-%d", count.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            this.downloadExecutor = Executors.newFixedThreadPool(getDownloadParallelism(), threadFactory);
+        }
+
+        return this.downloadExecutor;
+    }
+
+    /**
+     * Gets the thread pool shared by the parts of multipart uploads of this
+     * filesystem, creating it if needed. The pool is sized to the larger of
+     * the configured parallelism and the number of parts in flight per
+     * upload, and is shut down when this filesystem is closed. Each upload
+     * limits the number of parts it has in flight, so concurrent uploads
+     * share the pool rather than each starting their own threads. Uploads
+     * waiting on their parts, such as write-behind uploads, must not run on
+     * this pool.
+     *
+     * @return executor owned by this filesystem
+     */
+    public synchronized ExecutorService getUploadExecutor() {
+        if (this.uploadExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable,
+                        String.format("manta-vfs-upload-%d", count.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            this.uploadExecutor = Executors.newFixedThreadPool(
+                    Math.max(parallelism, getMultipartMaxInFlight()), threadFactory);
+        }
+
+        return this.uploadExecutor;
+    }
+
+    /**
+     * Invokes an action for every item concurrently on {@link #getExecutor()},
+     * blocking until all of the actions complete. Only a small multiple of the
+     * configured parallelism is queued at any time, so that a very large
+     * number of items doesn't queue a task per item up front. Actions are
+     * expected to handle (e.g. record) their own failures.
+     *
+     * @param items items to act upon
+     * @param action action to invoke for each item
+     * @param <T> type of item
+     * @throws InterruptedException when interrupted while waiting for the actions
+     * @throws ExecutionException when an action throws an unchecked exception
+     */
+    <T> void forEachConcurrently(final Collection<? extends T> items,
+                                 final Consumer<? super T> action)
+            throws InterruptedException, ExecutionException {
+        final CompletionService<Void> tasks = new ExecutorCompletionService<>(getExecutor());
+        final int maxQueued = parallelism * QUEUED_PER_THREAD;
+        int queued = 0;
+
+        for (T item : items) {
+            if (queued == maxQueued) {
+                tasks.take().get();
+                queued--;
+            }
+
+            tasks.submit(() -> action.accept(item), null);
+            queued++;
+        }
+
+        for (; queued > 0; queued--) {
+            tasks.take().get();
+        }
+    }
+
+    /**
+     * Loads the full metadata (including user metadata) of many files at once
+     * by issuing HEAD requests concurrently, bounded by the configured
+     * parallelism. Afterwards, reading the type, size, last modified time or
+     * attributes of the files doesn't require any further requests.
+     * Files that don't belong to this filesystem are ignored.
+     *
+     * <p>This method blocks until all requests complete and must not be
+     * invoked from a task running on {@link #getExecutor()}.</p>
+     *
+     * @param files files to load metadata for
+     * @throws FileSystemException when the metadata of any file couldn't be loaded
+     */
+    public void prefetch(final Collection<? extends FileObject> files) throws FileSystemException {
+        final List<MantaFileObject> mantaFiles = new ArrayList<>(files.size());
+
+        for (FileObject file : files) {
+            final AbstractFileObject<?> unwrapped = FileObjectUtils.getAbstractFileObject(file);
+
+            if (unwrapped instanceof MantaFileObject && unwrapped.getFileSystem() == this) {
+                mantaFiles.add((MantaFileObject)unwrapped);
+            }
+        }
+
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        try {
+            forEachConcurrently(mantaFiles, mantaFile -> {
+                try {
+                    mantaFile.loadFullMetadata();
+                } catch (IOException | RuntimeException e) {
+                    errors.add(e);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemException("Interrupted while prefetching file metadata", e);
+        } catch (ExecutionException e) {
+            errors.add(e.getCause());
+        }
+
+        if (!errors.isEmpty()) {
+            final String msg = String.format("Unable to prefetch metadata for %d of %d files",
+                    errors.size(), mantaFiles.size());
+            final FileSystemException e = new FileSystemException(msg, errors.peek());
+            errors.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
     /**
      * Gets the backing Manta driver object.
      *
@@ -129,4 +966,43 @@ public class MantaFileSystem extends AbstractFileSystem {
     public ConfigContext getMantaConfig() {
         return mantaConfig;
     }
+
+    /**
+     * Gets the striped path locks used to serialize mutations on the same path.
+     *
+     * @return path lock instance shared by all file objects in this filesystem
+     */
+    public MantaPathLocks getPathLocks() {
+        return pathLocks;
+    }
+
+    /**
+     * Gets the cache of HEAD responses shared by all file objects in this filesystem.
+     *
+     * @return metadata cache keyed by normalized path
+     */
+    public MantaPathCache<MantaObject> getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Gets the cache of paths that returned a HTTP 404 when last requested.
+     * The hit and miss counts of this cache can be used to tune its TTL.
+     *
+     * @return negative lookup cache keyed by normalized path
+     */
+    public MantaPathCache<Boolean> getNegativeLookupCache() {
+        return negativeLookupCache;
+    }
+
+    /**
+     * Removes any cached knowledge about a path. This is invoked whenever this
+     * filesystem creates, modifies or removes the path.
+     *
+     * @param path normalized path to invalidate
+     */
+    public void invalidateCachedMetadata(final String path) {
+        metadataCache.invalidate(path);
+        negativeLookupCache.invalidate(path);
+    }
 }
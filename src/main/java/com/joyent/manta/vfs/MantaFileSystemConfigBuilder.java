@@ -20,6 +20,232 @@ import static com.joyent.manta.config.MapConfigContext.*;
  * @since 1.0.0
  */
 public class MantaFileSystemConfigBuilder extends FileSystemConfigBuilder {
+    /**
+     * Key for the time in milliseconds that HEAD responses are cached.
+     */
+    public static final String METADATA_CACHE_TTL_KEY = "manta.vfs.metadata_cache_ttl";
+
+    /**
+     * Key for the maximum number of HEAD responses that are cached.
+     */
+    public static final String METADATA_CACHE_SIZE_KEY = "manta.vfs.metadata_cache_size";
+
+    /**
+     * Key for the time in milliseconds that paths known not to exist are cached.
+     */
+    public static final String NEGATIVE_CACHE_TTL_KEY = "manta.vfs.negative_cache_ttl";
+
+    /**
+     * Key for the maximum number of paths known not to exist that are cached.
+     */
+    public static final String NEGATIVE_CACHE_SIZE_KEY = "manta.vfs.negative_cache_size";
+
+    /**
+     * Key for the maximum number of concurrent requests made by bulk operations.
+     */
+    public static final String PARALLELISM_KEY = "manta.vfs.parallelism";
+
+    /**
+     * Key for the number of bytes written after which uploads switch to multipart uploads.
+     */
+    public static final String MULTIPART_THRESHOLD_KEY = "manta.vfs.multipart_threshold";
+
+    /**
+     * Key for the size in bytes of each part of a multipart upload.
+     */
+    public static final String MULTIPART_PART_SIZE_KEY = "manta.vfs.multipart_part_size";
+
+    /**
+     * Key for the maximum number of parts of a multipart upload uploaded concurrently.
+     */
+    public static final String MULTIPART_MAX_IN_FLIGHT_KEY = "manta.vfs.multipart_max_in_flight";
+
+    /**
+     * Key for enabling write-behind output streams that upload in the background.
+     */
+    public static final String WRITE_BEHIND_KEY = "manta.vfs.write_behind";
+
+    /**
+     * Key for the maximum number of write-behind uploads in flight.
+     */
+    public static final String WRITE_BEHIND_MAX_IN_FLIGHT_KEY = "manta.vfs.write_behind_max_in_flight";
+
+    /**
+     * Key for the number of bytes a write-behind output stream keeps in
+     * memory before spooling to a temporary file.
+     */
+    public static final String WRITE_BEHIND_MEMORY_THRESHOLD_KEY = "manta.vfs.write_behind_memory_threshold";
+
+    /**
+     * Key for the number of ranges of an object downloaded concurrently by input streams.
+     */
+    public static final String DOWNLOAD_PARALLELISM_KEY = "manta.vfs.download_parallelism";
+
+    /**
+     * Key for the size in bytes of each range downloaded concurrently.
+     */
+    public static final String DOWNLOAD_CHUNK_SIZE_KEY = "manta.vfs.download_chunk_size";
+
+    /**
+     * Key for the maximum number of bytes buffered by each parallel download.
+     */
+    public static final String DOWNLOAD_BUFFER_SIZE_KEY = "manta.vfs.download_buffer_size";
+
+    /**
+     * Key for the maximum number of times a download is resumed after its
+     * connection fails.
+     */
+    public static final String DOWNLOAD_MAX_RESUMES_KEY = "manta.vfs.download_max_resumes";
+
+    /**
+     * Key for enabling verification of downloaded content against the MD5
+     * recorded by Manta.
+     */
+    public static final String VERIFY_DOWNLOADS_KEY = "manta.vfs.verify_downloads";
+
+    /**
+     * Key for the number of bytes random access content reads from Manta at a time.
+     */
+    public static final String RANDOM_ACCESS_BLOCK_SIZE_KEY = "manta.vfs.random_access_block_size";
+
+    /**
+     * Key for the maximum number of bytes random access content skips on an
+     * open connection instead of opening a new request when seeking forward.
+     */
+    public static final String RANDOM_ACCESS_MAX_SKIP_KEY = "manta.vfs.random_access_max_skip";
+
+    /**
+     * Key for the maximum number of bytes random access content reads in the
+     * background ahead of sequential reads.
+     */
+    public static final String RANDOM_ACCESS_READ_AHEAD_KEY = "manta.vfs.random_access_read_ahead";
+
+    /**
+     * Key for the size in bytes up to which objects opened for random access
+     * are fetched whole into memory.
+     */
+    public static final String RANDOM_ACCESS_IN_MEMORY_THRESHOLD_KEY =
+            "manta.vfs.random_access_in_memory_threshold";
+
+    /**
+     * Key for the maximum number of bytes of blocks held by the block cache
+     * shared by random access readers.
+     */
+    public static final String BLOCK_CACHE_SIZE_KEY = "manta.vfs.block_cache_size";
+
+    /**
+     * Key for the local directory in which whole objects are cached.
+     */
+    public static final String DISK_CACHE_DIRECTORY_KEY = "manta.vfs.disk_cache_directory";
+
+    /**
+     * Key for the maximum number of bytes of objects cached on local disk.
+     */
+    public static final String DISK_CACHE_SIZE_KEY = "manta.vfs.disk_cache_size";
+
+    /**
+     * Default time in milliseconds that HEAD responses are cached (disabled).
+     */
+    public static final long DEFAULT_METADATA_CACHE_TTL = 0L;
+
+    /**
+     * Default maximum number of HEAD responses that are cached.
+     */
+    public static final int DEFAULT_METADATA_CACHE_SIZE = 10_000;
+
+    /**
+     * Default time in milliseconds that paths known not to exist are cached (disabled).
+     */
+    public static final long DEFAULT_NEGATIVE_CACHE_TTL = 0L;
+
+    /**
+     * Default maximum number of paths known not to exist that are cached.
+     */
+    public static final int DEFAULT_NEGATIVE_CACHE_SIZE = 10_000;
+
+    /**
+     * Default maximum number of concurrent requests made by bulk operations.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Default number of bytes written after which uploads switch to multipart
+     * uploads (disabled).
+     */
+    public static final long DEFAULT_MULTIPART_THRESHOLD = 0L;
+
+    /**
+     * Default size in bytes of each part of a multipart upload (16 MiB).
+     */
+    public static final int DEFAULT_MULTIPART_PART_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default maximum number of parts of a multipart upload uploaded concurrently.
+     */
+    public static final int DEFAULT_MULTIPART_MAX_IN_FLIGHT = 4;
+
+    /**
+     * Default maximum number of write-behind uploads in flight.
+     */
+    public static final int DEFAULT_WRITE_BEHIND_MAX_IN_FLIGHT = 4;
+
+    /**
+     * Default number of bytes a write-behind output stream keeps in memory (1 MiB).
+     */
+    public static final int DEFAULT_WRITE_BEHIND_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Default number of ranges downloaded concurrently (a single request).
+     */
+    public static final int DEFAULT_DOWNLOAD_PARALLELISM = 1;
+
+    /**
+     * Default size in bytes of each range downloaded concurrently (8 MiB).
+     */
+    public static final int DEFAULT_DOWNLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes buffered by each parallel download (64 MiB).
+     */
+    public static final long DEFAULT_DOWNLOAD_BUFFER_SIZE = 64L * 1024L * 1024L;
+
+    /**
+     * Default maximum number of times a download is resumed.
+     */
+    public static final int DEFAULT_DOWNLOAD_MAX_RESUMES = 3;
+
+    /**
+     * Default number of bytes random access content reads at a time (64 KiB).
+     */
+    public static final int DEFAULT_RANDOM_ACCESS_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum number of bytes skipped on an open connection when
+     * seeking forward (256 KiB).
+     */
+    public static final long DEFAULT_RANDOM_ACCESS_MAX_SKIP = 256L * 1024L;
+
+    /**
+     * Default maximum number of bytes held by the block cache (disabled).
+     */
+    public static final long DEFAULT_BLOCK_CACHE_SIZE = 0L;
+
+    /**
+     * Default maximum number of bytes random access content reads ahead (disabled).
+     */
+    public static final int DEFAULT_RANDOM_ACCESS_READ_AHEAD = 0;
+
+    /**
+     * Default size up to which objects opened for random access are fetched
+     * into memory (disabled).
+     */
+    public static final int DEFAULT_RANDOM_ACCESS_IN_MEMORY_THRESHOLD = 0;
+
+    /**
+     * Default maximum number of bytes of objects cached on local disk (1 GiB).
+     */
+    public static final long DEFAULT_DISK_CACHE_SIZE = 1024L * 1024L * 1024L;
+
     /**
      * Create new instance.
      */
@@ -430,6 +656,715 @@ public class MantaFileSystemConfigBuilder extends FileSystemConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the time in milliseconds that HEAD responses are shared between file
+     * objects for the same path. A value of zero disables the metadata cache.
+     *
+     * @param opts file system options object to populate with config
+     * @param ttl time to live in milliseconds
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setMetadataCacheTtl(final FileSystemOptions opts,
+                                                            final Long ttl) {
+        if (ttl != null) {
+            if (ttl < 0) {
+                throw new IllegalArgumentException("Metadata cache TTL must be zero or greater");
+            }
+            setParam(opts, METADATA_CACHE_TTL_KEY, ttl);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the time in milliseconds that HEAD responses are cached.
+     *
+     * @param opts file system options object to read config from
+     * @return time to live in milliseconds
+     */
+    public long getMetadataCacheTtl(final FileSystemOptions opts) {
+        return getLong(opts, METADATA_CACHE_TTL_KEY, DEFAULT_METADATA_CACHE_TTL);
+    }
+
+    /**
+     * Sets the maximum number of HEAD responses that are cached.
+     *
+     * @param opts file system options object to populate with config
+     * @param size maximum number of cache entries
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setMetadataCacheSize(final FileSystemOptions opts,
+                                                             final Integer size) {
+        if (size != null) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Metadata cache size must be zero or greater");
+            }
+            setParam(opts, METADATA_CACHE_SIZE_KEY, size);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of HEAD responses that are cached.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum number of cache entries
+     */
+    public int getMetadataCacheSize(final FileSystemOptions opts) {
+        return getInteger(opts, METADATA_CACHE_SIZE_KEY, DEFAULT_METADATA_CACHE_SIZE);
+    }
+
+    /**
+     * Sets the time in milliseconds that paths which returned a HTTP 404 are
+     * remembered as not existing. A value of zero disables the negative lookup cache.
+     *
+     * @param opts file system options object to populate with config
+     * @param ttl time to live in milliseconds
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setNegativeCacheTtl(final FileSystemOptions opts,
+                                                            final Long ttl) {
+        if (ttl != null) {
+            if (ttl < 0) {
+                throw new IllegalArgumentException("Negative cache TTL must be zero or greater");
+            }
+            setParam(opts, NEGATIVE_CACHE_TTL_KEY, ttl);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the time in milliseconds that paths known not to exist are cached.
+     *
+     * @param opts file system options object to read config from
+     * @return time to live in milliseconds
+     */
+    public long getNegativeCacheTtl(final FileSystemOptions opts) {
+        return getLong(opts, NEGATIVE_CACHE_TTL_KEY, DEFAULT_NEGATIVE_CACHE_TTL);
+    }
+
+    /**
+     * Sets the maximum number of paths known not to exist that are cached.
+     *
+     * @param opts file system options object to populate with config
+     * @param size maximum number of cache entries
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setNegativeCacheSize(final FileSystemOptions opts,
+                                                             final Integer size) {
+        if (size != null) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Negative cache size must be zero or greater");
+            }
+            setParam(opts, NEGATIVE_CACHE_SIZE_KEY, size);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of paths known not to exist that are cached.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum number of cache entries
+     */
+    public int getNegativeCacheSize(final FileSystemOptions opts) {
+        return getInteger(opts, NEGATIVE_CACHE_SIZE_KEY, DEFAULT_NEGATIVE_CACHE_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of concurrent requests made by bulk operations
+     * such as {@link MantaFileSystem#prefetch(java.util.Collection)}.
+     *
+     * @param opts file system options object to populate with config
+     * @param parallelism number of concurrent requests
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setParallelism(final FileSystemOptions opts,
+                                                       final Integer parallelism) {
+        if (parallelism != null) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be 1 or greater");
+            }
+            setParam(opts, PARALLELISM_KEY, parallelism);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of concurrent requests made by bulk operations.
+     *
+     * @param opts file system options object to read config from
+     * @return number of concurrent requests
+     */
+    public int getParallelism(final FileSystemOptions opts) {
+        return getInteger(opts, PARALLELISM_KEY, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Sets the number of bytes written to an output stream after which the
+     * upload switches from a single PUT to a parallel multipart upload.
+     * Data up to the threshold is buffered in memory. A value of zero
+     * disables multipart uploads.
+     *
+     * @param opts file system options object to populate with config
+     * @param threshold threshold in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setMultipartThreshold(final FileSystemOptions opts,
+                                                              final Long threshold) {
+        if (threshold != null) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Multipart threshold must be zero or greater");
+            }
+            setParam(opts, MULTIPART_THRESHOLD_KEY, threshold);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes written after which uploads switch to multipart uploads.
+     *
+     * @param opts file system options object to read config from
+     * @return threshold in bytes
+     */
+    public long getMultipartThreshold(final FileSystemOptions opts) {
+        return getLong(opts, MULTIPART_THRESHOLD_KEY, DEFAULT_MULTIPART_THRESHOLD);
+    }
+
+    /**
+     * Sets the size in bytes of each part of a multipart upload. Sizes
+     * smaller than the minimum part size supported by Manta are raised to
+     * the minimum.
+     *
+     * @param opts file system options object to populate with config
+     * @param partSize part size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setMultipartPartSize(final FileSystemOptions opts,
+                                                             final Integer partSize) {
+        if (partSize != null) {
+            if (partSize < 1) {
+                throw new IllegalArgumentException("Multipart part size must be 1 or greater");
+            }
+            setParam(opts, MULTIPART_PART_SIZE_KEY, partSize);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the size in bytes of each part of a multipart upload.
+     *
+     * @param opts file system options object to read config from
+     * @return part size in bytes
+     */
+    public int getMultipartPartSize(final FileSystemOptions opts) {
+        return getInteger(opts, MULTIPART_PART_SIZE_KEY, DEFAULT_MULTIPART_PART_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of parts of a single multipart upload that are
+     * uploaded concurrently. This bounds the memory used by each output stream
+     * to this number of parts plus the part being written.
+     *
+     * @param opts file system options object to populate with config
+     * @param maxInFlight number of concurrently uploaded parts
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setMultipartMaxInFlight(final FileSystemOptions opts,
+                                                                final Integer maxInFlight) {
+        if (maxInFlight != null) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Multipart parts in flight must be 1 or greater");
+            }
+            setParam(opts, MULTIPART_MAX_IN_FLIGHT_KEY, maxInFlight);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of parts of a multipart upload uploaded concurrently.
+     *
+     * @param opts file system options object to read config from
+     * @return number of concurrently uploaded parts
+     */
+    public int getMultipartMaxInFlight(final FileSystemOptions opts) {
+        return getInteger(opts, MULTIPART_MAX_IN_FLIGHT_KEY, DEFAULT_MULTIPART_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * When set to true, output streams spool what is written locally and
+     * upload it in the background once they are closed, so that writers
+     * don't wait on Manta. The object only exists once its upload finishes
+     * and upload failures are reported through the filesystem rather than
+     * by closing the stream.
+     *
+     * @param opts file system options object to populate with config
+     * @param writeBehind true to upload in the background
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setWriteBehind(final FileSystemOptions opts,
+                                                       final Boolean writeBehind) {
+        if (writeBehind != null) {
+            setParam(opts, WRITE_BEHIND_KEY, writeBehind);
+        }
+
+        return this;
+    }
+
+    /**
+     * Indicates if output streams upload in the background once closed.
+     *
+     * @param opts file system options object to read config from
+     * @return true if write-behind is enabled
+     */
+    public boolean isWriteBehind(final FileSystemOptions opts) {
+        return getBoolean(opts, WRITE_BEHIND_KEY, false);
+    }
+
+    /**
+     * Sets the maximum number of write-behind uploads in flight. Closing an
+     * output stream blocks while this many uploads are running.
+     *
+     * @param opts file system options object to populate with config
+     * @param maxInFlight number of concurrent uploads
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setWriteBehindMaxInFlight(final FileSystemOptions opts,
+                                                                  final Integer maxInFlight) {
+        if (maxInFlight != null) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Write-behind uploads in flight must be 1 or greater");
+            }
+            setParam(opts, WRITE_BEHIND_MAX_IN_FLIGHT_KEY, maxInFlight);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of write-behind uploads in flight.
+     *
+     * @param opts file system options object to read config from
+     * @return number of concurrent uploads
+     */
+    public int getWriteBehindMaxInFlight(final FileSystemOptions opts) {
+        return getInteger(opts, WRITE_BEHIND_MAX_IN_FLIGHT_KEY, DEFAULT_WRITE_BEHIND_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Sets the number of bytes a write-behind output stream keeps in memory.
+     * Anything written beyond this is spooled to a temporary file.
+     *
+     * @param opts file system options object to populate with config
+     * @param threshold number of bytes kept in memory
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setWriteBehindMemoryThreshold(final FileSystemOptions opts,
+                                                                      final Integer threshold) {
+        if (threshold != null) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Write-behind memory threshold must be zero or greater");
+            }
+            setParam(opts, WRITE_BEHIND_MEMORY_THRESHOLD_KEY, threshold);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes a write-behind output stream keeps in memory.
+     *
+     * @param opts file system options object to read config from
+     * @return number of bytes kept in memory
+     */
+    public int getWriteBehindMemoryThreshold(final FileSystemOptions opts) {
+        return getInteger(opts, WRITE_BEHIND_MEMORY_THRESHOLD_KEY, DEFAULT_WRITE_BEHIND_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Sets the number of ranges of an object that input streams download
+     * concurrently over separate connections. A value of one downloads
+     * objects with a single request.
+     *
+     * @param opts file system options object to populate with config
+     * @param downloadParallelism number of concurrently downloaded ranges
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDownloadParallelism(final FileSystemOptions opts,
+                                                               final Integer downloadParallelism) {
+        if (downloadParallelism != null) {
+            if (downloadParallelism < 1) {
+                throw new IllegalArgumentException("Download parallelism must be 1 or greater");
+            }
+            setParam(opts, DOWNLOAD_PARALLELISM_KEY, downloadParallelism);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the number of ranges of an object downloaded concurrently.
+     *
+     * @param opts file system options object to read config from
+     * @return number of concurrently downloaded ranges
+     */
+    public int getDownloadParallelism(final FileSystemOptions opts) {
+        return getInteger(opts, DOWNLOAD_PARALLELISM_KEY, DEFAULT_DOWNLOAD_PARALLELISM);
+    }
+
+    /**
+     * Sets the size in bytes of each range requested by a parallel download.
+     * Objects no larger than a single range are downloaded with a single request.
+     *
+     * @param opts file system options object to populate with config
+     * @param chunkSize range size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDownloadChunkSize(final FileSystemOptions opts,
+                                                             final Integer chunkSize) {
+        if (chunkSize != null) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Download chunk size must be 1 or greater");
+            }
+            setParam(opts, DOWNLOAD_CHUNK_SIZE_KEY, chunkSize);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the size in bytes of each range requested by a parallel download.
+     *
+     * @param opts file system options object to read config from
+     * @return range size in bytes
+     */
+    public int getDownloadChunkSize(final FileSystemOptions opts) {
+        return getInteger(opts, DOWNLOAD_CHUNK_SIZE_KEY, DEFAULT_DOWNLOAD_CHUNK_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of bytes that each parallel download buffers
+     * ahead of the reader. Fewer ranges than the download parallelism are
+     * requested at a time when they wouldn't fit in this budget, but at
+     * least one range is always requested.
+     *
+     * @param opts file system options object to populate with config
+     * @param bufferSize buffer budget in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDownloadBufferSize(final FileSystemOptions opts,
+                                                              final Long bufferSize) {
+        if (bufferSize != null) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("Download buffer size must be 1 or greater");
+            }
+            setParam(opts, DOWNLOAD_BUFFER_SIZE_KEY, bufferSize);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes that each parallel download buffers.
+     *
+     * @param opts file system options object to read config from
+     * @return buffer budget in bytes
+     */
+    public long getDownloadBufferSize(final FileSystemOptions opts) {
+        return getLong(opts, DOWNLOAD_BUFFER_SIZE_KEY, DEFAULT_DOWNLOAD_BUFFER_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of times an input stream resumes a download
+     * from the last byte read after its connection fails, rather than
+     * failing the reader. A value of zero disables resuming downloads.
+     *
+     * @param opts file system options object to populate with config
+     * @param maxResumes maximum number of resumes per download
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDownloadMaxResumes(final FileSystemOptions opts,
+                                                              final Integer maxResumes) {
+        if (maxResumes != null) {
+            if (maxResumes < 0) {
+                throw new IllegalArgumentException("Maximum download resumes must be zero or greater");
+            }
+            setParam(opts, DOWNLOAD_MAX_RESUMES_KEY, maxResumes);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of times an input stream resumes a download.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum number of resumes per download
+     */
+    public int getDownloadMaxResumes(final FileSystemOptions opts) {
+        return getInteger(opts, DOWNLOAD_MAX_RESUMES_KEY, DEFAULT_DOWNLOAD_MAX_RESUMES);
+    }
+
+    /**
+     * When set to true, input streams that are read to their end compute the
+     * MD5 of the content as it is read and fail if it doesn't match the
+     * checksum Manta recorded for the object. Downloads of client-side
+     * encrypted objects are not verified this way.
+     *
+     * @param opts file system options object to populate with config
+     * @param verifyDownloads true to verify downloaded content
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setVerifyDownloads(final FileSystemOptions opts,
+                                                           final Boolean verifyDownloads) {
+        if (verifyDownloads != null) {
+            setParam(opts, VERIFY_DOWNLOADS_KEY, verifyDownloads);
+        }
+
+        return this;
+    }
+
+    /**
+     * Indicates if downloaded content is verified against Manta's checksum.
+     *
+     * @param opts file system options object to read config from
+     * @return true if downloads are verified
+     */
+    public boolean isVerifyDownloads(final FileSystemOptions opts) {
+        return getBoolean(opts, VERIFY_DOWNLOADS_KEY, false);
+    }
+
+    /**
+     * Sets the number of bytes that random access content reads from Manta at
+     * a time and buffers in memory. Reads of primitives and other small reads
+     * are served from this buffer.
+     *
+     * @param opts file system options object to populate with config
+     * @param blockSize block size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setRandomAccessBlockSize(final FileSystemOptions opts,
+                                                                 final Integer blockSize) {
+        if (blockSize != null) {
+            if (blockSize < Long.BYTES) {
+                throw new IllegalArgumentException("Random access block size must be 8 or greater");
+            }
+            setParam(opts, RANDOM_ACCESS_BLOCK_SIZE_KEY, blockSize);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes that random access content reads from Manta at a time.
+     *
+     * @param opts file system options object to read config from
+     * @return block size in bytes
+     */
+    public int getRandomAccessBlockSize(final FileSystemOptions opts) {
+        return getInteger(opts, RANDOM_ACCESS_BLOCK_SIZE_KEY, DEFAULT_RANDOM_ACCESS_BLOCK_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of bytes that random access content reads and
+     * discards on an already open connection when seeking forward. Seeking
+     * further than this opens a new ranged request instead. A value of zero
+     * always opens a new request.
+     *
+     * @param opts file system options object to populate with config
+     * @param maxSkip maximum skip in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setRandomAccessMaxSkip(final FileSystemOptions opts,
+                                                               final Long maxSkip) {
+        if (maxSkip != null) {
+            if (maxSkip < 0) {
+                throw new IllegalArgumentException("Random access maximum skip must be zero or greater");
+            }
+            setParam(opts, RANDOM_ACCESS_MAX_SKIP_KEY, maxSkip);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes that random access content skips on an
+     * open connection when seeking forward.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum skip in bytes
+     */
+    public long getRandomAccessMaxSkip(final FileSystemOptions opts) {
+        return getLong(opts, RANDOM_ACCESS_MAX_SKIP_KEY, DEFAULT_RANDOM_ACCESS_MAX_SKIP);
+    }
+
+    /**
+     * Sets the maximum number of bytes that random access content reads in the
+     * background once it detects that it is being read sequentially. The
+     * window starts at one block, doubles while the sequential pattern holds
+     * and collapses back to one block on a random seek. A value of zero
+     * disables read-ahead.
+     *
+     * @param opts file system options object to populate with config
+     * @param readAhead maximum read-ahead in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setRandomAccessReadAhead(final FileSystemOptions opts,
+                                                                 final Integer readAhead) {
+        if (readAhead != null) {
+            if (readAhead < 0) {
+                throw new IllegalArgumentException("Random access read-ahead must be zero or greater");
+            }
+            setParam(opts, RANDOM_ACCESS_READ_AHEAD_KEY, readAhead);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes that random access content reads ahead
+     * of sequential reads.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum read-ahead in bytes (0 when disabled)
+     */
+    public int getRandomAccessReadAhead(final FileSystemOptions opts) {
+        return getInteger(opts, RANDOM_ACCESS_READ_AHEAD_KEY, DEFAULT_RANDOM_ACCESS_READ_AHEAD);
+    }
+
+    /**
+     * Sets the size in bytes up to which objects opened for random access are
+     * fetched whole into memory with a single request, so that seeks never
+     * make requests. Larger objects are read through a seekable channel. A
+     * value of zero disables fetching objects into memory.
+     *
+     * @param opts file system options object to populate with config
+     * @param threshold maximum object size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setRandomAccessInMemoryThreshold(final FileSystemOptions opts,
+                                                                         final Integer threshold) {
+        if (threshold != null) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Random access in-memory threshold must be zero or greater");
+            }
+            setParam(opts, RANDOM_ACCESS_IN_MEMORY_THRESHOLD_KEY, threshold);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the size in bytes up to which objects opened for random access are
+     * fetched whole into memory.
+     *
+     * @param opts file system options object to read config from
+     * @return maximum object size in bytes (0 when disabled)
+     */
+    public int getRandomAccessInMemoryThreshold(final FileSystemOptions opts) {
+        return getInteger(opts, RANDOM_ACCESS_IN_MEMORY_THRESHOLD_KEY,
+                DEFAULT_RANDOM_ACCESS_IN_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Sets the maximum number of bytes of object blocks held in direct memory
+     * by the block cache shared by all random access readers of a filesystem.
+     * Blocks are the size set by {@link #setRandomAccessBlockSize(FileSystemOptions, Integer)}.
+     * A value of zero disables the cache.
+     *
+     * @param opts file system options object to populate with config
+     * @param size cache size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setBlockCacheSize(final FileSystemOptions opts,
+                                                          final Long size) {
+        if (size != null) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Block cache size must be zero or greater");
+            }
+            setParam(opts, BLOCK_CACHE_SIZE_KEY, size);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes held by the block cache.
+     *
+     * @param opts file system options object to read config from
+     * @return cache size in bytes (0 when disabled)
+     */
+    public long getBlockCacheSize(final FileSystemOptions opts) {
+        return getLong(opts, BLOCK_CACHE_SIZE_KEY, DEFAULT_BLOCK_CACHE_SIZE);
+    }
+
+    /**
+     * Sets the local directory in which whole objects read through input
+     * streams are cached between runs. The disk cache is disabled unless a
+     * directory is set. Filesystems of the same JVM that are configured with
+     * the same directory share its cache.
+     *
+     * @param opts file system options object to populate with config
+     * @param directory path to the local cache directory
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDiskCacheDirectory(final FileSystemOptions opts,
+                                                              final String directory) {
+        if (directory != null) {
+            setParam(opts, DISK_CACHE_DIRECTORY_KEY, directory);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the local directory in which whole objects are cached.
+     *
+     * @param opts file system options object to read config from
+     * @return path to the local cache directory or null when disabled
+     */
+    public String getDiskCacheDirectory(final FileSystemOptions opts) {
+        return getString(opts, DISK_CACHE_DIRECTORY_KEY);
+    }
+
+    /**
+     * Sets the maximum number of bytes of objects cached on local disk. The
+     * least recently used objects are deleted when this is exceeded, and
+     * objects larger than this are never cached.
+     *
+     * @param opts file system options object to populate with config
+     * @param size cache size in bytes
+     * @return the current instance of {@link MantaFileSystemConfigBuilder}
+     */
+    public MantaFileSystemConfigBuilder setDiskCacheSize(final FileSystemOptions opts,
+                                                         final Long size) {
+        if (size != null) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Disk cache size must be zero or greater");
+            }
+            setParam(opts, DISK_CACHE_SIZE_KEY, size);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of bytes of objects cached on local disk.
+     *
+     * @param opts file system options object to read config from
+     * @return cache size in bytes
+     */
+    public long getDiskCacheSize(final FileSystemOptions opts) {
+        return getLong(opts, DISK_CACHE_SIZE_KEY, DEFAULT_DISK_CACHE_SIZE);
+    }
+
     /**
      * Imports the provided {@link ConfigContext} object into the config builder's
      * settings.
@@ -0,0 +1,96 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.operations.FileOperation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link FileOperation} that finds the files selected by a {@link FileSelector}
+ * below a Manta folder, listing sibling directories concurrently. This is the
+ * parallel equivalent of {@link FileObject#findFiles(FileSelector)}.
+ *
+ * <p>Usage:</p>
+ * <pre>{@code
+ * MantaFindFilesOperation find = folder.getFileOperations()
+ *         .getOperation(MantaFindFilesOperation.class);
+ * find.setSelector(Selectors.SELECT_FILES);
+ * find.process();
+ * List<FileObject> files = find.getResults();
+ * }</pre>
+ *
+ * @since 1.0.2
+ */
+public class MantaFindFilesOperation implements FileOperation {
+    /**
+     * Folder to start the search from.
+     */
+    private final MantaFileObject base;
+
+    /**
+     * Selector that determines which files are traversed and returned.
+     */
+    private FileSelector selector = Selectors.SELECT_ALL;
+
+    /**
+     * Flag indicating that children are returned before their parent.
+     */
+    private boolean depthwise = false;
+
+    /**
+     * Files found by the last invocation of {@link #process()}.
+     */
+    private List<FileObject> results = Collections.emptyList();
+
+    /**
+     * Creates a new instance that searches below the specified folder.
+     *
+     * @param base folder to start the search from
+     */
+    public MantaFindFilesOperation(final MantaFileObject base) {
+        this.base = Objects.requireNonNull(base, "Base file must be present");
+    }
+
+    /**
+     * Sets the selector that determines which files are traversed and returned.
+     *
+     * @param selector file selector
+     * @return the current instance of {@link MantaFindFilesOperation}
+     */
+    public MantaFindFilesOperation setSelector(final FileSelector selector) {
+        this.selector = Objects.requireNonNull(selector, "Selector must be present");
+        return this;
+    }
+
+    /**
+     * Sets the order of the results.
+     *
+     * @param depthwise when true children are returned before their parent
+     * @return the current instance of {@link MantaFindFilesOperation}
+     */
+    public MantaFindFilesOperation setDepthwise(final boolean depthwise) {
+        this.depthwise = depthwise;
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        final MantaParallelTraversal traversal = new MantaParallelTraversal(
+                (MantaFileSystem)base.getFileSystem());
+        this.results = traversal.findFiles(base, selector, depthwise);
+    }
+
+    /**
+     * Gets the files found by the last invocation of {@link #process()}.
+     *
+     * @return selected files
+     */
+    public List<FileObject> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,259 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaMetadata;
+import com.joyent.manta.client.multipart.MantaMultipartUploadPart;
+import com.joyent.manta.client.multipart.ServerSideMultipartManager;
+import com.joyent.manta.client.multipart.ServerSideMultipartUpload;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads a local file to Manta without copying it through an output
+ * stream. Because the size of the file is known up front, small files are
+ * sent with a single PUT that streams the file with its content length and
+ * large files are sent as a multipart upload whose parts are read directly
+ * from their region of the file and uploaded concurrently on the
+ * filesystem's shared {@link MantaFileSystem#getUploadExecutor() upload pool}.
+ * No part is ever buffered in memory.
+ *
+ * <p>Multipart uploads are used when they are enabled and the file is
+ * larger than the multipart threshold. The part size is raised when needed
+ * so that the file fits within Manta's maximum number of parts. When upload
+ * verification is enabled, the checksum of a multipart upload is compared
+ * with the local file once it is committed.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaLocalFileUpload {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaLocalFileUpload.class);
+
+    /**
+     * Filesystem to upload to.
+     */
+    private final MantaFileSystem fs;
+
+    /**
+     * Path of the object to create.
+     */
+    private final String path;
+
+    /**
+     * Local file to upload.
+     */
+    private final File source;
+
+    /**
+     * Number of parts uploaded or 0 if the file was sent with a single PUT.
+     */
+    private int partCount = 0;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fs filesystem to upload to
+     * @param path path of the object to create
+     * @param source local file to upload
+     */
+    public MantaLocalFileUpload(final MantaFileSystem fs, final String path, final File source) {
+        this.fs = Objects.requireNonNull(fs, "Filesystem must be present");
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.source = Objects.requireNonNull(source, "Source file must be present");
+    }
+
+    /**
+     * Uploads the file.
+     *
+     * @throws IOException thrown when the file can't be read or uploaded
+     */
+    public void upload() throws IOException {
+        final long size = source.length();
+
+        if (fs.isMultipartUploadEnabled() && size > fs.getMultipartThreshold()) {
+            uploadMultipart(size);
+        } else {
+            fs.getClient().put(path, source, new MantaHttpHeaders(), new MantaMetadata());
+        }
+    }
+
+    /**
+     * Gets the number of parts uploaded.
+     *
+     * @return number of parts or 0 if the file was sent with a single PUT
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Uploads the file as concurrently uploaded parts and commits them.
+     *
+     * @param size size of the file in bytes
+     * @throws IOException thrown when any part or the commit fails
+     */
+    private void uploadMultipart(final long size) throws IOException {
+        final ServerSideMultipartManager multipart = fs.getMultipartManager();
+        final long minimumPartSize = Math.max(fs.getMultipartPartSize(), multipart.getMinimumPartSize());
+        final long partSize = Math.max(minimumPartSize,
+                (size + multipart.getMaxParts() - 1) / multipart.getMaxParts());
+        final int parts = (int)((size + partSize - 1) / partSize);
+
+        LOG.debug(String.format("Uploading %s to %s as %d parts of %d bytes", source, path, parts, partSize));
+
+        final ServerSideMultipartUpload upload = multipart.initiateUpload(path);
+        final ExecutorService uploader = fs.getUploadExecutor();
+        final Semaphore inFlight = new Semaphore(fs.getMultipartMaxInFlight());
+        final List<Future<MantaMultipartUploadPart>> futures = new ArrayList<>(parts);
+
+        try {
+            for (int i = 0; i < parts; i++) {
+                final int partNumber = i + 1;
+                final long offset = i * partSize;
+                final long length = Math.min(partSize, size - offset);
+
+                inFlight.acquire();
+
+                try {
+                    futures.add(uploader.submit(() -> {
+                        try {
+                            return uploadPart(multipart, upload, partNumber, offset, length);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw new IOException(String.format("Unable to upload part of %s, because the "
+                            + "filesystem is closed", path), e);
+                }
+            }
+
+            final List<MantaMultipartUploadPart> uploaded = new ArrayList<>(parts);
+
+            for (Future<MantaMultipartUploadPart> future : futures) {
+                uploaded.add(future.get());
+            }
+
+            multipart.complete(upload, uploaded);
+            this.partCount = parts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortQuietly(multipart, upload, futures, e);
+            throw new InterruptedIOException("Interrupted while waiting for parts to upload");
+        } catch (ExecutionException e) {
+            final IOException failure = e.getCause() instanceof IOException
+                    ? (IOException)e.getCause()
+                    : new IOException(String.format("Unable to upload part of %s", path), e.getCause());
+            abortQuietly(multipart, upload, futures, failure);
+            throw failure;
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(multipart, upload, futures, e);
+            throw e;
+        }
+
+        if (fs.isVerifyUploadsEnabled()) {
+            verifyCommitted();
+        }
+    }
+
+    /**
+     * Verifies the checksum of the committed object against a digest of the
+     * local file. Because parts are read concurrently and out of order, the
+     * file is digested again once the upload is committed.
+     *
+     * @throws IOException thrown when the file can't be read or the checksums don't match
+     */
+    private void verifyCommitted() throws IOException {
+        final MessageDigest digest = MantaChecksumInputStream.newMd5Digest();
+
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source.toPath()), digest)) {
+            IOUtils.skip(in, Long.MAX_VALUE);
+        }
+
+        final byte[] expected = digest.digest();
+        final byte[] actual = fs.getClient().head(path).getMd5Bytes();
+
+        if (actual == null) {
+            LOG.debug(String.format("No checksum reported for %s, so it can't be verified", path));
+            return;
+        }
+
+        if (!MessageDigest.isEqual(expected, actual)) {
+            final String msg = String.format("Checksum of %s doesn't match %s: "
+                    + "expected %s but the server reported %s", path, source,
+                    Base64.getEncoder().encodeToString(expected),
+                    Base64.getEncoder().encodeToString(actual));
+            throw new MantaChecksumFailedException(msg);
+        }
+    }
+
+    /**
+     * Uploads a part read directly from its region of the file.
+     *
+     * @param multipart manager used for the upload
+     * @param upload multipart upload the part belongs to
+     * @param partNumber number of the part
+     * @param offset offset of the part within the file
+     * @param length size of the part in bytes
+     * @return the uploaded part
+     * @throws IOException thrown when the part can't be read or uploaded
+     */
+    private MantaMultipartUploadPart uploadPart(final ServerSideMultipartManager multipart,
+                                                final ServerSideMultipartUpload upload,
+                                                final int partNumber,
+                                                final long offset,
+                                                final long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             InputStream in = new BoundedInputStream(Channels.newInputStream(channel.position(offset)), length)) {
+            return multipart.uploadPart(upload, partNumber, length, in);
+        }
+    }
+
+    /**
+     * Cancels outstanding parts and aborts the multipart upload after a failure.
+     *
+     * @param multipart manager used for the upload
+     * @param upload multipart upload to abort
+     * @param futures uploads of parts
+     * @param cause failure that caused the abort
+     */
+    private void abortQuietly(final ServerSideMultipartManager multipart,
+                              final ServerSideMultipartUpload upload,
+                              final List<Future<MantaMultipartUploadPart>> futures,
+                              final Exception cause) {
+        futures.forEach(part -> part.cancel(true));
+
+        try {
+            multipart.abort(upload);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(String.format("Unable to abort multipart upload %s for %s", upload.getId(), path), e);
+            cause.addSuppressed(e);
+        }
+    }
+}
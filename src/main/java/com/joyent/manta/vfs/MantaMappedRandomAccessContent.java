@@ -0,0 +1,352 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.provider.AbstractRandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implementation of {@link org.apache.commons.vfs2.RandomAccessContent} that
+ * reads a copy of a Manta object held in memory: either a local file, such
+ * as a file of the {@link MantaDiskCache}, mapped into memory or a small
+ * object fetched whole into a buffer. Reads and seeks are served without
+ * any requests or intermediate buffers. Files larger than the maximum size
+ * of a single mapping are mapped in segments.
+ *
+ * @since 1.0.2
+ */
+public class MantaMappedRandomAccessContent extends AbstractRandomAccessContent
+        implements AutoCloseable {
+    /**
+     * Constant indicated the end of a file has been reached.
+     */
+    public static final int EOF = -1;
+
+    /**
+     * Mask used to convert a byte to an unsigned value.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Number of bits in the offset within a segment.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * Size in bytes of each mapped segment (1 GiB).
+     */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    /**
+     * Mask used to get the offset within a segment.
+     */
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Mapped segments of the file.
+     */
+    private ByteBuffer[] segments;
+
+    /**
+     * Size of the file in bytes.
+     */
+    private final long length;
+
+    /**
+     * Position of the next byte to be read within the file.
+     */
+    private long filePointer = 0L;
+
+    /**
+     * Array used to decode primitives that span two segments.
+     */
+    private final byte[] scratch = new byte[Long.BYTES];
+
+    /**
+     * Creates a new instance mapping a local file.
+     *
+     * @param file local file to read
+     * @throws IOException thrown when the file can't be opened or mapped
+     */
+    public MantaMappedRandomAccessContent(final Path file) throws IOException {
+        super(RandomAccessMode.READ);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.length = channel.size();
+            final MappedByteBuffer[] mapped =
+                    new MappedByteBuffer[(int)((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+
+            for (int i = 0; i < mapped.length; i++) {
+                final long start = i * SEGMENT_SIZE;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, length - start));
+            }
+
+            this.segments = mapped;
+        }
+    }
+
+    /**
+     * Creates a new instance reading the remaining bytes of a buffer.
+     *
+     * @param content buffer containing the whole object
+     */
+    public MantaMappedRandomAccessContent(final ByteBuffer content) {
+        super(RandomAccessMode.READ);
+
+        this.length = content.remaining();
+        this.segments = new ByteBuffer[] {content.slice()};
+    }
+
+    @Override
+    public void close() {
+        /* Mappings are released when the buffers are garbage collected. */
+        this.segments = new ByteBuffer[0];
+    }
+
+    @Override
+    public long getFilePointer() throws IOException {
+        return this.filePointer;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new MappedContentInputStream();
+    }
+
+    @Override
+    public long length() throws IOException {
+        return this.length;
+    }
+
+    @Override
+    public void seek(final long pos) throws IOException {
+        if (pos < 0) {
+            throw new IOException("Attempt to position before the start of the file");
+        }
+
+        this.filePointer = pos;
+    }
+
+    @Override
+    public void setLength(final long newLength) throws IOException {
+        throw new UnsupportedOperationException("Truncation is not supported");
+    }
+
+    @Override
+    public void readFully(final byte[] b) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("byte array value must not be null");
+        }
+
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(final byte[] b, final int off, final int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("byte array value must not be null");
+        }
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (this.length - this.filePointer < len) {
+            throw new EOFException();
+        }
+
+        int total = 0;
+
+        while (total < len) {
+            total += read(b, off + total, len - total);
+        }
+    }
+
+    @Override
+    public int skipBytes(final int n) throws IOException {
+        if (n < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The skip number can't be negative");
+        }
+
+        final int skipped = (int)Math.max(0L, Math.min(n, this.length - this.filePointer));
+        this.filePointer += skipped;
+
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readUnsignedByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return take(Byte.BYTES).get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & BYTE_MASK;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return take(Short.BYTES).getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readChar();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return take(Character.BYTES).getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return take(Integer.BYTES).getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return take(Long.BYTES).getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return take(Float.BYTES).getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return take(Double.BYTES).getDouble();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    /**
+     * Reads up to the specified number of bytes from the segment containing
+     * the file pointer.
+     *
+     * @param b array to read into
+     * @param off offset within the array
+     * @param len maximum number of bytes to read
+     * @return number of bytes read or {@link #EOF} at the end of the file
+     */
+    private int read(final byte[] b, final int off, final int len) {
+        if (this.filePointer >= this.length) {
+            return EOF;
+        }
+
+        final ByteBuffer segment = segment();
+        final int count = Math.min(len, segment.remaining());
+        segment.get(b, off, count);
+        this.filePointer += count;
+
+        return count;
+    }
+
+    /**
+     * Advances past a primitive, returning a buffer positioned at its start.
+     *
+     * @param count number of bytes of the primitive
+     * @return buffer to decode the primitive from
+     * @throws EOFException thrown when the end of the file is reached first
+     */
+    private ByteBuffer take(final int count) throws EOFException {
+        if (this.length - this.filePointer < count) {
+            throw new EOFException();
+        }
+
+        final ByteBuffer segment = segment();
+
+        if (segment.remaining() >= count) {
+            this.filePointer += count;
+            return segment;
+        }
+
+        int total = 0;
+
+        while (total < count) {
+            total += read(this.scratch, total, count - total);
+        }
+
+        return ByteBuffer.wrap(this.scratch, 0, count);
+    }
+
+    /**
+     * Gets a view of the segment containing the file pointer positioned at it.
+     *
+     * @return view of the current segment
+     */
+    private ByteBuffer segment() {
+        final ByteBuffer segment = this.segments[(int)(this.filePointer >>> SEGMENT_SHIFT)].duplicate();
+        segment.position((int)(this.filePointer & SEGMENT_MASK));
+        return segment;
+    }
+
+    /**
+     * {@link InputStream} view of the content that shares the file pointer
+     * with the enclosing instance.
+     */
+    private class MappedContentInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            if (filePointer >= length) {
+                return EOF;
+            }
+
+            return readUnsignedByte();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            if (len == 0) {
+                return 0;
+            }
+
+            return MantaMappedRandomAccessContent.this.read(b, off, len);
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0L;
+            }
+
+            final long skipped = Math.max(0L, Math.min(n, length - filePointer));
+            filePointer += skipped;
+
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int)Math.max(0L, Math.min(Integer.MAX_VALUE, length - filePointer));
+        }
+
+        @Override
+        public void close() {
+            MantaMappedRandomAccessContent.this.close();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.client.MantaMetadata;
+import com.joyent.manta.client.multipart.MantaMultipartUploadPart;
+import com.joyent.manta.client.multipart.ServerSideMultipartManager;
+import com.joyent.manta.client.multipart.ServerSideMultipartUpload;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link OutputStream} that uploads large objects to Manta as a server-side
+ * multipart upload, uploading several parts concurrently over separate
+ * connections. Data is buffered in memory until more than the configured
+ * threshold has been written; if the stream is closed before then, the
+ * object is uploaded with a single PUT instead.
+ *
+ * <p>Once the upload has switched to multipart, at most the configured
+ * number of parts are uploaded at the same time and writes block while that
+ * many parts are in flight, bounding memory to that number of parts plus the
+ * part being written. The upload is committed when the stream is closed and
+ * aborted if any part fails.</p>
+ *
+ * <p>When upload verification is enabled, the MD5 of the object is computed
+ * as it is written and compared to the checksum Manta reports for the
+ * committed object, because the checks made for single PUTs don't cover
+ * multipart uploads.</p>
+ *
+ * <p>Parts are uploaded on the filesystem's shared
+ * {@link MantaFileSystem#getUploadExecutor() upload pool}.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaMultipartOutputStream extends OutputStream {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaMultipartOutputStream.class);
+
+    /**
+     * Manta driver used for single PUT uploads.
+     */
+    private final MantaClient client;
+
+    /**
+     * Manager used for multipart uploads.
+     */
+    private final ServerSideMultipartManager multipart;
+
+    /**
+     * Path of the object being uploaded.
+     */
+    private final String path;
+
+    /**
+     * Number of bytes after which the upload switches to multipart.
+     */
+    private final long threshold;
+
+    /**
+     * Size in bytes of each part.
+     */
+    private final int partSize;
+
+    /**
+     * Thread pool shared by the parts of uploads.
+     */
+    private final ExecutorService uploader;
+
+    /**
+     * Permits for parts in flight.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Digest of everything written or null when uploads aren't verified.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Full parts buffered before the upload switched to multipart.
+     */
+    private final List<byte[]> pendingParts = new ArrayList<>();
+
+    /**
+     * Buffers of uploaded parts that can be reused.
+     */
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Uploads of parts in part number order.
+     */
+    private final List<Future<MantaMultipartUploadPart>> parts = new ArrayList<>();
+
+    /**
+     * Part currently being written to.
+     */
+    private byte[] buffer;
+
+    /**
+     * Number of bytes in the current part.
+     */
+    private int count = 0;
+
+    /**
+     * Total number of bytes written.
+     */
+    private long bytesWritten = 0L;
+
+    /**
+     * Multipart upload or null if the upload hasn't switched to multipart.
+     */
+    private ServerSideMultipartUpload upload;
+
+    /**
+     * First error encountered when uploading a part.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Flag indicating the stream was closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance configured from the settings of a filesystem.
+     *
+     * @param fs filesystem to upload to
+     * @param path path of the object to upload
+     */
+    public MantaMultipartOutputStream(final MantaFileSystem fs, final String path) {
+        this(fs, path, fs.getMultipartThreshold(), fs.getMultipartPartSize(),
+                fs.getMultipartMaxInFlight(), fs.isVerifyUploadsEnabled());
+    }
+
+    /**
+     * Creates a new instance that uploads through the client, multipart
+     * manager and shared upload pool of a filesystem.
+     *
+     * @param fs filesystem to upload to
+     * @param path path of the object to upload
+     * @param threshold number of bytes after which the upload switches to multipart
+     * @param partSize size in bytes of each part (raised to Manta's minimum part size)
+     * @param maxInFlight maximum number of parts uploaded concurrently
+     * @param verify true to verify multipart uploads against Manta's checksum
+     */
+    public MantaMultipartOutputStream(final MantaFileSystem fs,
+                                      final String path,
+                                      final long threshold,
+                                      final int partSize,
+                                      final int maxInFlight,
+                                      final boolean verify) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Parts in flight must be 1 or greater");
+        }
+
+        this.client = fs.getClient();
+        this.multipart = fs.getMultipartManager();
+        this.uploader = fs.getUploadExecutor();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.threshold = threshold;
+        this.partSize = Math.max(partSize, multipart.getMinimumPartSize());
+        this.digest = verify ? MantaChecksumInputStream.newMd5Digest() : null;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureWritable();
+
+        buffer[count++] = (byte)b;
+        bytesWritten++;
+
+        if (digest != null) {
+            digest.update((byte)b);
+        }
+
+        if (count == partSize) {
+            partFull();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        Objects.requireNonNull(b, "Byte array must be present");
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        int position = off;
+        int remaining = len;
+
+        while (remaining > 0) {
+            ensureWritable();
+
+            final int chunk = Math.min(remaining, partSize - count);
+            System.arraycopy(b, position, buffer, count, chunk);
+
+            if (digest != null) {
+                digest.update(b, position, chunk);
+            }
+
+            count += chunk;
+            bytesWritten += chunk;
+            position += chunk;
+            remaining -= chunk;
+
+            if (count == partSize) {
+                partFull();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            if (upload == null) {
+                putSingle();
+            } else {
+                completeMultipart();
+            }
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(e);
+            throw e;
+        } finally {
+            buffer = null;
+            pendingParts.clear();
+            freeBuffers.clear();
+        }
+
+        /* Verified after the commit, so a mismatch doesn't attempt to abort
+         * an upload that has already been committed. */
+        if (upload != null && digest != null) {
+            verifyCommitted();
+        }
+    }
+
+    /**
+     * Gets the total number of bytes written to this stream.
+     *
+     * @return number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Indicates if the upload switched to a multipart upload.
+     *
+     * @return true if a multipart upload was started
+     */
+    public boolean isMultipart() {
+        return upload != null;
+    }
+
+    /**
+     * Makes sure that the stream is open, no part has failed and that there
+     * is a buffer to write to.
+     *
+     * @throws IOException when the stream is closed or a part has failed
+     */
+    private void ensureWritable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (buffer == null) {
+            final byte[] free = freeBuffers.poll();
+            buffer = free == null ? new byte[partSize] : free;
+            count = 0;
+        }
+    }
+
+    /**
+     * Hands off the current part once it is full, either by buffering it
+     * until the threshold is passed or by uploading it.
+     *
+     * @throws IOException when the multipart upload couldn't be started
+     */
+    private void partFull() throws IOException {
+        final byte[] full = buffer;
+        buffer = null;
+
+        if (upload != null) {
+            submitPart(full, partSize);
+            return;
+        }
+
+        pendingParts.add(full);
+
+        if (bytesWritten > threshold) {
+            startMultipart();
+        }
+    }
+
+    /**
+     * Starts the multipart upload and submits all buffered parts.
+     *
+     * @throws IOException when the multipart upload couldn't be started
+     */
+    private void startMultipart() throws IOException {
+        LOG.debug(String.format("Switching to multipart upload for %s after %d bytes", path, bytesWritten));
+
+        upload = multipart.initiateUpload(path);
+
+        for (byte[] part : pendingParts) {
+            submitPart(part, partSize);
+        }
+
+        pendingParts.clear();
+    }
+
+    /**
+     * Uploads a part in the background, blocking while the maximum number of
+     * parts are already in flight.
+     *
+     * @param part buffer containing the part
+     * @param length number of bytes of the buffer to upload
+     * @throws IOException when interrupted, there are too many parts or a part has failed
+     */
+    private void submitPart(final byte[] part, final int length) throws IOException {
+        final int partNumber = parts.size() + 1;
+
+        if (partNumber > multipart.getMaxParts()) {
+            final String msg = String.format("Upload of %s exceeds the maximum of %d parts - "
+                    + "increase the multipart part size", path, multipart.getMaxParts());
+            throw new IOException(msg);
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to upload part");
+        }
+
+        if (failure != null) {
+            inFlight.release();
+            throw failure;
+        }
+
+        try {
+            parts.add(uploader.submit(() -> {
+                try {
+                    return multipart.uploadPart(upload, partNumber, length,
+                            new ByteArrayInputStream(part, 0, length));
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    throw e;
+                } finally {
+                    freeBuffers.offer(part);
+                    inFlight.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw new IOException(String.format("Unable to upload part of %s, because the filesystem "
+                    + "is closed", path), e);
+        }
+    }
+
+    /**
+     * Uploads everything written with a single PUT.
+     *
+     * @throws IOException when the upload fails
+     */
+    private void putSingle() throws IOException {
+        final List<InputStream> streams = new ArrayList<>(pendingParts.size() + 1);
+
+        for (byte[] part : pendingParts) {
+            streams.add(new ByteArrayInputStream(part));
+        }
+
+        if (buffer != null) {
+            streams.add(new ByteArrayInputStream(buffer, 0, count));
+        }
+
+        try (InputStream in = new SequenceInputStream(Collections.enumeration(streams))) {
+            client.put(path, in, bytesWritten, new MantaHttpHeaders(), new MantaMetadata());
+        }
+    }
+
+    /**
+     * Uploads the last part, waits for all parts and commits the upload.
+     *
+     * @throws IOException when any part or the commit fails
+     */
+    private void completeMultipart() throws IOException {
+        if (buffer != null && count > 0) {
+            submitPart(buffer, count);
+            buffer = null;
+        }
+
+        final List<MantaMultipartUploadPart> uploaded = new ArrayList<>(parts.size());
+
+        try {
+            for (Future<MantaMultipartUploadPart> part : parts) {
+                uploaded.add(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parts to upload");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+
+            throw new IOException(String.format("Unable to upload part of %s", path), cause);
+        }
+
+        multipart.complete(upload, uploaded);
+    }
+
+    /**
+     * Compares the digest of everything written to the checksum Manta
+     * reports for the committed object.
+     *
+     * @throws IOException thrown when the object can't be read or doesn't match
+     */
+    private void verifyCommitted() throws IOException {
+        final byte[] expected = digest.digest();
+        final byte[] actual = client.head(path).getMd5Bytes();
+
+        if (actual == null) {
+            LOG.debug(String.format("No checksum reported for %s, so it can't be verified", path));
+            return;
+        }
+
+        if (!MessageDigest.isEqual(expected, actual)) {
+            final String msg = String.format("Checksum of %s doesn't match what was written: "
+                    + "expected %s but the server reported %s", path,
+                    Base64.getEncoder().encodeToString(expected),
+                    Base64.getEncoder().encodeToString(actual));
+            throw new MantaChecksumFailedException(msg);
+        }
+    }
+
+    /**
+     * Aborts the multipart upload, if any, after a failure.
+     *
+     * @param cause failure that caused the abort
+     */
+    private void abortQuietly(final Exception cause) {
+        if (upload == null) {
+            return;
+        }
+
+        parts.forEach(part -> part.cancel(true));
+
+        try {
+            multipart.abort(upload);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(String.format("Unable to abort multipart upload %s for %s", upload.getId(), path), e);
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaClient;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * {@link InputStream} that downloads an object from Manta as fixed-size
+ * byte ranges requested concurrently over separate connections, presenting
+ * them to the reader in order as a single sequential stream.
+ *
+ * <p>Only a bounded number of ranges are requested ahead of the reader: the
+ * configured download parallelism, reduced so that the ranges fit within the
+ * configured buffer budget. A new range is requested each time the reader
+ * finishes with one. Ranges are downloaded on a thread pool shared by the
+ * downloads of a filesystem. Every range is requested with an <code>If-Match</code>
+ * header containing the object's etag, so that the download fails rather
+ * than returning a mix of two versions when the object is replaced while it
+ * is being read, and each response must be a partial response starting at
+ * the requested offset.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaParallelInputStream extends InputStream {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaParallelInputStream.class);
+
+    /**
+     * Manta driver used to request ranges.
+     */
+    private final MantaClient client;
+
+    /**
+     * Path of the object being downloaded.
+     */
+    private final String path;
+
+    /**
+     * Size of the object in bytes.
+     */
+    private final long size;
+
+    /**
+     * Etag the object must match or null if it isn't known.
+     */
+    private final String etag;
+
+    /**
+     * Size in bytes of each range.
+     */
+    private final int chunkSize;
+
+    /**
+     * Maximum number of ranges requested ahead of the reader.
+     */
+    private final int window;
+
+    /**
+     * Threads downloading ranges, shared with other downloads.
+     */
+    private final ExecutorService downloader;
+
+    /**
+     * Requested ranges in the order they are read.
+     */
+    private final Deque<Future<byte[]>> chunks = new ArrayDeque<>();
+
+    /**
+     * Offset of the next range to request.
+     */
+    private long nextOffset = 0L;
+
+    /**
+     * Offset of the reader within the object.
+     */
+    private long offset = 0L;
+
+    /**
+     * Range currently being read.
+     */
+    private byte[] current;
+
+    /**
+     * Position of the reader within the current range.
+     */
+    private int position = 0;
+
+    /**
+     * Flag indicating the stream was closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance configured from the settings of a filesystem.
+     *
+     * @param fs filesystem to download from
+     * @param path path of the object to download
+     * @param size size of the object in bytes
+     * @param etag etag the object must match or null to skip the check
+     */
+    public MantaParallelInputStream(final MantaFileSystem fs, final String path,
+                                    final long size, final String etag) {
+        this(fs, path, size, etag, fs.getDownloadChunkSize(),
+                fs.getDownloadParallelism(), fs.getDownloadBufferSize());
+    }
+
+    /**
+     * Creates a new instance and requests the first ranges.
+     *
+     * @param fs filesystem whose client and download thread pool are used
+     * @param path path of the object to download
+     * @param size size of the object in bytes
+     * @param etag etag the object must match or null to skip the check
+     * @param chunkSize size in bytes of each range
+     * @param parallelism maximum number of ranges requested concurrently
+     * @param bufferSize maximum number of bytes requested ahead of the reader
+     */
+    public MantaParallelInputStream(final MantaFileSystem fs,
+                                    final String path,
+                                    final long size,
+                                    final String etag,
+                                    final int chunkSize,
+                                    final int parallelism,
+                                    final long bufferSize) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must be zero or greater");
+        }
+
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be 1 or greater");
+        }
+
+        Objects.requireNonNull(fs, "Filesystem must be present");
+        this.client = fs.getClient();
+        this.downloader = fs.getDownloadExecutor();
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.size = size;
+        this.etag = etag;
+        this.chunkSize = chunkSize;
+        this.window = (int)Math.max(1L, Math.min(parallelism, bufferSize / chunkSize));
+
+        requestRanges();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+
+        offset++;
+        return Byte.toUnsignedInt(current[position++]);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        Objects.requireNonNull(b, "Byte array must be present");
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!ensureData()) {
+            return -1;
+        }
+
+        final int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        offset += count;
+
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        if (n <= 0) {
+            return 0L;
+        }
+
+        final long skipped = Math.min(n, size - offset);
+        offset += skipped;
+
+        if (current != null && skipped <= current.length - position) {
+            position += (int)skipped;
+            return skipped;
+        }
+
+        /* Outstanding ranges are discarded and new ranges are requested
+         * from the new position, rather than downloading bytes to skip them. */
+        cancelRanges();
+        current = null;
+        position = 0;
+        nextOffset = offset;
+        requestRanges();
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed || current == null) {
+            return 0;
+        }
+
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        cancelRanges();
+        current = null;
+    }
+
+    /**
+     * Gets the maximum number of ranges requested ahead of the reader.
+     *
+     * @return number of ranges
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Makes sure that there is unread data in the current range, waiting for
+     * the next range to download when needed.
+     *
+     * @return false when the end of the object has been reached
+     * @throws IOException when the stream is closed or a range failed
+     */
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        while (current == null || position == current.length) {
+            final Future<byte[]> next = chunks.poll();
+
+            if (next == null) {
+                current = null;
+                return false;
+            }
+
+            current = await(next);
+            position = 0;
+            requestRanges();
+        }
+
+        return true;
+    }
+
+    /**
+     * Waits for a range to download.
+     *
+     * @param chunk future of the range
+     * @return content of the range
+     * @throws IOException when the range couldn't be downloaded
+     */
+    private byte[] await(final Future<byte[]> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+
+            throw new IOException(String.format("Unable to download %s", path), cause);
+        }
+    }
+
+    /**
+     * Requests ranges until the window is full or the end of the object has
+     * been requested.
+     */
+    private void requestRanges() {
+        while (chunks.size() < window && nextOffset < size) {
+            final long start = nextOffset;
+            final int length = (int)Math.min(chunkSize, size - start);
+            nextOffset += length;
+
+            chunks.add(downloader.submit(() -> download(start, length)));
+        }
+    }
+
+    /**
+     * Cancels all requested ranges that haven't been read.
+     */
+    private void cancelRanges() {
+        chunks.forEach(chunk -> chunk.cancel(true));
+        chunks.clear();
+    }
+
+    /**
+     * Downloads a single range. This runs on the download threads.
+     *
+     * @param start offset of the first byte of the range
+     * @param length number of bytes in the range
+     * @return content of the range
+     * @throws IOException when the request fails, isn't answered with the
+     *                     requested range or returns fewer bytes than requested
+     */
+    private byte[] download(final long start, final int length) throws IOException {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(String.format("Downloading bytes %d-%d of %s", start, start + length - 1, path));
+        }
+
+        final byte[] chunk = new byte[length];
+
+        try (InputStream in = MantaFileSystem.getRange(client, path, start, start + length - 1L, etag)) {
+            IOUtils.readFully(in, chunk);
+        }
+
+        return chunk;
+    }
+}
@@ -0,0 +1,273 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.provider.AbstractFileObject;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Walks a Manta directory tree, listing sibling directories concurrently on
+ * the filesystem's executor rather than one directory at a time like
+ * {@link AbstractFileObject#findFiles(FileSelector)}. The calling thread
+ * coordinates the walk: it is the only thread that invokes the
+ * {@link FileSelector}, so selectors don't need to be thread-safe, and
+ * subdirectories are only listed when the selector's
+ * {@link FileSelector#traverseDescendents(FileSelectInfo)} allows it.
+ *
+ * <p>Results are returned in the same order that
+ * {@link AbstractFileObject#findFiles(FileSelector, boolean, List)} would
+ * return them.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaParallelTraversal {
+    /**
+     * Filesystem whose executor lists directories.
+     */
+    private final MantaFileSystem fs;
+
+    /**
+     * Creates a new instance that lists directories using the executor of
+     * the specified filesystem.
+     *
+     * @param fs filesystem to traverse
+     */
+    public MantaParallelTraversal(final MantaFileSystem fs) {
+        this.fs = Objects.requireNonNull(fs, "Filesystem must be present");
+    }
+
+    /**
+     * Finds the files below a base folder (including the base folder itself)
+     * that are selected by a {@link FileSelector}.
+     *
+     * @param base folder to start the walk from
+     * @param selector selector that determines which files are traversed and returned
+     * @param depthwise when true children are returned before their parent,
+     *                  otherwise parents are returned before their children
+     * @return selected files
+     * @throws FileSystemException when a directory couldn't be listed or the selector failed
+     */
+    public List<FileObject> findFiles(final FileObject base,
+                                      final FileSelector selector,
+                                      final boolean depthwise) throws FileSystemException {
+        Objects.requireNonNull(base, "Base file must be present");
+        Objects.requireNonNull(selector, "Selector must be present");
+
+        if (!base.exists()) {
+            return Collections.emptyList();
+        }
+
+        final Node root = new Node(base, 0);
+        final CompletionService<Node> listings = new ExecutorCompletionService<>(fs.getExecutor());
+        final List<Future<Node>> futures = new ArrayList<>();
+
+        try {
+            visit(root, base, selector, listings, futures);
+
+            for (int completed = 0; completed < futures.size(); completed++) {
+                final Node listed = listings.take().get();
+
+                for (Node child : listed.children) {
+                    visit(child, base, selector, listings, futures);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemException("vfs.provider/find-files.error", e, base.getName());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof FileSystemException) {
+                throw (FileSystemException)cause;
+            }
+
+            throw new FileSystemException("vfs.provider/find-files.error", cause, base.getName());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        final List<FileObject> selected = new ArrayList<>();
+        flatten(root, depthwise, selected);
+        return selected;
+    }
+
+    /**
+     * Applies the selector to a file, scheduling a listing of its children
+     * when it is a folder that should be traversed.
+     *
+     * @param node node of the file to visit
+     * @param base folder the walk started from
+     * @param selector selector that determines which files are traversed and returned
+     * @param listings completion service that lists directories
+     * @param futures futures of scheduled listings
+     * @throws FileSystemException when the selector fails
+     */
+    private void visit(final Node node,
+                       final FileObject base,
+                       final FileSelector selector,
+                       final CompletionService<Node> listings,
+                       final List<Future<Node>> futures) throws FileSystemException {
+        final SelectInfo info = new SelectInfo(base, node.file, node.depth);
+
+        try {
+            if (node.file.getType().hasChildren() && selector.traverseDescendents(info)) {
+                futures.add(listings.submit(() -> list(node)));
+            }
+
+            node.included = selector.includeFile(info);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException("vfs.provider/find-files.error", e, base.getName());
+        }
+    }
+
+    /**
+     * Lists the children of a folder. This runs on the filesystem's executor.
+     * Manta folders are listed with {@link MantaFileObject#streamChildren()}
+     * so that no filesystem-wide lock is held while the listing is read.
+     *
+     * @param node node of the folder to list
+     * @return the node with its children populated
+     * @throws FileSystemException when the listing fails
+     */
+    private static Node list(final Node node) throws FileSystemException {
+        final AbstractFileObject<?> unwrapped = FileObjectUtils.getAbstractFileObject(node.file);
+        final Stream<FileObject> listing;
+
+        if (unwrapped instanceof MantaFileObject) {
+            listing = ((MantaFileObject)unwrapped).streamChildren();
+        } else {
+            listing = Stream.of(node.file.getChildren());
+        }
+
+        try (Stream<FileObject> children = listing) {
+            node.children = children
+                    .map(child -> new Node(child, node.depth + 1))
+                    .collect(Collectors.toList());
+        }
+
+        return node;
+    }
+
+    /**
+     * Adds the selected files of a traversed tree to a list in the order
+     * that VFS would return them.
+     *
+     * @param node node to add along with its descendants
+     * @param depthwise when true children are added before their parent
+     * @param selected list to add selected files to
+     */
+    private static void flatten(final Node node, final boolean depthwise, final List<FileObject> selected) {
+        if (node.included && !depthwise) {
+            selected.add(node.file);
+        }
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                flatten(child, depthwise, selected);
+            }
+        }
+
+        if (node.included && depthwise) {
+            selected.add(node.file);
+        }
+    }
+
+    /**
+     * A file visited during the walk.
+     */
+    private static final class Node {
+        /**
+         * File visited.
+         */
+        private final FileObject file;
+
+        /**
+         * Depth of the file relative to the base folder.
+         */
+        private final int depth;
+
+        /**
+         * Children of the file or null if it wasn't traversed.
+         */
+        private List<Node> children;
+
+        /**
+         * Flag indicating that the selector included the file.
+         */
+        private boolean included;
+
+        /**
+         * Creates a new node.
+         *
+         * @param file file visited
+         * @param depth depth relative to the base folder
+         */
+        private Node(final FileObject file, final int depth) {
+            this.file = file;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Immutable {@link FileSelectInfo} passed to selectors.
+     */
+    private static final class SelectInfo implements FileSelectInfo {
+        /**
+         * Folder the walk started from.
+         */
+        private final FileObject baseFolder;
+
+        /**
+         * File being selected.
+         */
+        private final FileObject file;
+
+        /**
+         * Depth of the file relative to the base folder.
+         */
+        private final int depth;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param baseFolder folder the walk started from
+         * @param file file being selected
+         * @param depth depth of the file relative to the base folder
+         */
+        private SelectInfo(final FileObject baseFolder, final FileObject file, final int depth) {
+            this.baseFolder = baseFolder;
+            this.file = file;
+            this.depth = depth;
+        }
+
+        @Override
+        public FileObject getBaseFolder() {
+            return baseFolder;
+        }
+
+        @Override
+        public FileObject getFile() {
+            return file;
+        }
+
+        @Override
+        public int getDepth() {
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.joyent.manta.vfs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache keyed by Manta path whose entries expire after a fixed time
+ * to live. When the cache is full, the least recently used entry is evicted.
+ * A cache created with a TTL or maximum size of zero is disabled and never
+ * stores any values.
+ *
+ * <p>Values loaded concurrently with a modification are protected against
+ * with per-path versions: {@link #put(String, Object, long)} discards a value
+ * when its path was invalidated after the value started loading, while
+ * invalidations of other paths don't affect it. The invalidations of the
+ * most recent paths are remembered, up to the maximum size of the cache, and
+ * a value that started loading before the oldest remembered invalidation is
+ * discarded conservatively.</p>
+ *
+ * @param <V> type of cached value
+ * @since 1.0.2
+ */
+public class MantaPathCache<V> {
+    /**
+     * Initial capacity of the backing map.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the backing map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Time in nanoseconds that an entry is valid for.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Maximum number of entries held.
+     */
+    private final int maxSize;
+
+    /**
+     * Access ordered map of entries used to implement LRU eviction.
+     */
+    private final LinkedHashMap<String, CacheEntry<V>> entries;
+
+    /**
+     * Insertion ordered map of recently invalidated paths to the generation
+     * of their last invalidation.
+     */
+    private final LinkedHashMap<String, Long> invalidations;
+
+    /**
+     * Number of invalidations performed, used to detect values that were
+     * loaded concurrently with an invalidation.
+     */
+    private long generation = 0L;
+
+    /**
+     * Latest generation of any invalidation that is no longer remembered
+     * per path, either because it was evicted or because all values were
+     * invalidated.
+     */
+    private long forgottenGeneration = 0L;
+
+    /**
+     * Number of lookups that found a valid entry.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups that didn't find a valid entry.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param ttl time in milliseconds that entries are valid for (0 disables the cache)
+     * @param maxSize maximum number of entries to hold (0 disables the cache)
+     */
+    public MantaPathCache(final long ttl, final int maxSize) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("TTL must be zero or greater");
+        }
+
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Maximum size must be zero or greater");
+        }
+
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, CacheEntry<V>>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = -6393460498263485530L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry<V>> eldest) {
+                return size() > MantaPathCache.this.maxSize;
+            }
+        };
+        this.invalidations = new LinkedHashMap<String, Long>(INITIAL_CAPACITY, LOAD_FACTOR, false) {
+            private static final long serialVersionUID = 4816735412265391507L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+                if (size() <= MantaPathCache.this.maxSize) {
+                    return false;
+                }
+
+                forgottenGeneration = Math.max(forgottenGeneration, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Indicates if the cache stores values.
+     *
+     * @return true if the cache has a positive TTL and maximum size
+     */
+    public boolean isEnabled() {
+        return ttlNanos > 0 && maxSize > 0;
+    }
+
+    /**
+     * Gets the value associated with a path if it is present and hasn't expired.
+     *
+     * @param path path to look up
+     * @return cached value or null if not present
+     */
+    public V get(final String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        synchronized (entries) {
+            final CacheEntry<V> entry = entries.get(path);
+
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            if (System.nanoTime() - entry.created > ttlNanos) {
+                entries.remove(path);
+                misses.incrementAndGet();
+                return null;
+            }
+
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Associates a value with a path.
+     *
+     * @param path path to associate value with
+     * @param value value to cache
+     */
+    public void put(final String path, final V value) {
+        Objects.requireNonNull(value, "Value must be present");
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(path, new CacheEntry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Associates a value with a path unless the path has been invalidated
+     * since the specified generation. This prevents a value that was loaded
+     * before a concurrent modification from being cached after the
+     * modification invalidated the path.
+     *
+     * @param path path to associate value with
+     * @param value value to cache
+     * @param expectedGeneration generation returned by {@link #getGeneration()}
+     *                           before the value was loaded
+     */
+    public void put(final String path, final V value, final long expectedGeneration) {
+        Objects.requireNonNull(value, "Value must be present");
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (entries) {
+            final Long invalidated = invalidations.get(path);
+
+            if (expectedGeneration >= forgottenGeneration
+                    && (invalidated == null || invalidated <= expectedGeneration)) {
+                entries.put(path, new CacheEntry<>(value, System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Gets the current invalidation generation, which is passed to
+     * {@link #put(String, Object, long)} once a value has been loaded.
+     *
+     * @return number of invalidations performed
+     */
+    public long getGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Removes the value associated with a path.
+     *
+     * @param path path to remove
+     */
+    public void invalidate(final String path) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (entries) {
+            generation++;
+            entries.remove(path);
+            /* Removed first, so that the path moves to the end of the eviction order. */
+            invalidations.remove(path);
+            invalidations.put(path, generation);
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            forgottenGeneration = generation;
+            entries.clear();
+            invalidations.clear();
+        }
+    }
+
+    /**
+     * Gets the number of entries currently held (including expired entries
+     * that haven't been evicted yet).
+     *
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a valid entry.
+     *
+     * @return number of cache hits since creation
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that didn't find a valid entry.
+     *
+     * @return number of cache misses since creation
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Cached value along with the time it was added.
+     *
+     * @param <V> type of cached value
+     */
+    private static final class CacheEntry<V> {
+        /**
+         * Cached value.
+         */
+        private final V value;
+
+        /**
+         * Value of {@link System#nanoTime()} when the entry was created.
+         */
+        private final long created;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param value cached value
+         * @param created time the entry was created in nanoseconds
+         */
+        private CacheEntry(final V value, final long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped set of locks keyed by normalized Manta path. Operations that mutate
+ * the same path serialize on the same lock while operations on unrelated
+ * paths proceed in parallel. Because the {@link com.joyent.manta.client.MantaClient}
+ * is thread-safe, read-only operations do not need to acquire a lock at all.
+ *
+ * <pre>{@code
+ * final MantaPathLocks.Held lock = locks.lock(path);
+ *
+ * try {
+ *     // mutate path
+ * } finally {
+ *     lock.unlock();
+ * }
+ * }</pre>
+ *
+ * @since 1.0.2
+ */
+public class MantaPathLocks {
+    /**
+     * Default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Lock stripes.
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a new instance with the default number of stripes.
+     */
+    public MantaPathLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new instance with the specified number of stripes.
+     *
+     * @param stripeCount number of locks to stripe paths across
+     */
+    public MantaPathLocks(final int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be 1 or greater");
+        }
+
+        this.stripes = new ReentrantLock[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Acquires the locks for all of the specified paths. Locks are always
+     * acquired in stripe order, so callers locking multiple paths (e.g. the
+     * source and destination of a rename) can't deadlock each other.
+     *
+     * @param paths paths to lock
+     * @return handle used to release the locks
+     */
+    public Held lock(final String... paths) {
+        final int[] indexes = Arrays.stream(paths)
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        final ReentrantLock[] acquired = new ReentrantLock[indexes.length];
+
+        for (int i = 0; i < indexes.length; i++) {
+            acquired[i] = stripes[indexes[i]];
+            acquired[i].lock();
+        }
+
+        return new Held(acquired);
+    }
+
+    /**
+     * Finds the stripe that a given path maps to.
+     *
+     * @param path path to map
+     * @return index of the lock stripe
+     */
+    int stripeIndex(final String path) {
+        final String normalized = FilenameUtils.normalizeNoEndSeparator(path, true);
+        final String key = normalized == null ? path : normalized;
+
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    /**
+     * Handle to a set of acquired path locks.
+     */
+    public static final class Held {
+        /**
+         * Locks held in acquisition order.
+         */
+        private final ReentrantLock[] locks;
+
+        /**
+         * Creates a new handle for the specified locks.
+         *
+         * @param locks locks already acquired
+         */
+        private Held(final ReentrantLock[] locks) {
+            this.locks = locks;
+        }
+
+        /**
+         * Releases the locks in the reverse order they were acquired.
+         */
+        public void unlock() {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
@@ -9,12 +9,44 @@ import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Manta specific implementation of {@link org.apache.commons.vfs2.RandomAccessContent}.
  * This class provides an interface to allow for random file reads from a remote file
  * on Manta.
  *
+ * <p>Reads are served from an internal buffer that is filled a block at a
+ * time from the channel, so that reading primitives or small arrays doesn't
+ * make a call to the channel per byte. Reads at least as large as a block
+ * bypass the buffer.</p>
+ *
+ * <p>Seeks are lazy: they only move the file pointer, and the channel is
+ * brought to the new position when data is next read from it. Seeks within
+ * the buffered block are served from the buffer, short forward seeks skip
+ * ahead on the current connection, and any other seek opens a single new
+ * ranged request no matter how many seeks preceded the read.</p>
+ *
+ * <p>When read-ahead is enabled, reading from the channel at the position
+ * where the previous read ended is detected as a sequential scan and the
+ * following bytes are read in the background while the current ones are
+ * consumed. The read-ahead window doubles each time it is consumed, up to
+ * the configured maximum, and collapses to a single block as soon as a read
+ * isn't sequential. Bytes are read ahead on a thread pool shared with other
+ * readers, such as the filesystem's download pool, with at most one read
+ * ahead in progress per instance.</p>
+ *
+ * <p>When created with a {@link MantaBlockReader}, blocks are read through
+ * the filesystem's shared {@link MantaBlockCache} instead of a channel, so
+ * that blocks already read by any reader of the same version of the object
+ * aren't requested again.</p>
+ *
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  * @since 1.0.0
  */
@@ -25,39 +57,247 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
      */
     public static final int EOF = -1;
 
+    /**
+     * Mask used to convert a byte to an unsigned value.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Mask used to convert an int to an unsigned value.
+     */
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Number of consecutive sequential reads after which read-ahead starts.
+     */
+    private static final int SEQUENTIAL_READS = 2;
+
     /**
      * Backing instance of {@link java.nio.channels.SeekableByteChannel} that
      * is provided by the Manta SDK.
      */
     private MantaSeekableByteChannel channel;
 
+    /**
+     * Reader of cached blocks used instead of the channel or null when
+     * reading from the channel.
+     */
+    private final MantaBlockReader blockReader;
+
+    /**
+     * Block of data read from the channel.
+     */
+    private final byte[] buffer;
+
+    /**
+     * Position of the next byte to be read within the buffer.
+     */
+    private int bufferPosition = 0;
+
+    /**
+     * Number of valid bytes in the buffer.
+     */
+    private int bufferLimit = 0;
+
+    /**
+     * Position of the next byte to be read within the file.
+     */
+    private long filePointer;
+
+    /**
+     * Maximum number of bytes skipped on the current connection rather than
+     * opening a new ranged request when seeking forward.
+     */
+    private final long maxSkip;
+
+    /**
+     * Flag indicating that data has been read from the current channel, so
+     * that it has an open connection that can be skipped forward on.
+     */
+    private boolean channelConnected = false;
+
+    /**
+     * Maximum number of bytes read ahead of the consumer (0 disables read-ahead).
+     */
+    private final int maxReadAhead;
+
+    /**
+     * Number of bytes to read ahead next.
+     */
+    private int readAheadWindow;
+
+    /**
+     * Number of consecutive reads that started where the previous one ended.
+     */
+    private int sequentialReads = 0;
+
+    /**
+     * Position within the file just past the last read from the channel.
+     */
+    private long lastReadEnd = -1L;
+
+    /**
+     * Shared thread pool reading ahead or null when read-ahead is disabled.
+     */
+    private final ExecutorService readAheadExecutor;
+
+    /**
+     * Bytes being read ahead or null if nothing is being read ahead. The
+     * channel isn't used by this instance while this is present.
+     */
+    private Future<byte[]> pendingReadAhead;
+
+    /**
+     * Position within the file of the bytes being read ahead.
+     */
+    private long pendingReadAheadStart;
+
+    /**
+     * Bytes already read ahead or null if none are available.
+     */
+    private byte[] readAhead;
+
+    /**
+     * Position within the file of the first byte read ahead.
+     */
+    private long readAheadStart;
+
     /**
      * Create new instance backed by Java NIO random file access implementation.
      * @param channel Manta seekable byte channel as returned from Manta driver
      */
     public MantaRandomAccessContent(final MantaSeekableByteChannel channel) {
+        this(channel, MantaFileSystemConfigBuilder.DEFAULT_RANDOM_ACCESS_BLOCK_SIZE,
+                MantaFileSystemConfigBuilder.DEFAULT_RANDOM_ACCESS_MAX_SKIP);
+    }
+
+    /**
+     * Create new instance backed by Java NIO random file access implementation.
+     * @param channel Manta seekable byte channel as returned from Manta driver
+     * @param blockSize number of bytes read from the channel at a time
+     */
+    public MantaRandomAccessContent(final MantaSeekableByteChannel channel,
+                                    final int blockSize) {
+        this(channel, blockSize, MantaFileSystemConfigBuilder.DEFAULT_RANDOM_ACCESS_MAX_SKIP);
+    }
+
+    /**
+     * Create new instance backed by Java NIO random file access implementation.
+     * @param channel Manta seekable byte channel as returned from Manta driver
+     * @param blockSize number of bytes read from the channel at a time
+     * @param maxSkip maximum number of bytes skipped on the current connection
+     *                when seeking forward instead of opening a new request
+     */
+    public MantaRandomAccessContent(final MantaSeekableByteChannel channel,
+                                    final int blockSize,
+                                    final long maxSkip) {
+        this(channel, blockSize, maxSkip, 0, null);
+    }
+
+    /**
+     * Create new instance backed by Java NIO random file access implementation.
+     * @param channel Manta seekable byte channel as returned from Manta driver
+     * @param blockSize number of bytes read from the channel at a time
+     * @param maxSkip maximum number of bytes skipped on the current connection
+     *                when seeking forward instead of opening a new request
+     * @param maxReadAhead maximum number of bytes read in the background
+     *                     ahead of sequential reads (0 disables read-ahead)
+     * @param readAheadExecutor shared thread pool that reads ahead, which
+     *                          may be null when read-ahead is disabled
+     */
+    public MantaRandomAccessContent(final MantaSeekableByteChannel channel,
+                                    final int blockSize,
+                                    final long maxSkip,
+                                    final int maxReadAhead,
+                                    final ExecutorService readAheadExecutor) {
         super(RandomAccessMode.READ);
 
+        if (blockSize < Long.BYTES) {
+            throw new IllegalArgumentException("Block size must be 8 bytes or greater");
+        }
+
+        if (maxSkip < 0) {
+            throw new IllegalArgumentException("Maximum skip must be zero or greater");
+        }
+
+        if (maxReadAhead < 0) {
+            throw new IllegalArgumentException("Maximum read-ahead must be zero or greater");
+        }
+
+        if (maxReadAhead > 0 && readAheadExecutor == null) {
+            throw new IllegalArgumentException("Executor must be present when reading ahead");
+        }
+
         this.channel = channel;
+        this.blockReader = null;
+        this.buffer = new byte[blockSize];
+        this.maxSkip = maxSkip;
+        this.maxReadAhead = maxReadAhead;
+        this.readAheadExecutor = readAheadExecutor;
+        this.readAheadWindow = blockSize;
+
+        try {
+            this.filePointer = channel.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create new instance that reads blocks through a shared block cache.
+     * @param blockReader reader of a specific version of an object
+     */
+    public MantaRandomAccessContent(final MantaBlockReader blockReader) {
+        super(RandomAccessMode.READ);
+
+        if (blockReader.getBlockSize() < Long.BYTES) {
+            throw new IllegalArgumentException("Block size must be 8 bytes or greater");
+        }
+
+        this.channel = null;
+        this.blockReader = blockReader;
+        this.buffer = new byte[blockReader.getBlockSize()];
+        this.maxSkip = 0L;
+        this.maxReadAhead = 0;
+        this.readAheadExecutor = null;
+        this.filePointer = 0L;
     }
 
     @Override
     public void close() throws IOException {
+        if (this.blockReader != null) {
+            this.blockReader.close();
+            return;
+        }
+
+        /* The pool is shared, so only the read of this instance is stopped. */
+        if (this.pendingReadAhead != null) {
+            this.pendingReadAhead.cancel(true);
+        }
+
+        this.pendingReadAhead = null;
+        this.readAhead = null;
         this.channel.close();
     }
 
     @Override
     public long getFilePointer() throws IOException {
-        return this.channel.position();
+        return this.filePointer;
     }
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return this.channel;
+        return new BufferedContentInputStream();
     }
 
     @Override
     public long length() throws IOException {
+        if (this.blockReader != null) {
+            return this.blockReader.getSize();
+        }
+
+        discardReadAhead();
+        syncChannel();
         return this.channel.size();
     }
 
@@ -67,14 +307,19 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
             throw new IOException("Attempt to position before the start of the file");
         }
 
-        MantaSeekableByteChannel oldChannel = this.channel;
+        final long bufferStart = this.filePointer - this.bufferPosition;
 
-        @SuppressWarnings("unchecked")
-        final MantaSeekableByteChannel newChannel =
-                (MantaSeekableByteChannel)this.channel.position(pos);
-        this.channel = newChannel;
+        if (pos >= bufferStart && pos <= bufferStart + this.bufferLimit) {
+            this.bufferPosition = (int)(pos - bufferStart);
+            this.filePointer = pos;
+            return;
+        }
 
-        IOUtils.closeQuietly(oldChannel);
+        /* The channel is moved to the new position by syncChannel() when
+         * data is next read from it. */
+        this.bufferPosition = 0;
+        this.bufferLimit = 0;
+        this.filePointer = pos;
     }
 
     @Override
@@ -88,9 +333,7 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
             throw new NullPointerException("byte array value must not be null");
         }
 
-        if (this.channel.read(b) == EOF) {
-            throw new EOFException();
-        }
+        readFully(b, 0, b.length);
     }
 
     @Override
@@ -99,8 +342,20 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
             throw new NullPointerException("byte array value must not be null");
         }
 
-        if (this.channel.read(b, off, len) == EOF) {
-            throw new EOFException();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        int total = 0;
+
+        while (total < len) {
+            final int bytesRead = read(b, off + total, len - total);
+
+            if (bytesRead == EOF) {
+                throw new EOFException();
+            }
+
+            total += bytesRead;
         }
     }
 
@@ -111,17 +366,39 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
                     "The skip number can't be negative");
         }
 
-        return (int)this.channel.skip(n);
+        final int buffered = Math.min(n, this.bufferLimit - this.bufferPosition);
+        this.bufferPosition += buffered;
+        this.filePointer += buffered;
+
+        if (buffered == n) {
+            return n;
+        }
+
+        /* The buffer has been used up, so the rest is skipped on the channel,
+         * which is positioned at the end of the buffer. */
+        this.bufferPosition = 0;
+        this.bufferLimit = 0;
+
+        final long skipped;
+
+        if (this.blockReader != null) {
+            skipped = Math.max(0L, Math.min(n - buffered,
+                    this.blockReader.getSize() - this.filePointer));
+        } else {
+            discardReadAhead();
+            syncChannel();
+            this.channelConnected = true;
+            skipped = this.channel.skip(n - buffered);
+        }
+
+        this.filePointer += skipped;
+
+        return buffered + (int)skipped;
     }
 
     @Override
     public boolean readBoolean() throws IOException {
-        final int byteRead = this.channel.read();
-        if (byteRead == EOF) {
-            throw new EOFException();
-        }
-
-        return byteRead != 0;
+        return readUnsignedByte() != 0;
     }
 
     @Override
@@ -131,65 +408,51 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
 
     @Override
     public int readUnsignedByte() throws IOException {
-        final int byteRead = this.channel.read();
-        if (byteRead == EOF) {
-            throw new EOFException();
-        }
+        require(Byte.BYTES);
 
-        return byteRead;
+        this.filePointer++;
+        return this.buffer[this.bufferPosition++] & BYTE_MASK;
     }
 
     @Override
     public short readShort() throws IOException {
-        int ch1 = this.channel.read();
-        int ch2 = this.channel.read();
-        if ((ch1 | ch2) < 0) {
-            throw new EOFException();
-        }
-
-        return (short)((ch1 << 8) + (ch2 << 0));
+        return (short)readUnsignedShort();
     }
 
     @Override
     public int readUnsignedShort() throws IOException {
-        final int ch1 = this.channel.read();
-        final int ch2 = this.channel.read();
+        require(Short.BYTES);
+
+        final int ch1 = this.buffer[this.bufferPosition] & BYTE_MASK;
+        final int ch2 = this.buffer[this.bufferPosition + 1] & BYTE_MASK;
+        consume(Short.BYTES);
 
-        if ((ch1 | ch2) < 0) {
-            throw new EOFException();
-        }
         return (ch1 << 8) + (ch2 << 0);
     }
 
     @Override
     public char readChar() throws IOException {
-        int ch1 = this.channel.read();
-        int ch2 = this.channel.read();
-
-        if ((ch1 | ch2) < 0) {
-            throw new EOFException();
-        }
-
-        return (char)((ch1 << 8) + (ch2 << 0));
+        return (char)readUnsignedShort();
     }
 
     @Override
     public int readInt() throws IOException {
-        int ch1 = this.channel.read();
-        int ch2 = this.channel.read();
-        int ch3 = this.channel.read();
-        int ch4 = this.channel.read();
+        require(Integer.BYTES);
 
-        if ((ch1 | ch2 | ch3 | ch4) < 0) {
-            throw new EOFException();
-        }
+        final int ch1 = this.buffer[this.bufferPosition] & BYTE_MASK;
+        final int ch2 = this.buffer[this.bufferPosition + 1] & BYTE_MASK;
+        final int ch3 = this.buffer[this.bufferPosition + 2] & BYTE_MASK;
+        final int ch4 = this.buffer[this.bufferPosition + 3] & BYTE_MASK;
+        consume(Integer.BYTES);
 
         return ((ch1 << 24) + (ch2 << 16) + (ch3 << 8) + (ch4 << 0));
     }
 
     @Override
     public long readLong() throws IOException {
-        return ((long)(readInt()) << 32) + (readInt() & 0xFFFFFFFFL);
+        require(Long.BYTES);
+
+        return ((long)(readInt()) << 32) + (readInt() & INT_MASK);
     }
 
     @Override
@@ -208,10 +471,392 @@ public class MantaRandomAccessContent extends AbstractRandomAccessContent
     }
 
     /**
-     * Returns reference to backing NIO random file access object.
-     * @return Manta driver specific NIO random file access object
+     * Returns reference to backing NIO random file access object. The
+     * position of the channel is ahead of {@link #getFilePointer()} by the
+     * number of buffered bytes that haven't been read yet, and lags behind
+     * it after a seek until data is read again.
+     * @return Manta driver specific NIO random file access object or null
+     *         when reading through a block cache
      */
     public MantaSeekableByteChannel getChannel() {
         return channel;
     }
+
+    /**
+     * Gets the number of bytes read from the channel at a time.
+     * @return block size in bytes
+     */
+    public int getBlockSize() {
+        return buffer.length;
+    }
+
+    /**
+     * Gets the number of bytes that will be read ahead when the current
+     * sequential scan continues.
+     * @return read-ahead window in bytes (0 when read-ahead isn't active)
+     */
+    public int getReadAheadWindow() {
+        return this.sequentialReads >= SEQUENTIAL_READS ? this.readAheadWindow : 0;
+    }
+
+    /**
+     * Reads up to the specified number of bytes, serving them from the buffer
+     * when it isn't empty and reading directly from the channel when at least
+     * a block is requested.
+     *
+     * @param b array to read into
+     * @param off offset within the array
+     * @param len maximum number of bytes to read
+     * @return number of bytes read or {@link #EOF} at the end of the file
+     * @throws IOException thrown when the channel can't be read
+     */
+    private int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (this.bufferPosition == this.bufferLimit) {
+            if (len >= this.buffer.length) {
+                final int bytesRead = readSource(this.filePointer, b, off, len);
+
+                if (bytesRead > 0) {
+                    this.filePointer += bytesRead;
+                }
+
+                return bytesRead;
+            }
+
+            if (!fill(1)) {
+                return EOF;
+            }
+        }
+
+        final int count = Math.min(len, this.bufferLimit - this.bufferPosition);
+        System.arraycopy(this.buffer, this.bufferPosition, b, off, count);
+        consume(count);
+
+        return count;
+    }
+
+    /**
+     * Makes sure that at least the specified number of bytes are buffered.
+     *
+     * @param count number of bytes needed
+     * @throws EOFException thrown when the end of the file is reached first
+     * @throws IOException thrown when the channel can't be read
+     */
+    private void require(final int count) throws IOException {
+        if (this.bufferLimit - this.bufferPosition < count && !fill(count)) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Advances past bytes read from the buffer.
+     *
+     * @param count number of bytes read
+     */
+    private void consume(final int count) {
+        this.bufferPosition += count;
+        this.filePointer += count;
+    }
+
+    /**
+     * Moves unread bytes to the start of the buffer and reads from the channel
+     * until at least the specified number of bytes are buffered.
+     *
+     * @param count number of bytes needed
+     * @return false when the end of the file was reached before enough bytes were read
+     * @throws IOException thrown when the channel can't be read
+     */
+    private boolean fill(final int count) throws IOException {
+        final int remaining = this.bufferLimit - this.bufferPosition;
+
+        if (remaining > 0 && this.bufferPosition > 0) {
+            System.arraycopy(this.buffer, this.bufferPosition, this.buffer, 0, remaining);
+        }
+
+        this.bufferPosition = 0;
+        this.bufferLimit = remaining;
+
+        while (this.bufferLimit < count) {
+            final int bytesRead = readSource(this.filePointer + this.bufferLimit,
+                    this.buffer, this.bufferLimit, this.buffer.length - this.bufferLimit);
+
+            if (bytesRead == EOF) {
+                return false;
+            }
+
+            this.bufferLimit += bytesRead;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads bytes following the buffered bytes from the block reader or the
+     * channel.
+     *
+     * @param position offset within the file of the first byte to read, which
+     *                 is the offset just past the buffered bytes
+     * @param b array to read into
+     * @param off offset within the array
+     * @param len maximum number of bytes to read
+     * @return number of bytes read or {@link #EOF} at the end of the file
+     * @throws IOException thrown when the data can't be read
+     */
+    private int readSource(final long position, final byte[] b, final int off,
+                           final int len) throws IOException {
+        if (this.blockReader != null) {
+            return this.blockReader.read(position, b, off, len);
+        }
+
+        if (this.maxReadAhead > 0) {
+            final int bytesRead = readFromReadAhead(position, b, off, len);
+
+            if (bytesRead != 0) {
+                return bytesRead;
+            }
+
+            discardReadAhead();
+            this.sequentialReads = position == this.lastReadEnd ? this.sequentialReads + 1 : 0;
+
+            if (this.sequentialReads == 0) {
+                this.readAheadWindow = this.buffer.length;
+            }
+        }
+
+        syncChannel();
+        this.channelConnected = true;
+
+        final int bytesRead = this.channel.read(b, off, len);
+
+        if (this.maxReadAhead > 0 && bytesRead > 0) {
+            this.lastReadEnd = position + bytesRead;
+
+            if (this.sequentialReads >= SEQUENTIAL_READS) {
+                startReadAhead(this.lastReadEnd);
+            }
+        }
+
+        return bytesRead;
+    }
+
+    /**
+     * Serves a read from bytes that were read ahead, waiting for the bytes
+     * being read ahead when they start at the requested position. Taking
+     * bytes that are being read ahead grows the window and starts reading
+     * ahead of them.
+     *
+     * @param position offset within the file of the first byte to read
+     * @param b array to read into
+     * @param off offset within the array
+     * @param len maximum number of bytes to read
+     * @return number of bytes read, {@link #EOF} at the end of the file or 0
+     *         if the position wasn't read ahead
+     * @throws IOException thrown when reading ahead failed
+     */
+    private int readFromReadAhead(final long position, final byte[] b, final int off,
+                                  final int len) throws IOException {
+        if (this.readAhead != null && (position < this.readAheadStart
+                || position >= this.readAheadStart + this.readAhead.length)) {
+            this.readAhead = null;
+        }
+
+        if (this.readAhead == null) {
+            if (this.pendingReadAhead == null || position != this.pendingReadAheadStart) {
+                return 0;
+            }
+
+            final Future<byte[]> pending = this.pendingReadAhead;
+            this.pendingReadAhead = null;
+            this.readAhead = awaitReadAhead(pending);
+            this.readAheadStart = this.pendingReadAheadStart;
+
+            if (this.readAhead.length == 0) {
+                this.readAhead = null;
+                return EOF;
+            }
+
+            this.readAheadWindow = Math.min(this.maxReadAhead, this.readAheadWindow * 2);
+            startReadAhead(this.readAheadStart + this.readAhead.length);
+        }
+
+        final int offset = (int)(position - this.readAheadStart);
+        final int count = Math.min(len, this.readAhead.length - offset);
+        System.arraycopy(this.readAhead, offset, b, off, count);
+        this.lastReadEnd = position + count;
+
+        return count;
+    }
+
+    /**
+     * Starts reading the next window of bytes from the channel in the
+     * background. The channel must be positioned at the given offset.
+     *
+     * @param start offset within the file of the first byte to read ahead
+     */
+    private void startReadAhead(final long start) {
+        final MantaSeekableByteChannel source = this.channel;
+        final int window = Math.max(this.readAheadWindow, this.buffer.length);
+
+        this.pendingReadAheadStart = start;
+
+        try {
+            this.pendingReadAhead = this.readAheadExecutor.submit(() -> {
+                final byte[] bytes = new byte[window];
+                int total = 0;
+
+                while (total < window) {
+                    final int bytesRead = source.read(bytes, total, window - total);
+
+                    if (bytesRead == EOF) {
+                        break;
+                    }
+
+                    total += bytesRead;
+                }
+
+                return total == window ? bytes : Arrays.copyOf(bytes, total);
+            });
+        } catch (RejectedExecutionException e) {
+            /* The pool is shut down once the filesystem is closed, so the
+             * bytes are read on demand instead. */
+            this.pendingReadAhead = null;
+        }
+    }
+
+    /**
+     * Waits for bytes being read ahead.
+     *
+     * @param pending future of the bytes
+     * @return bytes read ahead
+     * @throws IOException thrown when the channel couldn't be read
+     */
+    private byte[] awaitReadAhead(final Future<byte[]> pending) throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for read-ahead");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+
+            throw new IOException("Unable to read ahead", e.getCause());
+        }
+    }
+
+    /**
+     * Drops bytes read ahead, waiting for any read in progress to finish so
+     * that the channel can be used again. The channel is left positioned past
+     * the dropped bytes, which {@link #syncChannel()} corrects.
+     */
+    private void discardReadAhead() {
+        this.readAhead = null;
+
+        if (this.pendingReadAhead == null) {
+            return;
+        }
+
+        final Future<byte[]> pending = this.pendingReadAhead;
+        this.pendingReadAhead = null;
+
+        try {
+            awaitReadAhead(pending);
+        } catch (IOException e) {
+            /* The failure is surfaced again if the bytes are read from the
+             * channel directly. */
+            this.channelConnected = false;
+        }
+    }
+
+    /**
+     * Brings the channel to the position just past the buffered bytes after
+     * a seek. Short forward moves skip ahead on the current connection when
+     * it has already been opened. Otherwise the channel is replaced with one
+     * positioned at the target, which opens a new ranged request on the next
+     * read.
+     *
+     * @throws IOException thrown when the channel can't be skipped or repositioned
+     */
+    private void syncChannel() throws IOException {
+        final long target = this.filePointer + (this.bufferLimit - this.bufferPosition);
+        long current = this.channel.position();
+
+        if (current == target) {
+            return;
+        }
+
+        if (this.channelConnected && target > current && target - current <= this.maxSkip) {
+            while (current < target) {
+                final long skipped = this.channel.skip(target - current);
+
+                if (skipped <= 0) {
+                    break;
+                }
+
+                current += skipped;
+            }
+
+            if (current == target) {
+                return;
+            }
+        }
+
+        MantaSeekableByteChannel oldChannel = this.channel;
+
+        @SuppressWarnings("unchecked")
+        final MantaSeekableByteChannel newChannel =
+                (MantaSeekableByteChannel)this.channel.position(target);
+        this.channel = newChannel;
+        this.channelConnected = false;
+
+        IOUtils.closeQuietly(oldChannel);
+    }
+
+    /**
+     * {@link InputStream} view of the content that reads through the buffer
+     * and shares the file pointer with the enclosing instance.
+     */
+    private class BufferedContentInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            if (bufferPosition == bufferLimit && !fill(1)) {
+                return EOF;
+            }
+
+            filePointer++;
+            return buffer[bufferPosition++] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            return MantaRandomAccessContent.this.read(b, off, len);
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0L;
+            }
+
+            return skipBytes((int)Math.min(n, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public int available() {
+            return bufferLimit - bufferPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            MantaRandomAccessContent.this.close();
+        }
+    }
 }
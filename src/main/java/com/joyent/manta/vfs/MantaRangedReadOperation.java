@@ -0,0 +1,215 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaObject;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.ClosedInputStream;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * {@link FileOperation} that opens an {@link InputStream} of part of a Manta
+ * object with a single ranged request. Unlike random access content, no
+ * seekable channel is created and no bytes outside of the range are
+ * transferred. Either an offset and length or a number of bytes at the end
+ * of the object (e.g. the tail of a log) can be requested.
+ *
+ * <p>A range that starts past the end of the object results in an empty
+ * stream, and a range that extends past the end is truncated to the end.
+ * The response must be a partial response covering the requested range,
+ * otherwise the operation fails rather than returning the whole object.
+ * When client-side encryption is enabled, the range is read through the
+ * object's random access content instead. The stream returned by
+ * {@link #getInputStream()} must be closed by the caller.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaRangedReadOperation implements FileOperation {
+    /**
+     * HTTP status returned when a range starts past the end of an object.
+     */
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * Object to read part of.
+     */
+    private final MantaFileObject file;
+
+    /**
+     * Offset within the object of the first byte to read or null when
+     * reading the end of the object.
+     */
+    private Long offset = 0L;
+
+    /**
+     * Number of bytes to read or null to read to the end of the object.
+     */
+    private Long length;
+
+    /**
+     * Stream opened by the last invocation of {@link #process()}.
+     */
+    private InputStream inputStream;
+
+    /**
+     * Creates a new instance that reads part of the specified file.
+     *
+     * @param file object to read part of
+     */
+    public MantaRangedReadOperation(final MantaFileObject file) {
+        this.file = Objects.requireNonNull(file, "File must be present");
+    }
+
+    /**
+     * Sets the range to read to a number of bytes starting at an offset.
+     *
+     * @param rangeOffset offset within the object of the first byte to read
+     * @param rangeLength number of bytes to read
+     * @return the current instance of {@link MantaRangedReadOperation}
+     */
+    public MantaRangedReadOperation setRange(final long rangeOffset, final long rangeLength) {
+        if (rangeOffset < 0) {
+            throw new IllegalArgumentException("Offset must be zero or greater");
+        }
+
+        if (rangeLength < 0) {
+            throw new IllegalArgumentException("Length must be zero or greater");
+        }
+
+        this.offset = rangeOffset;
+        this.length = rangeLength;
+        return this;
+    }
+
+    /**
+     * Sets the range to read to everything from an offset to the end of the object.
+     *
+     * @param rangeOffset offset within the object of the first byte to read
+     * @return the current instance of {@link MantaRangedReadOperation}
+     */
+    public MantaRangedReadOperation setOffset(final long rangeOffset) {
+        if (rangeOffset < 0) {
+            throw new IllegalArgumentException("Offset must be zero or greater");
+        }
+
+        this.offset = rangeOffset;
+        this.length = null;
+        return this;
+    }
+
+    /**
+     * Sets the range to read to the last bytes of the object. The whole
+     * object is read when it is smaller than the requested length.
+     *
+     * @param tailLength number of bytes at the end of the object to read
+     * @return the current instance of {@link MantaRangedReadOperation}
+     */
+    public MantaRangedReadOperation setTail(final long tailLength) {
+        if (tailLength < 0) {
+            throw new IllegalArgumentException("Length must be zero or greater");
+        }
+
+        this.offset = null;
+        this.length = tailLength;
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        final MantaObject metadata = file.cachedMetadata();
+
+        if (metadata != null && metadata.isDirectory()) {
+            throw new FileSystemException("vfs.provider/read-not-file.error", file);
+        }
+
+        if (length != null && length == 0L) {
+            this.inputStream = ClosedInputStream.CLOSED_INPUT_STREAM;
+            return;
+        }
+
+        final MantaFileSystem fs = (MantaFileSystem)file.getFileSystem();
+
+        if (fs.isClientEncryptionEnabled()) {
+            try {
+                this.inputStream = readThroughRandomAccess();
+            } catch (IOException e) {
+                throw new FileSystemException("vfs.provider/read.error", e, file);
+            }
+
+            return;
+        }
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+
+        if (offset == null) {
+            headers.setByteRange(null, length);
+        } else if (length == null) {
+            headers.setByteRange(offset, null);
+        } else {
+            headers.setByteRange(offset, offset + length - 1);
+        }
+
+        try {
+            final InputStream in = MantaFileSystem.checkRange(
+                    fs.getClient().getAsInputStream(file.path(), headers), file.path(), offset);
+            this.inputStream = length == null ? in : new BoundedInputStream(in, length);
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() != RANGE_NOT_SATISFIABLE) {
+                throw new FileSystemException("vfs.provider/read.error", e, file);
+            }
+
+            this.inputStream = ClosedInputStream.CLOSED_INPUT_STREAM;
+        } catch (IOException e) {
+            throw new FileSystemException("vfs.provider/read.error", e, file);
+        }
+    }
+
+    /**
+     * Opens the range through the object's random access content, which
+     * decrypts objects encrypted on the client. The content is closed
+     * along with the returned stream.
+     *
+     * @return stream of the requested range
+     * @throws IOException thrown when the object can't be read
+     */
+    private InputStream readThroughRandomAccess() throws IOException {
+        final RandomAccessContent content = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            final long size = content.length();
+            final long start = offset == null ? Math.max(0L, size - length) : Math.min(offset, size);
+            final long end = offset == null || length == null ? size : Math.min(size, offset + length);
+            content.seek(start);
+
+            return new BoundedInputStream(content.getInputStream(), end - start) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        content.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the stream opened by the last invocation of {@link #process()}.
+     *
+     * @return stream of the requested range or null if not processed yet
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+}
@@ -0,0 +1,34 @@
+package com.joyent.manta.vfs;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when the response to a GET request doesn't match what
+ * was requested: either the object no longer has the expected etag
+ * (HTTP 412) or the response isn't the requested range. Unlike a dropped
+ * connection, repeating the request won't succeed.
+ *
+ * @since 1.0.2
+ */
+public class MantaResponseMismatchException extends IOException {
+    private static final long serialVersionUID = -2370546236958375405L;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param message description of the mismatch
+     */
+    public MantaResponseMismatchException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param message description of the mismatch
+     * @param cause failed request
+     */
+    public MantaResponseMismatchException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
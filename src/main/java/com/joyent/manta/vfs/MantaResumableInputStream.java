@@ -0,0 +1,290 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaObjectInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ClosedInputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * {@link InputStream} that downloads an object from Manta with a single
+ * request and, when the connection fails part way through, continues from
+ * the last byte read with a ranged request instead of failing the reader.
+ *
+ * <p>Resumed requests carry an <code>If-Match</code> header containing the
+ * etag of the first response, so that the stream fails rather than joining
+ * two versions of an object that is replaced while it is being read, and a
+ * resumed response must be a partial response starting at the last byte
+ * read. Objects whose first response has no etag aren't resumed. A
+ * response that ends before its advertised content length is treated like
+ * a dropped connection. The number of resumes and the number of bytes that
+ * didn't have to be downloaded again are recorded by the stream and by its
+ * filesystem.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaResumableInputStream extends InputStream {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaResumableInputStream.class);
+
+    /**
+     * Constant indicated the end of a file has been reached.
+     */
+    private static final int EOF = -1;
+
+    /**
+     * Filesystem downloading the object.
+     */
+    private final MantaFileSystem fs;
+
+    /**
+     * Path of the object being downloaded.
+     */
+    private final String path;
+
+    /**
+     * Maximum number of times the download is resumed.
+     */
+    private final int maxResumes;
+
+    /**
+     * Etag of the version of the object being downloaded or null if unknown,
+     * in which case the download isn't resumed.
+     */
+    private final String etag;
+
+    /**
+     * Size of the object in bytes or null if unknown.
+     */
+    private final Long size;
+
+    /**
+     * MD5 recorded by Manta for the object or null if unknown.
+     */
+    private final byte[] md5;
+
+    /**
+     * Response currently being read.
+     */
+    private InputStream current;
+
+    /**
+     * Offset of the reader within the object.
+     */
+    private long offset = 0L;
+
+    /**
+     * Number of times the download was resumed.
+     */
+    private int resumeCount = 0;
+
+    /**
+     * Number of bytes that didn't have to be downloaded again when resuming.
+     */
+    private long resumedBytes = 0L;
+
+    /**
+     * Flag indicating the stream was closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance configured from the settings of a filesystem
+     * and requests the object.
+     *
+     * @param fs filesystem to download from
+     * @param path path of the object to download
+     * @throws IOException thrown when the object can't be requested
+     */
+    public MantaResumableInputStream(final MantaFileSystem fs, final String path) throws IOException {
+        this.fs = Objects.requireNonNull(fs, "Filesystem must be present");
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.maxResumes = fs.getDownloadMaxResumes();
+
+        final MantaObjectInputStream response = fs.getClient().getAsInputStream(path);
+        this.current = response;
+        this.etag = response.getEtag();
+        this.size = response.getContentLength();
+        this.md5 = response.getMd5Bytes();
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            ensureOpen();
+
+            try {
+                final int read = current.read();
+
+                if (read != EOF) {
+                    offset++;
+                    return read;
+                }
+
+                checkComplete();
+                return EOF;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        Objects.requireNonNull(b, "Byte array must be present");
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        while (true) {
+            ensureOpen();
+
+            try {
+                final int read = current.read(b, off, len);
+
+                if (read != EOF) {
+                    offset += read;
+                    return read;
+                }
+
+                checkComplete();
+                return EOF;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            return 0;
+        }
+
+        return current.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        current.close();
+    }
+
+    /**
+     * Throws an exception if the stream was closed.
+     *
+     * @throws IOException thrown when the stream was closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Throws an exception if the response ended before the whole object was
+     * read, so that the download is resumed.
+     *
+     * @throws EOFException thrown when the response was truncated
+     */
+    private void checkComplete() throws EOFException {
+        if (size != null && offset < size) {
+            throw new EOFException(String.format("Response for %s ended after %d of %d bytes",
+                    path, offset, size));
+        }
+    }
+
+    /**
+     * Replaces the failed response with a ranged request starting at the
+     * offset of the reader, retrying until the resume limit is reached.
+     *
+     * @param cause failure of the current response
+     * @throws IOException thrown when the download can't be resumed
+     */
+    private void resume(final IOException cause) throws IOException {
+        IOException failure = cause;
+
+        while (true) {
+            /* Timeouts are resumed, but not reads interrupted by the caller.
+             * Without an etag, a resumed request could join two versions of
+             * the object, so the failure is passed on instead. */
+            if (resumeCount >= maxResumes || etag == null || Thread.currentThread().isInterrupted()) {
+                throw failure;
+            }
+
+            IOUtils.closeQuietly(current);
+
+            /* A connection that fails after the last byte has nothing left to resume. */
+            if (size != null && offset >= size) {
+                current = ClosedInputStream.CLOSED_INPUT_STREAM;
+                return;
+            }
+
+            resumeCount++;
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Resuming download of %s at byte %d (attempt %d of %d)",
+                        path, offset, resumeCount, maxResumes), failure);
+            }
+
+            /* A changed object or a response that isn't the requested range
+             * fails the reader rather than being retried. */
+            try {
+                current = MantaFileSystem.getRange(fs.getClient(), path, offset, null, etag);
+            } catch (MantaResponseMismatchException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
+                continue;
+            }
+
+            resumedBytes += offset;
+            fs.recordDownloadResume(offset);
+            return;
+        }
+    }
+
+    /**
+     * Gets the MD5 Manta recorded for the version of the object being read.
+     *
+     * @return checksum or null if the response didn't include one
+     */
+    public byte[] getMd5Bytes() {
+        return md5 == null ? null : md5.clone();
+    }
+
+    /**
+     * Gets the number of times the download was resumed.
+     *
+     * @return number of resumes
+     */
+    public int getResumeCount() {
+        return resumeCount;
+    }
+
+    /**
+     * Gets the number of bytes that didn't have to be downloaded again
+     * because the download was resumed rather than restarted.
+     *
+     * @return number of bytes
+     */
+    public long getResumedBytes() {
+        return resumedBytes;
+    }
+}
@@ -0,0 +1,314 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaObject;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.operations.FileOperation;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link FileOperation} that reads many ranges of a single Manta object,
+ * such as the column chunks of a columnar file, without a seek and read
+ * round trip per range. Ranges separated by no more than a small gap are
+ * coalesced into a single ranged request, and the remaining requests are
+ * made concurrently on the filesystem's executor. {@link #process()} returns
+ * as soon as the requests are submitted and the content of each range is
+ * delivered through {@link MantaFileRange#getData()}.
+ *
+ * <p>All requests are made with an <code>If-Match</code> header containing
+ * the object's etag, so that every range is read from the same version of
+ * the object, and each response must be a partial response starting at the
+ * requested offset. A range that can't be read, for whatever reason, is
+ * completed exceptionally. When client-side encryption is enabled, ranges are read one
+ * at a time through the object's random access content instead.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaVectoredReadOperation implements FileOperation {
+    /**
+     * Object to read ranges of.
+     */
+    private final MantaFileObject file;
+
+    /**
+     * Ranges to read.
+     */
+    private final List<MantaFileRange> ranges = new ArrayList<>();
+
+    /**
+     * Maximum number of bytes between two ranges that are coalesced.
+     */
+    private long maxGap;
+
+    /**
+     * Maximum number of bytes requested by a single coalesced request.
+     */
+    private int maxMergedSize;
+
+    /**
+     * Number of requests made by the last invocation of {@link #process()}.
+     */
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    /**
+     * Creates a new instance that reads ranges of the specified file.
+     *
+     * @param file object to read ranges of
+     */
+    public MantaVectoredReadOperation(final MantaFileObject file) {
+        this.file = Objects.requireNonNull(file, "File must be present");
+
+        final MantaFileSystem fs = (MantaFileSystem)file.getFileSystem();
+        this.maxGap = fs.getRandomAccessMaxSkip();
+        this.maxMergedSize = fs.getDownloadChunkSize();
+    }
+
+    /**
+     * Adds a range to read.
+     *
+     * @param offset offset within the object of the first byte of the range
+     * @param length number of bytes in the range
+     * @return the added range, whose content is available once processed
+     */
+    public MantaFileRange addRange(final long offset, final int length) {
+        final MantaFileRange range = new MantaFileRange(offset, length);
+        ranges.add(range);
+        return range;
+    }
+
+    /**
+     * Adds ranges to read.
+     *
+     * @param fileRanges ranges to read
+     * @return the current instance of {@link MantaVectoredReadOperation}
+     */
+    public MantaVectoredReadOperation addRanges(final Collection<MantaFileRange> fileRanges) {
+        ranges.addAll(Objects.requireNonNull(fileRanges, "Ranges must be present"));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes between two ranges for them to be
+     * read by a single request. The bytes in the gap are downloaded and
+     * discarded. Defaults to the random access maximum skip.
+     *
+     * @param maxGap maximum gap in bytes
+     * @return the current instance of {@link MantaVectoredReadOperation}
+     */
+    public MantaVectoredReadOperation setMaxGap(final long maxGap) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("Maximum gap must be zero or greater");
+        }
+
+        this.maxGap = maxGap;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes requested by a single coalesced
+     * request. Ranges larger than this are still read by a single request.
+     * Defaults to the download chunk size.
+     *
+     * @param maxMergedSize maximum request size in bytes
+     * @return the current instance of {@link MantaVectoredReadOperation}
+     */
+    public MantaVectoredReadOperation setMaxMergedSize(final int maxMergedSize) {
+        if (maxMergedSize < 1) {
+            throw new IllegalArgumentException("Maximum merged size must be 1 or greater");
+        }
+
+        this.maxMergedSize = maxMergedSize;
+        return this;
+    }
+
+    @Override
+    public void process() throws FileSystemException {
+        final MantaObject metadata = file.readableMetadata();
+
+        if (metadata == null || metadata.isDirectory()) {
+            throw new FileSystemException("vfs.provider/read-not-file.error", file);
+        }
+
+        final List<MantaFileRange> pending = new ArrayList<>(ranges);
+        ranges.clear();
+        requestCount.set(0);
+
+        final MantaFileSystem fs = (MantaFileSystem)file.getFileSystem();
+        final long size = metadata.getContentLength() == null ? Long.MAX_VALUE : metadata.getContentLength();
+        final List<MantaFileRange> readable = new ArrayList<>(pending.size());
+
+        for (MantaFileRange range : pending) {
+            if (range.getEnd() > size) {
+                final String msg = String.format("Range %s is past the end of %s (%d bytes)",
+                        range, file.path(), size);
+                range.getData().completeExceptionally(new EOFException(msg));
+            } else if (range.getLength() == 0) {
+                range.getData().complete(ByteBuffer.allocate(0));
+            } else {
+                readable.add(range);
+            }
+        }
+
+        readable.sort(Comparator.comparingLong(MantaFileRange::getOffset));
+
+        if (fs.isClientEncryptionEnabled()) {
+            readSequentially(readable);
+            return;
+        }
+
+        for (List<MantaFileRange> group : coalesce(readable)) {
+            try {
+                fs.getExecutor().execute(() -> read(fs, metadata.getEtag(), group));
+                requestCount.incrementAndGet();
+            } catch (RejectedExecutionException e) {
+                /* The executor is shut down once the filesystem is closed. */
+                fail(group, e);
+            }
+        }
+    }
+
+    /**
+     * Groups ranges sorted by offset so that each group can be read by a
+     * single request.
+     *
+     * @param sorted ranges sorted by offset
+     * @return groups of ranges in offset order
+     */
+    private List<List<MantaFileRange>> coalesce(final List<MantaFileRange> sorted) {
+        final List<List<MantaFileRange>> groups = new ArrayList<>();
+        List<MantaFileRange> group = null;
+        long groupStart = 0L;
+        long groupEnd = 0L;
+
+        for (MantaFileRange range : sorted) {
+            final long end = Math.max(groupEnd, range.getEnd());
+
+            if (group != null && range.getOffset() - groupEnd <= maxGap
+                    && end - groupStart <= maxMergedSize) {
+                group.add(range);
+                groupEnd = end;
+                continue;
+            }
+
+            group = new ArrayList<>();
+            group.add(range);
+            groups.add(group);
+            groupStart = range.getOffset();
+            groupEnd = range.getEnd();
+        }
+
+        return groups;
+    }
+
+    /**
+     * Reads a group of ranges with a single ranged request and completes
+     * each of them. This runs on the filesystem's executor.
+     *
+     * @param fs filesystem to read from
+     * @param etag etag of the version of the object to read or null if unknown
+     * @param group ranges sorted by offset
+     */
+    private void read(final MantaFileSystem fs, final String etag, final List<MantaFileRange> group) {
+        final long start = group.get(0).getOffset();
+        long end = start;
+
+        for (MantaFileRange range : group) {
+            end = Math.max(end, range.getEnd());
+        }
+
+        final byte[] bytes;
+
+        try (InputStream in = MantaFileSystem.getRange(fs.getClient(), file.path(), start, end - 1, etag)) {
+            bytes = new byte[(int)(end - start)];
+            IOUtils.readFully(in, bytes);
+        } catch (Throwable e) {
+            /* Errors are passed on too, so that no caller waits forever on a range. */
+            fail(group, e);
+            return;
+        }
+
+        for (MantaFileRange range : group) {
+            final int offset = (int)(range.getOffset() - start);
+            range.getData().complete(ByteBuffer.wrap(bytes, offset, range.getLength()).slice());
+        }
+    }
+
+    /**
+     * Reads ranges one at a time through the object's random access content.
+     *
+     * @param sorted ranges sorted by offset
+     */
+    private void readSequentially(final List<MantaFileRange> sorted) {
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        RandomAccessContent content = null;
+
+        try {
+            content = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+            for (MantaFileRange range : sorted) {
+                final byte[] bytes = new byte[range.getLength()];
+                content.seek(range.getOffset());
+                content.readFully(bytes);
+                requestCount.incrementAndGet();
+                range.getData().complete(ByteBuffer.wrap(bytes));
+            }
+        } catch (Throwable e) {
+            fail(sorted, e);
+        } finally {
+            if (content != null) {
+                try {
+                    content.close();
+                } catch (IOException e) {
+                    fail(sorted, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes every range that isn't complete yet exceptionally.
+     *
+     * @param group ranges that failed
+     * @param cause reason for the failure
+     */
+    private static void fail(final Collection<MantaFileRange> group, final Throwable cause) {
+        for (MantaFileRange range : group) {
+            range.getData().completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Gets the number of requests made by the last invocation of {@link #process()}.
+     *
+     * @return number of requests
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the ranges added since the last invocation of {@link #process()}.
+     *
+     * @return unmodifiable list of ranges
+     */
+    public List<MantaFileRange> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+}
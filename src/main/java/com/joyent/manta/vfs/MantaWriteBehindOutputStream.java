@@ -0,0 +1,199 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaMetadata;
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link OutputStream} that spools an object locally and uploads it in the
+ * background once the stream is closed, so that writers never wait on
+ * Manta. Data is kept in memory up to the configured threshold and spilled
+ * to a temporary file beyond it. On close, the spooled object is handed to
+ * the filesystem's {@link MantaWriteBehindUploader}; close only blocks while
+ * the maximum number of uploads are already in flight.
+ *
+ * <p>The object doesn't exist in Manta until its upload has finished and
+ * upload failures are not reported by {@link #close()}. The outcome is
+ * available from {@link #getUpload()}, from
+ * {@link MantaFileSystem#getPendingUpload(String)} and from listeners
+ * registered with the uploader. The upload itself uses a multipart upload
+ * when that is enabled and the object is large enough.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaWriteBehindOutputStream extends OutputStream {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaWriteBehindOutputStream.class);
+
+    /**
+     * Filesystem to upload to.
+     */
+    private final MantaFileSystem fs;
+
+    /**
+     * Path of the object being written.
+     */
+    private final String path;
+
+    /**
+     * Local copy of everything written.
+     */
+    private final DeferredFileOutputStream spool;
+
+    /**
+     * Background upload started when the stream was closed.
+     */
+    private CompletableFuture<Void> upload;
+
+    /**
+     * Flag indicating the stream was closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance configured from the settings of a filesystem.
+     *
+     * @param fs filesystem to upload to
+     * @param path path of the object to write
+     */
+    public MantaWriteBehindOutputStream(final MantaFileSystem fs, final String path) {
+        this.fs = Objects.requireNonNull(fs, "Filesystem must be present");
+        this.path = Objects.requireNonNull(path, "Path must be present");
+        this.spool = new DeferredFileOutputStream(fs.getWriteBehindMemoryThreshold(),
+                "manta-vfs-", ".spool", null);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        spool.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        spool.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        spool.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            spool.close();
+            upload = fs.getWriteBehindUploader().submit(path, this::upload);
+        } catch (IOException | RuntimeException e) {
+            deleteSpool();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the background upload started when the stream was closed.
+     *
+     * @return future completed when the upload has finished or null if the
+     *         stream hasn't been closed
+     */
+    public CompletableFuture<Void> getUpload() {
+        return upload;
+    }
+
+    /**
+     * Indicates if the data written so far has spilled to a temporary file.
+     *
+     * @return true if the spool is on disk
+     */
+    public boolean isSpooledToDisk() {
+        return !spool.isInMemory();
+    }
+
+    /**
+     * Throws an exception if the stream was closed.
+     *
+     * @throws IOException thrown when the stream was closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    /**
+     * Uploads the spooled object. This runs on an upload thread.
+     *
+     * @throws IOException thrown when the upload fails
+     */
+    private void upload() throws IOException {
+        try {
+            if (fs.isMultipartUploadEnabled()) {
+                try (OutputStream out = new MantaMultipartOutputStream(fs, path)) {
+                    spool.writeTo(out);
+                }
+            } else {
+                try (InputStream in = openSpool()) {
+                    fs.getClient().put(path, in, spool.getByteCount(),
+                            new MantaHttpHeaders(), new MantaMetadata());
+                }
+            }
+        } finally {
+            /* Discarded before the upload completes, so that anyone waiting
+             * for it sees the new version. */
+            fs.invalidateCachedMetadata(path);
+            deleteSpool();
+        }
+    }
+
+    /**
+     * Opens the spooled object for reading.
+     *
+     * @return stream of the spooled object
+     * @throws IOException thrown when the spool file can't be opened
+     */
+    private InputStream openSpool() throws IOException {
+        if (spool.isInMemory()) {
+            return new ByteArrayInputStream(spool.getData());
+        }
+
+        return Files.newInputStream(spool.getFile().toPath());
+    }
+
+    /**
+     * Deletes the spool file if the data spilled to disk.
+     */
+    private void deleteSpool() {
+        final File file = spool.getFile();
+
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOG.warn(String.format("Unable to delete spool file %s", file), e);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the uploads of write-behind output streams in the background, so that
+ * closing a stream doesn't wait for Manta. At most the configured number of
+ * uploads are in flight at a time and {@link #submit(String, Upload)} blocks
+ * while that many are running, bounding the local data waiting to be sent.
+ * Uploads of the same path are run in the order they were submitted, so the
+ * last stream closed always wins.
+ *
+ * <p>Completion of each upload is reported through the future returned when
+ * it is submitted, through {@link #getPendingUpload(String)} and to every
+ * registered {@link Listener}. Failures are also kept until they are reported
+ * by {@link #awaitUploads()}.</p>
+ *
+ * @since 1.0.2
+ */
+public class MantaWriteBehindUploader {
+    /**
+     * Log instance.
+     */
+    private static final Log LOG = LogFactory.getLog(MantaWriteBehindUploader.class);
+
+    /**
+     * Counter used to name upload threads.
+     */
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Receives the outcome of each background upload.
+     */
+    public interface Listener {
+        /**
+         * Called on the upload thread once an upload has finished and its
+         * future has been completed.
+         *
+         * @param path path of the uploaded object
+         * @param failure reason the upload failed or null if it succeeded
+         */
+        void uploadComplete(String path, Throwable failure);
+    }
+
+    /**
+     * Background upload of a single object.
+     */
+    public interface Upload {
+        /**
+         * Uploads the object.
+         *
+         * @throws IOException thrown when the upload fails
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * Maximum number of uploads in flight.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Permits for uploads in flight.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Latest upload of each path that hasn't finished yet.
+     */
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Failures not yet reported by {@link #awaitUploads()}.
+     */
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Listeners notified when an upload finishes.
+     */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Threads running uploads, created on first use.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxInFlight maximum number of uploads in flight
+     */
+    public MantaWriteBehindUploader(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Uploads in flight must be 1 or greater");
+        }
+
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Registers a listener notified when each upload finishes.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(final Listener listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener must be present"));
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Runs an upload in the background once any earlier upload of the same
+     * path has finished, blocking while the maximum number of uploads are
+     * in flight.
+     *
+     * @param path path of the object being uploaded
+     * @param upload upload to run
+     * @return future completed when the upload has finished
+     * @throws InterruptedIOException thrown when interrupted while waiting
+     */
+    public CompletableFuture<Void> submit(final String path, final Upload upload)
+            throws InterruptedIOException {
+        Objects.requireNonNull(path, "Path must be present");
+        Objects.requireNonNull(upload, "Upload must be present");
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to upload " + path);
+        }
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            /* Every upload holds a permit and there are as many threads as
+             * permits, so an earlier upload of the path is always running
+             * when a later one waits for it. */
+            final CompletableFuture<Void> previous = pending.put(path, future);
+            executor().execute(() -> run(path, upload, previous, future));
+        } catch (RuntimeException e) {
+            pending.remove(path, future);
+            inFlight.release();
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs an upload on an upload thread and reports its outcome.
+     *
+     * @param path path of the object being uploaded
+     * @param upload upload to run
+     * @param previous earlier upload of the same path or null
+     * @param future future to complete
+     */
+    private void run(final String path, final Upload upload,
+                     final CompletableFuture<Void> previous,
+                     final CompletableFuture<Void> future) {
+        Throwable failure = null;
+
+        try {
+            if (previous != null) {
+                previous.handle((result, e) -> null).join();
+            }
+
+            upload.run();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            failures.add(e);
+            LOG.warn(String.format("Background upload of %s failed", path), e);
+        }
+
+        try {
+            if (failure == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        } finally {
+            /* The permit is released once the upload is complete, so that a
+             * stream blocked on close only proceeds after that, but before
+             * listeners run, which may need locks held by that stream's caller. */
+            pending.remove(path, future);
+            inFlight.release();
+        }
+
+        for (Listener listener : listeners) {
+            try {
+                listener.uploadComplete(path, failure);
+            } catch (RuntimeException e) {
+                LOG.warn(String.format("Upload listener failed for %s", path), e);
+            }
+        }
+    }
+
+    /**
+     * Gets the latest unfinished upload of a path.
+     *
+     * @param path path of the object
+     * @return future of the upload or a completed future if none is pending
+     */
+    public CompletableFuture<Void> getPendingUpload(final String path) {
+        final CompletableFuture<Void> future = pending.get(path);
+        return future == null ? CompletableFuture.completedFuture(null) : future;
+    }
+
+    /**
+     * Gets the number of uploads that haven't finished yet.
+     *
+     * @return number of pending uploads
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Waits for every pending upload to finish and reports the failures of
+     * all uploads that have failed since the last invocation.
+     *
+     * @throws IOException thrown when an upload failed, with any further
+     *                     failures added as suppressed exceptions
+     */
+    public void awaitUploads() throws IOException {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(pending.values());
+
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for uploads");
+            } catch (ExecutionException e) {
+                /* Reported from the failures queue below. */
+                LOG.trace("Upload failed", e.getCause());
+            }
+        }
+
+        IOException first = null;
+        Throwable failure;
+
+        while ((failure = failures.poll()) != null) {
+            if (first == null) {
+                first = failure instanceof IOException
+                        ? (IOException)failure : new IOException(failure);
+            } else {
+                first.addSuppressed(failure);
+            }
+        }
+
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    /**
+     * Waits for pending uploads to finish and stops the upload threads.
+     * Failures are logged as they occur rather than thrown.
+     */
+    public void close() {
+        try {
+            awaitUploads();
+        } catch (IOException e) {
+            LOG.warn("Background uploads failed before the filesystem was closed", e);
+        }
+
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the threads running uploads, creating them on first use.
+     *
+     * @return upload executor
+     */
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+                final Thread thread = new Thread(runnable,
+                        String.format("manta-vfs-write-behind-%d", THREAD_COUNT.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+}
@@ -0,0 +1,178 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaBlockCache} and of random access reads through it run
+ * against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaBlockCacheTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/blocks.bin";
+    private static final int BLOCK_SIZE = 1024;
+    private static final long CACHE_SIZE = BLOCK_SIZE * 64L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setRandomAccessBlockSize(opts, BLOCK_SIZE);
+        builder.setBlockCacheSize(opts, CACHE_SIZE);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.content = StubMantaClient.randomContent(BLOCK_SIZE * 10 + 17);
+
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void evictsLeastRecentlyUsedBlocksOverBudget() {
+        final MantaBlockCache cache = new MantaBlockCache(30L, 10);
+        final byte[] block = new byte[10];
+
+        cache.put("/a", "1", 0L, block, 10);
+        cache.put("/a", "1", 1L, block, 10);
+        cache.put("/a", "1", 2L, block, 10);
+        assertNotNull(cache.get("/a", "1", 0L));
+        cache.put("/a", "1", 3L, block, 10);
+
+        assertEquals(cache.size(), 3);
+        assertEquals(cache.getByteSize(), 30L);
+        assertNotNull(cache.get("/a", "1", 0L));
+        assertNull(cache.get("/a", "1", 1L));
+    }
+
+    public void countsHitsMissesAndBytesSaved() {
+        final MantaBlockCache cache = new MantaBlockCache(100L, 10);
+        cache.put("/a", "1", 0L, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 4);
+
+        final ByteBuffer block = cache.get("/a", "1", 0L);
+        assertNull(cache.get("/a", "1", 1L));
+
+        assertEquals(block.remaining(), 4);
+        assertEquals(block.get(3), 4);
+        assertTrue(block.isReadOnly());
+        assertEquals(cache.getHitCount(), 1L);
+        assertEquals(cache.getMissCount(), 1L);
+        assertEquals(cache.getHitRate(), 0.5);
+        assertEquals(cache.getBytesSaved(), 4L);
+    }
+
+    public void differentEtagIsNotServed() {
+        final MantaBlockCache cache = new MantaBlockCache(100L, 10);
+        cache.put("/a", "1", 0L, new byte[10], 10);
+
+        assertNull(cache.get("/a", "2", 0L));
+    }
+
+    public void zeroSizeDisablesCache() {
+        final MantaBlockCache cache = new MantaBlockCache(0L, 10);
+        cache.put("/a", "1", 0L, new byte[10], 10);
+
+        assertFalse(cache.isEnabled());
+        assertEquals(cache.size(), 0);
+    }
+
+    public void secondReaderIsServedFromCache() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        assertEquals(readAll(file), content);
+        final int requests = stub.callCount("getAsInputStream");
+        assertEquals(readAll(file), content);
+
+        assertEquals(stub.callCount("getAsInputStream"), requests);
+        assertEquals(stub.callCount("getSeekableByteChannel"), 0);
+        assertEquals(mantaFs.getBlockCache().getBytesSaved(), content.length);
+    }
+
+    public void sequentialMissesShareOneRequest() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        assertEquals(readAll(file), content);
+        assertEquals(stub.callCount("getAsInputStream"), 1);
+    }
+
+    public void randomReadsMatchContent() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        final Random random = new Random(1);
+        final RandomAccessContent rac = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            assertEquals(rac.length(), content.length);
+
+            for (int i = 0; i < 200; i++) {
+                final int pos = random.nextInt(content.length - 100);
+                final byte[] read = new byte[random.nextInt(100) + 1];
+                rac.seek(pos);
+                rac.readFully(read);
+                assertEquals(read, Arrays.copyOfRange(content, pos, pos + read.length));
+            }
+        } finally {
+            rac.close();
+        }
+    }
+
+    public void overwrittenObjectIsReadFresh() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        assertEquals(readAll(file), content);
+
+        final byte[] replacement = StubMantaClient.randomContent(BLOCK_SIZE * 3);
+        stub.putObject(PATH, replacement);
+        file.refresh();
+
+        assertEquals(readAll(file), replacement);
+    }
+
+    @Test(expectedExceptions = IOException.class,
+          expectedExceptionsMessageRegExp = ".*changed while it was being read")
+    public void objectReplacedDuringReadFails() throws Exception {
+        final MantaBlockReader reader = new MantaBlockReader(stub, PATH, content.length,
+                stub.head(PATH).getEtag(), mantaFs.getBlockCache(), 0L);
+
+        try (MantaRandomAccessContent rac = new MantaRandomAccessContent(reader)) {
+            rac.readByte();
+            stub.putObject(PATH, content.clone());
+            rac.seek(BLOCK_SIZE * 5L);
+            rac.readByte();
+        }
+    }
+
+    private static byte[] readAll(final FileObject file) throws Exception {
+        final RandomAccessContent rac = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            final byte[] read = new byte[(int)rac.length()];
+            rac.readFully(read);
+            return read;
+        } finally {
+            rac.close();
+        }
+    }
+}
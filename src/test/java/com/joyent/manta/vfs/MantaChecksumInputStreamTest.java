@@ -0,0 +1,194 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of streaming checksum verification of downloads and multipart
+ * uploads run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaChecksumInputStreamTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int CHUNK_SIZE = 1000;
+    private static final byte[] WRONG_MD5 = DigestUtils.md5("something else");
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setVerifyDownloads(opts, true);
+        builder.setDownloadParallelism(opts, 4);
+        builder.setDownloadChunkSize(opts, CHUNK_SIZE);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(DIR);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void matchingDownloadsAreRead() throws Exception {
+        final byte[] small = StubMantaClient.randomContent(CHUNK_SIZE / 2);
+        final byte[] large = StubMantaClient.randomContent(CHUNK_SIZE * 5);
+        stub.putObject(DIR + "/small", small);
+        stub.putObject(DIR + "/large", large);
+
+        assertEquals(readFully(DIR + "/small"), small);
+        assertEquals(readFully(DIR + "/large"), large);
+    }
+
+    @Test(expectedExceptions = MantaChecksumFailedException.class,
+          expectedExceptionsMessageRegExp = ".*doesn't match the server's.*")
+    public void corruptedDownloadFails() throws Exception {
+        stub.putObject(DIR + "/corrupt", StubMantaClient.randomContent(CHUNK_SIZE / 2));
+        stub.setChecksumOverride(DIR + "/corrupt", WRONG_MD5);
+
+        readFully(DIR + "/corrupt");
+    }
+
+    @Test(expectedExceptions = MantaChecksumFailedException.class)
+    public void corruptedParallelDownloadFails() throws Exception {
+        stub.putObject(DIR + "/corrupt-large", StubMantaClient.randomContent(CHUNK_SIZE * 5));
+        stub.setChecksumOverride(DIR + "/corrupt-large", WRONG_MD5);
+
+        readFully(DIR + "/corrupt-large");
+    }
+
+    public void partialReadIsNotVerified() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(100);
+
+        try (MantaChecksumInputStream in = new MantaChecksumInputStream(
+                new ByteArrayInputStream(content), DIR + "/partial", WRONG_MD5)) {
+            assertEquals(in.read(new byte[10]), 10);
+            assertFalse(in.isVerified());
+        }
+    }
+
+    public void skippedBytesAreDigested() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 3);
+
+        try (MantaChecksumInputStream in = new MantaChecksumInputStream(
+                new ByteArrayInputStream(content), DIR + "/skip", DigestUtils.md5(content))) {
+            assertEquals(in.read(), content[0] & 0xFF);
+            assertEquals(in.skip(CHUNK_SIZE * 2), CHUNK_SIZE * 2);
+            assertEquals(IOUtils.toByteArray(in),
+                    Arrays.copyOfRange(content, CHUNK_SIZE * 2 + 1, content.length));
+            assertTrue(in.isVerified());
+        }
+    }
+
+    public void corruptedDownloadToFileLeavesNothing() throws Exception {
+        final Path localDir = Files.createTempDirectory("manta-vfs-verify");
+
+        try {
+            stub.putObject(DIR + "/to-disk", StubMantaClient.randomContent(CHUNK_SIZE * 5));
+            stub.setChecksumOverride(DIR + "/to-disk", WRONG_MD5);
+            final FileObject file = mantaFs.resolveFile(DIR + "/to-disk");
+            final MantaDownloadOperation operation = (MantaDownloadOperation)file.getFileOperations()
+                    .getOperation(MantaDownloadOperation.class);
+
+            try {
+                operation.setDestination(localDir.resolve("to-disk")).process();
+                fail("Download with a mismatched checksum should have failed");
+            } catch (FileSystemException e) {
+                assertTrue(e.getCause() instanceof MantaChecksumFailedException);
+            }
+
+            assertEquals(localDir.toFile().list().length, 0);
+        } finally {
+            FileUtils.deleteDirectory(localDir.toFile());
+        }
+    }
+
+    public void multipartUploadIsVerified() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 5);
+        final MantaMultipartOutputStream out = new MantaMultipartOutputStream(mantaFs,
+                DIR + "/uploaded", 0L, CHUNK_SIZE, 2, true);
+        stub.setChecksumOverride(DIR + "/uploaded", WRONG_MD5);
+        out.write(content);
+
+        try {
+            out.close();
+            fail("Upload with a mismatched checksum should have failed");
+        } catch (MantaChecksumFailedException e) {
+            assertTrue(out.isMultipart());
+        }
+
+        final OutputStream verified = new MantaMultipartOutputStream(mantaFs,
+                DIR + "/verified", 0L, CHUNK_SIZE, 2, true);
+        verified.write(content);
+        verified.close();
+        assertEquals(stub.getObject(DIR + "/verified"), content);
+    }
+
+    public void localFileUploadIsVerified() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setVerifyUploads(opts, true);
+        builder.setMultipartThreshold(opts, (long)CHUNK_SIZE);
+        builder.setMultipartPartSize(opts, CHUNK_SIZE);
+
+        final MantaFileSystem uploadFs = StubMantaClient.newFileSystem(opts);
+        final StubMantaClient uploadStub = StubMantaClient.of(uploadFs);
+        final Path local = Files.createTempFile("manta-vfs-verify", ".bin");
+
+        try {
+            Files.write(local, StubMantaClient.randomContent(CHUNK_SIZE * 5));
+            uploadStub.putDirectory(DIR);
+            uploadStub.setChecksumOverride(DIR + "/uploaded", WRONG_MD5);
+
+            final MantaLocalFileUpload upload = new MantaLocalFileUpload(uploadFs, DIR + "/uploaded",
+                    local.toFile());
+
+            try {
+                upload.upload();
+                fail("Upload with a mismatched checksum should have failed");
+            } catch (MantaChecksumFailedException e) {
+                assertEquals(upload.getPartCount(), 5);
+            }
+
+            new MantaLocalFileUpload(uploadFs, DIR + "/verified", local.toFile()).upload();
+            assertEquals(uploadStub.getObject(DIR + "/verified"), Files.readAllBytes(local));
+        } finally {
+            uploadFs.close();
+            Files.delete(local);
+        }
+    }
+
+    private byte[] readFully(final String path) throws IOException {
+        final FileObject file = mantaFs.resolveFile(path);
+
+        try (InputStream in = file.getContent().getInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
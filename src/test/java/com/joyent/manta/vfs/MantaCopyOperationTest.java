@@ -0,0 +1,123 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileDepthSelector;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.Selectors;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaCopyOperation} run against a {@link StubMantaClient}
+ * with simulated network latency.
+ */
+@Test
+public class MantaCopyOperationTest {
+    private static final String TREE = StubMantaClient.HOME_DIR + "/stor/tree";
+    private static final String COPY = StubMantaClient.HOME_DIR + "/stor/copy";
+    private static final int DIRECTORIES = 16;
+    private static final int SUBDIRECTORIES = 2;
+    private static final int FILES = 3;
+    private static final int FILE_COUNT = DIRECTORIES * SUBDIRECTORIES * FILES;
+    private static final int DIRECTORY_COUNT = DIRECTORIES * (1 + SUBDIRECTORIES);
+    private static final long LATENCY_MILLIS = 20L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setParallelism(opts, 8);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(TREE);
+
+        for (int d = 0; d < DIRECTORIES; d++) {
+            final String dir = String.format("%s/d-%02d", TREE, d);
+            stub.putDirectory(dir);
+
+            for (int s = 0; s < SUBDIRECTORIES; s++) {
+                final String subdir = String.format("%s/s-%d", dir, s);
+                stub.putDirectory(subdir);
+
+                for (int f = 0; f < FILES; f++) {
+                    stub.putObject(String.format("%s/f-%d", subdir, f), new byte[f]);
+                }
+            }
+        }
+
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void copyFromLinksEveryFileConcurrently() throws Exception {
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        folder(COPY).copyFrom(folder(TREE), Selectors.SELECT_ALL);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(stub.callCount("putSnapLink"), FILE_COUNT);
+        assertEquals(stub.callCount("putDirectory"), DIRECTORY_COUNT + 1);
+        assertSame(stub.getObject(COPY + "/d-07/s-1/f-2"), stub.getObject(TREE + "/d-07/s-1/f-2"));
+        assertTrue(elapsedMillis < (FILE_COUNT + DIRECTORY_COUNT) * LATENCY_MILLIS / 2,
+                String.format("Copy took %dms", elapsedMillis));
+    }
+
+    public void unselectedParentDirectoriesAreCreated() throws Exception {
+        final MantaCopyOperation operation = new MantaCopyOperation(folder(COPY))
+                .setSource(folder(TREE))
+                .setSelector(Selectors.SELECT_FILES);
+        operation.process();
+
+        assertEquals(operation.getLinkedFileCount(), FILE_COUNT);
+        assertEquals(operation.getCreatedDirectoryCount(), DIRECTORY_COUNT);
+        assertTrue(operation.getFailures().isEmpty());
+        assertTrue(stub.isDirectory(COPY + "/d-15/s-0"));
+    }
+
+    public void folderInPlaceOfSourceFileIsReplaced() throws Exception {
+        final String conflict = COPY + "/d-03/s-1/f-0";
+        stub.putDirectory(COPY);
+        stub.putDirectory(COPY + "/d-03");
+        stub.putDirectory(COPY + "/d-03/s-1");
+        stub.putDirectory(conflict);
+        stub.putObject(conflict + "/nested", new byte[1]);
+
+        folder(COPY).copyFrom(folder(TREE), Selectors.SELECT_ALL);
+
+        assertFalse(stub.isDirectory(conflict));
+        assertNull(stub.getObject(conflict + "/nested"));
+        assertSame(stub.getObject(conflict), stub.getObject(TREE + "/d-03/s-1/f-0"));
+    }
+
+    public void emptySelectionCreatesNothing() throws Exception {
+        final MantaCopyOperation operation = new MantaCopyOperation(folder(COPY))
+                .setSource(folder(TREE))
+                .setSelector(new FileDepthSelector(DIRECTORIES, DIRECTORIES));
+        operation.process();
+
+        assertEquals(stub.callCount("putDirectory"), 0);
+        assertFalse(stub.isDirectory(COPY));
+    }
+
+    private MantaFileObject folder(final String path) {
+        return new MantaFileObject(new MantaFileName(path, FileType.FOLDER), mantaFs);
+    }
+}
@@ -0,0 +1,118 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaDeleteOperation} run against a {@link StubMantaClient}
+ * with simulated network latency.
+ */
+@Test
+public class MantaDeleteOperationTest {
+    private static final String TREE = StubMantaClient.HOME_DIR + "/stor/tree";
+    private static final int DIRECTORIES = 16;
+    private static final int SUBDIRECTORIES = 2;
+    private static final int FILES = 3;
+    private static final int TOTAL = 1 + DIRECTORIES * (1 + SUBDIRECTORIES * (1 + FILES));
+    private static final long LATENCY_MILLIS = 20L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setParallelism(opts, 8);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(TREE);
+
+        for (int d = 0; d < DIRECTORIES; d++) {
+            final String dir = String.format("%s/d-%02d", TREE, d);
+            stub.putDirectory(dir);
+
+            for (int s = 0; s < SUBDIRECTORIES; s++) {
+                final String subdir = String.format("%s/s-%d", dir, s);
+                stub.putDirectory(subdir);
+
+                for (int f = 0; f < FILES; f++) {
+                    stub.putObject(String.format("%s/f-%d", subdir, f), new byte[f]);
+                }
+            }
+        }
+
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void deleteAllRemovesTreeConcurrently() throws Exception {
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        final int deleted = tree().deleteAll();
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(deleted, TOTAL);
+        assertEquals(stub.callCount("delete"), TOTAL);
+        assertFalse(stub.isDirectory(TREE));
+        assertTrue(elapsedMillis < TOTAL * LATENCY_MILLIS / 2,
+                String.format("Delete took %dms", elapsedMillis));
+    }
+
+    public void nonEmptyDirectoriesAreSkipped() throws Exception {
+        final String kept = TREE + "/d-03/s-1/f-2";
+        final FileSelector allButOne = new FileSelector() {
+            @Override
+            public boolean includeFile(final FileSelectInfo fileInfo) {
+                return !fileInfo.getFile().getName().getPath().equals(kept);
+            }
+
+            @Override
+            public boolean traverseDescendents(final FileSelectInfo fileInfo) {
+                return true;
+            }
+        };
+
+        final MantaDeleteOperation operation = new MantaDeleteOperation(tree()).setSelector(allButOne);
+        operation.process();
+
+        assertEquals(operation.getSelectedCount(), TOTAL - 1);
+        assertEquals(operation.getSkippedCount(), 3L);
+        assertEquals(operation.getDeletedCount(), TOTAL - 4L);
+        assertTrue(operation.getFailures().isEmpty());
+        assertNotNull(stub.getObject(kept));
+        assertTrue(stub.isDirectory(TREE + "/d-03/s-1"));
+        assertFalse(stub.isDirectory(TREE + "/d-03/s-0"));
+    }
+
+    public void deleteOfSingleFileUsesSelf() throws Exception {
+        final MantaFileObject file = new MantaFileObject(
+                new MantaFileName(TREE + "/d-00/s-0/f-0", FileType.FILE), mantaFs);
+
+        assertTrue(file.delete());
+        assertEquals(stub.callCount("delete"), 1);
+        assertEquals(stub.callCount("listObjects"), 0);
+    }
+
+    private MantaFileObject tree() {
+        return new MantaFileObject(new MantaFileName(TREE, FileType.FOLDER), mantaFs);
+    }
+}
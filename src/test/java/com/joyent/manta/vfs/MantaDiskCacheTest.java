@@ -0,0 +1,227 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaDiskCache} and of reads served from it run against a
+ * {@link StubMantaClient}.
+ */
+@Test
+public class MantaDiskCacheTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/reference.bin";
+
+    private Path directory;
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.directory = Files.createTempDirectory("manta-vfs-disk-cache");
+
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setDiskCacheDirectory(opts, directory.toString());
+        builder.setDiskCacheSize(opts, 1024L * 1024L);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < 1000; i++) {
+                out.writeInt(i);
+            }
+            out.writeLong(Long.MAX_VALUE);
+            out.writeUTF("reference");
+        }
+
+        this.content = bytes.toByteArray();
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        mantaFs.close();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    public void evictsLeastRecentlyUsedFilesOverBudget() throws Exception {
+        final MantaDiskCache cache = new MantaDiskCache(directory.resolve("lru"), 30L);
+
+        cache.put("/a", "1", new ByteArrayInputStream(new byte[10]), 10L);
+        cache.put("/b", "1", new ByteArrayInputStream(new byte[10]), 10L);
+        cache.put("/c", "1", new ByteArrayInputStream(new byte[10]), 10L);
+        assertNotNull(cache.get("/a", "1"));
+        cache.put("/d", "1", new ByteArrayInputStream(new byte[10]), 10L);
+
+        assertEquals(cache.size(), 3);
+        assertEquals(cache.getByteSize(), 30L);
+        assertNotNull(cache.get("/a", "1"));
+        assertNull(cache.get("/b", "1"));
+
+        try (Stream<Path> files = Files.list(directory.resolve("lru"))) {
+            assertEquals(files.count(), 3L);
+        }
+    }
+
+    public void differentEtagIsNotServed() throws Exception {
+        final MantaDiskCache cache = new MantaDiskCache(directory.resolve("etag"), 100L);
+        cache.put("/a", "1", new ByteArrayInputStream(new byte[10]), 10L);
+
+        assertNull(cache.get("/a", "2"));
+        assertEquals(cache.getMissCount(), 1L);
+    }
+
+    public void objectLargerThanCacheIsNotStored() throws Exception {
+        final MantaDiskCache cache = new MantaDiskCache(directory.resolve("large"), 5L);
+
+        assertNull(cache.put("/a", "1", new ByteArrayInputStream(new byte[10]), 10L));
+        assertEquals(cache.size(), 0);
+    }
+
+    public void cachedFilesSurviveNewInstance() throws Exception {
+        final Path dir = directory.resolve("persist");
+        new MantaDiskCache(dir, 100L).put("/a", "1", new ByteArrayInputStream(new byte[10]), 10L);
+        Files.write(dir.resolve("incomplete.tmp"), new byte[5]);
+        Files.setLastModifiedTime(dir.resolve("incomplete.tmp"),
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+
+        final MantaDiskCache reopened = new MantaDiskCache(dir, 100L);
+
+        assertNotNull(reopened.get("/a", "1"));
+        assertEquals(reopened.getByteSize(), 10L);
+        assertFalse(Files.exists(dir.resolve("incomplete.tmp")));
+    }
+
+    public void recentIncompleteDownloadIsKept() throws Exception {
+        final Path dir = directory.resolve("in-progress");
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("downloading.tmp"), new byte[5]);
+
+        assertEquals(new MantaDiskCache(dir, 100L).size(), 0);
+        assertTrue(Files.exists(dir.resolve("downloading.tmp")), "Download of another process was deleted");
+    }
+
+    public void filesystemsShareCacheOfDirectory() throws Exception {
+        final Path dir = directory.resolve("shared");
+        final MantaDiskCache cache = MantaDiskCache.forDirectory(dir, 100L);
+
+        assertSame(MantaDiskCache.forDirectory(dir.resolve("..").resolve("shared"), 100L), cache);
+
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setDiskCacheDirectory(opts, dir.toString());
+        final MantaFileSystem first = StubMantaClient.newFileSystem(opts);
+        final MantaFileSystem second = StubMantaClient.newFileSystem(opts);
+
+        try {
+            assertSame(first.getDiskCache(), cache);
+            assertSame(second.getDiskCache(), cache);
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    public void secondInputStreamIsServedFromDisk() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        assertEquals(readStream(file), content);
+        assertEquals(readStream(file), content);
+
+        assertEquals(stub.callCount("getAsInputStream"), 1);
+        assertEquals(mantaFs.getDiskCache().getHitCount(), 1L);
+    }
+
+    public void randomAccessIsMappedFromDisk() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        readStream(file);
+
+        final RandomAccessContent rac = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            assertEquals(rac.length(), content.length);
+
+            rac.seek(Integer.BYTES * 500L);
+            assertEquals(rac.readInt(), 500);
+            rac.seek(Integer.BYTES * 1000L);
+            assertEquals(rac.readLong(), Long.MAX_VALUE);
+            assertEquals(rac.readUTF(), "reference");
+            assertEquals(rac.getFilePointer(), content.length);
+        } finally {
+            rac.close();
+        }
+
+        assertEquals(stub.callCount("getSeekableByteChannel"), 0);
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void mappedReadPastEndThrowsEof() throws Exception {
+        final Path local = directory.resolve("local.bin");
+        Files.write(local, new byte[3]);
+
+        try (MantaMappedRandomAccessContent rac = new MantaMappedRandomAccessContent(local)) {
+            rac.readInt();
+        }
+    }
+
+    public void uncachedRandomAccessDoesNotDownloadWholeObject() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        final RandomAccessContent rac = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            assertEquals(rac.readInt(), 0);
+        } finally {
+            rac.close();
+        }
+
+        assertEquals(stub.callCount("getSeekableByteChannel"), 1);
+        assertEquals(mantaFs.getDiskCache().size(), 0);
+    }
+
+    public void overwrittenObjectIsReadFresh() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        assertEquals(readStream(file), content);
+
+        final byte[] replacement = Arrays.copyOf(content, 100);
+        stub.putObject(PATH, replacement);
+        file.refresh();
+
+        assertEquals(readStream(file), replacement);
+        assertEquals(mantaFs.getDiskCache().size(), 2);
+    }
+
+    private static byte[] readStream(final FileObject file) throws Exception {
+        try (InputStream in = file.getContent().getInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link MantaDownloadOperation} run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaDownloadOperationTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PARALLELISM = 4;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private Path localDir;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setDownloadParallelism(opts, PARALLELISM);
+        builder.setDownloadChunkSize(opts, CHUNK_SIZE);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.localDir = Files.createTempDirectory("manta-vfs-download");
+
+        stub.putDirectory(DIR);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        mantaFs.close();
+        FileUtils.deleteDirectory(localDir.toFile());
+    }
+
+    public void smallObjectIsDownloadedWithSingleRequest() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE);
+        stub.putObject(DIR + "/small", content);
+        final Path destination = localDir.resolve("small");
+
+        final MantaDownloadOperation operation = operation(DIR + "/small").setDestination(destination);
+        operation.process();
+
+        assertEquals(Files.readAllBytes(destination), content);
+        assertEquals(operation.getRequestCount(), 1);
+        assertEquals(stub.callCount("getAsInputStream.range"), 0);
+    }
+
+    public void largeObjectIsDownloadedInRanges() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 10 + 1);
+        stub.putObject(DIR + "/large", content);
+        final Path destination = localDir.resolve("large");
+        Files.write(destination, new byte[] {1, 2, 3});
+
+        final MantaDownloadOperation operation = operation(DIR + "/large").setDestination(destination);
+        operation.process();
+
+        assertEquals(Files.readAllBytes(destination), content);
+        assertEquals(operation.getRequestCount(), 11);
+        assertEquals(stub.callCount("getAsInputStream.range"), 11);
+    }
+
+    public void localFileObjectIsRefreshed() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 2);
+        stub.putObject(DIR + "/local", content);
+        final FileObject localFile = mantaFs.getFileSystemManager()
+                .resolveFile(localDir.resolve("local").toUri().toString());
+        assertFalse(localFile.exists());
+
+        operation(DIR + "/local").setDestination(localFile).process();
+
+        assertTrue(localFile.exists());
+        assertEquals(localFile.getContent().getSize(), content.length);
+    }
+
+    public void replacedObjectFailsWithoutLeavingFile() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 5);
+        stub.putObject(DIR + "/replaced", content);
+        final MantaDownloadOperation operation = operation(DIR + "/replaced");
+        final FileObject file = mantaFs.resolveFile(DIR + "/replaced");
+        assertEquals(file.getContent().getSize(), content.length);
+
+        stub.putObject(DIR + "/replaced", content.clone());
+
+        try {
+            operation.setDestination(localDir.resolve("replaced")).process();
+            fail("Download of a replaced object should have failed");
+        } catch (FileSystemException e) {
+            assertTrue(e.getCause().getMessage().endsWith("changed while it was being read"));
+        }
+
+        try (Stream<Path> files = Files.list(localDir)) {
+            assertEquals(files.count(), 0L);
+        }
+    }
+
+    public void ignoredRangeFailsWithoutLeavingFile() throws Exception {
+        stub.putObject(DIR + "/ignored", StubMantaClient.randomContent(CHUNK_SIZE * 5));
+        stub.setIgnoreRanges(true);
+
+        try {
+            operation(DIR + "/ignored").setDestination(localDir.resolve("ignored")).process();
+            fail("Download should have failed when ranges were ignored");
+        } catch (FileSystemException e) {
+            assertTrue(e.getCause().getMessage().startsWith("Requested"), e.getCause().getMessage());
+        }
+
+        try (Stream<Path> files = Files.list(localDir)) {
+            assertEquals(files.count(), 0L);
+        }
+    }
+
+    public void newFileGetsDefaultPermissions() throws Exception {
+        if (!isPosix()) {
+            throw new SkipException("Filesystem doesn't support POSIX permissions");
+        }
+
+        stub.putObject(DIR + "/new", StubMantaClient.randomContent(CHUNK_SIZE * 2));
+        final Path destination = localDir.resolve("new");
+        final Path reference = Files.createFile(localDir.resolve("reference"));
+
+        operation(DIR + "/new").setDestination(destination).process();
+
+        assertEquals(Files.getPosixFilePermissions(destination), Files.getPosixFilePermissions(reference));
+    }
+
+    public void replacedFileKeepsPermissions() throws Exception {
+        if (!isPosix()) {
+            throw new SkipException("Filesystem doesn't support POSIX permissions");
+        }
+
+        stub.putObject(DIR + "/kept", StubMantaClient.randomContent(CHUNK_SIZE * 2));
+        final Path destination = Files.createFile(localDir.resolve("kept"));
+        final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(destination, permissions);
+
+        operation(DIR + "/kept").setDestination(destination).process();
+
+        assertEquals(Files.getPosixFilePermissions(destination), permissions);
+    }
+
+    private boolean isPosix() throws Exception {
+        return Files.getFileStore(localDir).supportsFileAttributeView(PosixFileAttributeView.class);
+    }
+
+    private MantaDownloadOperation operation(final String path) throws Exception {
+        final FileObject file = mantaFs.resolveFile(path);
+        assertTrue(file.getFileOperations().hasOperation(MantaDownloadOperation.class));
+        return (MantaDownloadOperation)file.getFileOperations().getOperation(MantaDownloadOperation.class);
+    }
+}
@@ -0,0 +1,273 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Multi-threaded tests of {@link MantaFileObject} run against a {@link StubMantaClient}
+ * with simulated network latency, so that the effect of the locking model on
+ * throughput can be measured without a running Manta instance.
+ */
+@Test
+public class MantaFileObjectConcurrencyTest {
+    private static final Log LOG = LogFactory.getLog(MantaFileObjectConcurrencyTest.class);
+
+    private static final int OBJECT_COUNT = 256;
+    private static final int THREADS = 16;
+    private static final long LATENCY_MILLIS = 10L;
+    private static final int DIRECTORY_COUNT = 64;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeClass
+    public void setup() {
+        this.mantaFs = StubMantaClient.newFileSystem();
+        this.stub = StubMantaClient.of(mantaFs);
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            stub.putObject(objectPath(i), new byte[] { (byte)i });
+        }
+    }
+
+    @AfterClass
+    public void afterClass() {
+        mantaFs.close();
+    }
+
+    public void attachOnUnrelatedPathsRunsInParallel() throws Exception {
+        final long serialNanos = timeAttach(1);
+        final long parallelNanos = timeAttach(THREADS);
+
+        final double serialRate = OBJECT_COUNT / (serialNanos / 1e9);
+        final double parallelRate = OBJECT_COUNT / (parallelNanos / 1e9);
+
+        LOG.info(String.format("HEAD throughput with %dms latency: 1 thread %.1f ops/s, "
+                        + "%d threads %.1f ops/s (%.1fx)", LATENCY_MILLIS, serialRate,
+                THREADS, parallelRate, parallelRate / serialRate));
+
+        assertTrue(parallelRate > serialRate * 4,
+                String.format("Expected attaching on %d threads to scale - serial: %.1f ops/s, "
+                        + "parallel: %.1f ops/s", THREADS, serialRate, parallelRate));
+    }
+
+    public void listingOnUnrelatedPathsRunsInParallel() throws Exception {
+        for (int i = 0; i < DIRECTORY_COUNT; i++) {
+            stub.putDirectory(directoryPath(i));
+            stub.putObject(directoryPath(i) + "/child", new byte[] {(byte)i});
+        }
+
+        assertScales("Listing", threads -> timeTasks(threads, i -> {
+            final MantaFileObject dir = new MantaFileObject(
+                    new MantaFileName("manta", directoryPath(i), FileType.FOLDER), mantaFs);
+            return () -> assertEquals(dir.getChildren().length, 1);
+        }));
+    }
+
+    public void createAndDeleteOnUnrelatedPathsRunInParallel() throws Exception {
+        final AtomicInteger run = new AtomicInteger();
+
+        assertScales("Create and delete", threads -> {
+            final int current = run.incrementAndGet();
+
+            return timeTasks(threads, i -> {
+                final String path = String.format("%s/stor/created-%d-%d", StubMantaClient.HOME_DIR, current, i);
+                final MantaFileObject dir = new MantaFileObject(
+                        new MantaFileName("manta", path, FileType.FOLDER), mantaFs);
+                return () -> {
+                    dir.createFolder();
+                    assertTrue(stub.isDirectory(path));
+                    assertTrue(dir.delete());
+                    assertFalse(stub.isDirectory(path));
+                };
+            });
+        });
+    }
+
+    public void samePathMutationsAreSerialized() throws Exception {
+        final MantaPathLocks locks = mantaFs.getPathLocks();
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger maxInside = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < THREADS * 4; i++) {
+                futures.add(executor.submit(() -> {
+                    final MantaPathLocks.Held lock = locks.lock("/stub/stor/same");
+
+                    try {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        Thread.sleep(1L);
+                        inside.decrementAndGet();
+                    } finally {
+                        lock.unlock();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(maxInside.get(), 1, "More than one thread held the same path lock");
+    }
+
+    public void lockingPathsInOppositeOrderDoesNotDeadlock() throws Exception {
+        final MantaPathLocks locks = new MantaPathLocks(2);
+        final String first = "/stub/stor/a";
+        final String second = "/stub/stor/b";
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final Callable<Void> forward = () -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    final MantaPathLocks.Held lock = locks.lock(first, second);
+
+                    try {
+                        Thread.yield();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return null;
+            };
+            final Callable<Void> backward = () -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    final MantaPathLocks.Held lock = locks.lock(second, first);
+
+                    try {
+                        Thread.yield();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return null;
+            };
+
+            final Future<Void> f1 = executor.submit(forward);
+            final Future<Void> f2 = executor.submit(backward);
+            start.countDown();
+
+            f1.get(30, TimeUnit.SECONDS);
+            f2.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void equivalentPathsShareAStripe() {
+        final MantaPathLocks locks = mantaFs.getPathLocks();
+        assertEquals(locks.stripeIndex("/stub//stor/dir/"), locks.stripeIndex("/stub/stor/dir"),
+                "Non-normalized path didn't map to the same stripe");
+    }
+
+    private void assertScales(final String operation, final Timer timer) throws Exception {
+        final long serialNanos = timer.time(1);
+        final long parallelNanos = timer.time(THREADS);
+
+        assertTrue(parallelNanos * 4 < serialNanos,
+                String.format("Expected %s on %d threads to scale - serial: %dms, parallel: %dms",
+                        operation, THREADS, TimeUnit.NANOSECONDS.toMillis(serialNanos),
+                        TimeUnit.NANOSECONDS.toMillis(parallelNanos)));
+    }
+
+    private long timeTasks(final int threads, final IntFunction<Task> taskFactory) throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>(DIRECTORY_COUNT);
+
+        for (int i = 0; i < DIRECTORY_COUNT; i++) {
+            final Task task = taskFactory.apply(i);
+            tasks.add(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final long start = System.nanoTime();
+
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Timer {
+        long time(int threads) throws Exception;
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static String directoryPath(final int i) {
+        return String.format("%s/stor/dir-%d", StubMantaClient.HOME_DIR, i);
+    }
+
+    private long timeAttach(final int threads) throws Exception {
+        final List<MantaFileObject> fileObjects = new ArrayList<>(OBJECT_COUNT);
+
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            fileObjects.add(new MantaFileObject(
+                    new MantaFileName("manta", objectPath(i), FileType.FILE), mantaFs));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Callable<FileType>> tasks = new ArrayList<>(OBJECT_COUNT);
+
+            for (MantaFileObject object : fileObjects) {
+                tasks.add(object::getType);
+            }
+
+            final long start = System.nanoTime();
+
+            for (Future<FileType> future : executor.invokeAll(tasks)) {
+                assertEquals(future.get(), FileType.FILE);
+            }
+
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String objectPath(final int i) {
+        return String.format("%s/stor/object-%d", StubMantaClient.HOME_DIR, i);
+    }
+}
@@ -0,0 +1,147 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+/**
+ * Tests of directory listings run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaFileObjectListingTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int FILE_COUNT = 100;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.mantaFs = StubMantaClient.newFileSystem();
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(DIR);
+        stub.putDirectory(DIR + "/subdir");
+
+        for (int i = 0; i < FILE_COUNT; i++) {
+            stub.putObject(String.format("%s/file-%03d", DIR, i), new byte[i]);
+        }
+
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void streamChildrenYieldsEveryEntry() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        final List<FileObject> children;
+        try (Stream<FileObject> stream = dir.streamChildren()) {
+            children = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(children.size(), FILE_COUNT + 1);
+        assertEquals(children.stream().filter(c -> isFolder(c)).count(), 1L);
+        assertEquals(children.get(1).getContent().getSize(), 1L);
+        assertEquals(stub.callCount("head"), 1, "Children were HEADed individually");
+    }
+
+    public void streamChildrenBypassesFilesCache() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        final FileObject first;
+        try (Stream<FileObject> stream = dir.streamChildren()) {
+            first = stream.findFirst().orElseThrow(IllegalStateException::new);
+        }
+
+        assertNotSame(mantaFs.resolveFile(first.getName()), first);
+        assertEquals(first.getType(), FileType.FILE);
+        assertEquals(stub.callCount("head"), 1, "Streamed child was HEADed");
+    }
+
+    public void streamChildrenClosesListing() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        try (Stream<FileObject> stream = dir.streamChildren()) {
+            stream.findFirst();
+        }
+
+        assertEquals(stub.callCount("listObjects.close"), 1);
+    }
+
+    public void arrayListingClosesListing() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        assertEquals(dir.getChildren().length, FILE_COUNT + 1);
+        assertEquals(stub.callCount("listObjects.close"), stub.callCount("listObjects"));
+    }
+
+    public void listedChildrenDoNotRequireHeads() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        for (FileObject child : dir.getChildren()) {
+            child.getType();
+            child.getContent().getLastModifiedTime();
+
+            if (child.isFile()) {
+                child.getContent().getSize();
+            }
+        }
+
+        assertEquals(stub.callCount("listObjects"), 1);
+        assertEquals(stub.callCount("head"), 1, "Listed children were HEADed individually");
+    }
+
+    public void namedListingPopulatesCachedChildren() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+
+        assertEquals(dir.doListChildren().length, FILE_COUNT + 1);
+
+        final FileObject resolved = mantaFs.resolveFile(
+                new MantaFileName(DIR + "/file-007", FileType.FILE));
+
+        assertEquals(resolved.getContent().getSize(), 7L);
+        assertEquals(stub.callCount("head"), 0, "Listed child was HEADed");
+    }
+
+    public void attributesOfListedChildAreLoadedWithHead() throws Exception {
+        final MantaFileObject dir = fileObject(DIR);
+        final FileObject child = dir.getChildren()[1];
+        stub.resetCallCounts();
+
+        child.getContent().getAttributes();
+        child.getContent().getAttributes();
+
+        assertEquals(stub.callCount("head"), 1);
+    }
+
+    @Test(expectedExceptions = FileSystemException.class)
+    public void streamChildrenOfFileFails() throws Exception {
+        fileObject(DIR + "/file-000").streamChildren();
+    }
+
+    private MantaFileObject fileObject(final String path) {
+        return new MantaFileObject(new MantaFileName("manta", path, FileType.FOLDER), mantaFs);
+    }
+
+    private static boolean isFolder(final FileObject object) {
+        try {
+            return object.isFolder();
+        } catch (FileSystemException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of the filesystem-level metadata caches used by {@link MantaFileObject}
+ * run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaFileObjectMetadataCacheTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/cached.txt";
+    private static final String MISSING = StubMantaClient.HOME_DIR + "/stor/missing";
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder()
+                .setMetadataCacheTtl(opts, 60_000L)
+                .setMetadataCacheSize(opts, 100)
+                .setNegativeCacheTtl(opts, 60_000L)
+                .setNegativeCacheSize(opts, 100);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        stub.putObject(PATH, new byte[] { 1, 2, 3 });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        mantaFs.close();
+    }
+
+    public void headResponseIsSharedBetweenObjects() throws Exception {
+        assertEquals(testObject(PATH).getContent().getSize(), 3L);
+        assertEquals(testObject(PATH).getContent().getSize(), 3L);
+
+        assertEquals(stub.callCount("head"), 1, "Second object didn't use cached metadata");
+    }
+
+    public void deleteInvalidatesCachedMetadata() throws Exception {
+        final MantaFileObject object = testObject(PATH);
+        assertTrue(object.exists());
+
+        object.delete();
+
+        assertFalse(testObject(PATH).exists(), "Deleted object was resolved from cache");
+        assertEquals(stub.callCount("head"), 2);
+    }
+
+    public void setAttributeInvalidatesCachedMetadata() throws Exception {
+        testObject(PATH).getContent().setAttribute("key", "value");
+        testObject(PATH).getType();
+
+        assertEquals(stub.callCount("head"), 2);
+    }
+
+    public void setAttributeLeavesSharedResponseUnchanged() throws Exception {
+        final MantaFileObject object = testObject(PATH);
+        assertTrue(object.exists());
+        final MantaObject shared = mantaFs.getMetadataCache().get(PATH);
+
+        object.getContent().setAttribute("key", "value");
+
+        assertFalse(shared.getMetadata().containsKey("m-key"), "Cached response was modified");
+        assertEquals(object.getContent().getAttribute("key"), "value");
+        assertEquals(testObject(PATH).getContent().getAttribute("key"), "value");
+    }
+
+    public void missingPathIsOnlyRequestedOnce() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertFalse(testObject(MISSING).exists());
+        }
+
+        final MantaPathCache<Boolean> negativeCache = mantaFs.getNegativeLookupCache();
+        assertEquals(stub.callCount("head"), 1, "Missing path was requested more than once");
+        assertEquals(negativeCache.getHitCount(), 4L);
+        assertEquals(negativeCache.getMissCount(), 1L);
+    }
+
+    public void createFolderInvalidatesNegativeLookup() throws Exception {
+        assertFalse(testObject(MISSING).exists());
+
+        testObject(MISSING).createFolder();
+
+        assertEquals(testObject(MISSING).getType(), FileType.FOLDER,
+                "Created folder was resolved as missing from cache");
+    }
+
+    private MantaFileObject testObject(final String path) {
+        return new MantaFileObject(new MantaFileName("manta", path, FileType.FILE), mantaFs);
+    }
+}
@@ -0,0 +1,126 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaFileSystem#prefetch(java.util.Collection)} run against
+ * a {@link StubMantaClient} with simulated network latency.
+ */
+@Test
+public class MantaFileSystemPrefetchTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/prefetch";
+    private static final int OBJECT_COUNT = 64;
+    private static final int PARALLELISM = 8;
+    private static final long LATENCY_MILLIS = 20L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setParallelism(opts, PARALLELISM);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(DIR);
+
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            stub.putObject(String.format("%s/object-%d", DIR, i), new byte[i]);
+        }
+
+        stub.resetCallCounts();
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void prefetchIssuesHeadsConcurrently() throws Exception {
+        final List<FileObject> files = new ArrayList<>(OBJECT_COUNT);
+
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            files.add(mantaFs.resolveFile(new MantaFileName(
+                    String.format("%s/object-%d", DIR, i), FileType.FILE)));
+        }
+
+        final long start = System.nanoTime();
+        mantaFs.prefetch(files);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(stub.callCount("head"), OBJECT_COUNT);
+        assertTrue(elapsedMillis < OBJECT_COUNT * LATENCY_MILLIS / 2,
+                String.format("Prefetch took %dms", elapsedMillis));
+
+        for (FileObject file : files) {
+            file.getType();
+            file.getContent().getSize();
+            file.getContent().getAttributes();
+        }
+
+        assertEquals(stub.callCount("head"), OBJECT_COUNT, "Prefetched metadata was requested again");
+    }
+
+    public void prefetchQueuesBoundedNumberOfRequests() throws Exception {
+        final List<FileObject> files = new ArrayList<>(OBJECT_COUNT);
+
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            files.add(mantaFs.resolveFile(new MantaFileName(
+                    String.format("%s/object-%d", DIR, i), FileType.FILE)));
+        }
+
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor)mantaFs.getExecutor();
+        final AtomicInteger maxQueued = new AtomicInteger();
+        stub.setHeadHook(() -> maxQueued.accumulateAndGet(pool.getQueue().size(), Math::max));
+
+        mantaFs.prefetch(files);
+
+        assertEquals(stub.callCount("head"), OBJECT_COUNT);
+        assertTrue(maxQueued.get() <= PARALLELISM * 4,
+                String.format("%d requests were queued at once", maxQueued.get()));
+    }
+
+    public void prefetchReplacesListingMetadata() throws Exception {
+        final MantaFileObject dir = new MantaFileObject(
+                new MantaFileName(DIR, FileType.FOLDER), mantaFs);
+        final FileObject[] children = dir.getChildren();
+        stub.resetCallCounts();
+
+        mantaFs.prefetch(Arrays.asList(children));
+        assertEquals(stub.callCount("head"), OBJECT_COUNT);
+
+        for (FileObject child : children) {
+            child.getContent().getAttributes();
+        }
+
+        assertEquals(stub.callCount("head"), OBJECT_COUNT);
+    }
+
+    public void prefetchOfMissingFileMarksItImaginary() throws Exception {
+        final FileObject missing = mantaFs.resolveFile(
+                new MantaFileName(DIR + "/missing", FileType.FILE));
+
+        mantaFs.prefetch(Arrays.asList(missing));
+
+        assertEquals(missing.getType(), FileType.IMAGINARY);
+        assertEquals(stub.callCount("head"), 1);
+    }
+}
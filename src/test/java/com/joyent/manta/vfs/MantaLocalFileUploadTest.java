@@ -0,0 +1,154 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.Selectors;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of copying local files to Manta with {@link MantaLocalFileUpload}
+ * run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaLocalFileUploadTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int PART_SIZE = 1024;
+    private static final int MAX_IN_FLIGHT = 3;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private StubMantaClient.StubMultipartManager multipart;
+    private Path localDir;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setMultipartThreshold(opts, (long)PART_SIZE * 2);
+        builder.setMultipartPartSize(opts, PART_SIZE);
+        builder.setMultipartMaxInFlight(opts, MAX_IN_FLIGHT);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.multipart = (StubMantaClient.StubMultipartManager)mantaFs.getMultipartManager();
+        this.localDir = Files.createTempDirectory("manta-vfs-local-upload");
+
+        stub.putDirectory(DIR);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        mantaFs.close();
+        FileUtils.deleteDirectory(localDir.toFile());
+    }
+
+    public void smallFileIsPutDirectly() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE);
+        final FileObject destination = mantaFs.resolveFile(DIR + "/small");
+
+        destination.copyFrom(localFile("small", content), Selectors.SELECT_SELF);
+
+        assertEquals(stub.getObject(DIR + "/small"), content);
+        assertEquals(stub.callCount("put.file"), 1);
+        assertEquals(stub.callCount("put"), 0);
+        assertTrue(destination.exists());
+        assertEquals(destination.getContent().getSize(), content.length);
+    }
+
+    public void largeFileIsUploadedAsConcurrentParts() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 10 + 7);
+        stub.setLatency(20L, TimeUnit.MILLISECONDS);
+
+        mantaFs.resolveFile(DIR + "/large").copyFrom(localFile("large", content), Selectors.SELECT_SELF);
+
+        assertEquals(stub.getObject(DIR + "/large"), content);
+        assertEquals(stub.callCount("uploadPart"), 11);
+        assertEquals(stub.callCount("put.file"), 0);
+        assertTrue(multipart.getMaxObservedInFlight() > 1, "Parts weren't uploaded concurrently");
+        assertTrue(multipart.getMaxObservedInFlight() <= MAX_IN_FLIGHT);
+    }
+
+    public void partCountIsReported() throws Exception {
+        final File file = new File(localDir.toFile(), "parts");
+        Files.write(file.toPath(), StubMantaClient.randomContent(PART_SIZE * 3));
+
+        final MantaLocalFileUpload upload = new MantaLocalFileUpload(mantaFs, DIR + "/parts", file);
+        upload.upload();
+
+        assertEquals(upload.getPartCount(), 3);
+    }
+
+    public void partsAreUploadedOnSharedPool() throws Exception {
+        final File file = new File(localDir.toFile(), "shared");
+        Files.write(file.toPath(), StubMantaClient.randomContent(PART_SIZE * 3));
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor)mantaFs.getUploadExecutor();
+
+        new MantaLocalFileUpload(mantaFs, DIR + "/shared-1", file).upload();
+        new MantaLocalFileUpload(mantaFs, DIR + "/shared-2", file).upload();
+
+        assertEquals(pool.getTaskCount(), 6L);
+        assertFalse(pool.isShutdown(), "Upload shut down the shared pool");
+    }
+
+    public void missingParentIsCreated() throws Exception {
+        final String parent = StubMantaClient.HOME_DIR + "/stor/new/dir";
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 4);
+        final FileObject destination = mantaFs.resolveFile(parent + "/large");
+
+        destination.copyFrom(localFile("nested", content), Selectors.SELECT_SELF);
+
+        assertTrue(stub.isDirectory(parent));
+        assertEquals(stub.getObject(parent + "/large"), content);
+    }
+
+    public void folderDestinationIsReplaced() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE);
+        stub.putDirectory(DIR + "/folder");
+        final FileObject destination = mantaFs.resolveFile(DIR + "/folder");
+        assertEquals(destination.getType(), FileType.FOLDER);
+
+        destination.copyFrom(localFile("replacement", content), Selectors.SELECT_SELF);
+
+        assertFalse(stub.isDirectory(DIR + "/folder"));
+        assertEquals(stub.getObject(DIR + "/folder"), content);
+        assertEquals(destination.getType(), FileType.FILE);
+    }
+
+    public void failedPartAbortsUpload() throws Exception {
+        multipart.setFailingPart(2);
+        final FileObject destination = mantaFs.resolveFile(DIR + "/failed");
+
+        try {
+            destination.copyFrom(localFile("failed", StubMantaClient.randomContent(PART_SIZE * 4)), Selectors.SELECT_SELF);
+            fail("Upload with a failed part should have failed");
+        } catch (FileSystemException e) {
+            assertEquals(stub.callCount("abort"), 1);
+            assertEquals(multipart.getOpenUploadCount(), 0);
+            assertNull(stub.getObject(DIR + "/failed"));
+        }
+    }
+
+    private FileObject localFile(final String name, final byte[] content) throws Exception {
+        final Path file = localDir.resolve(name);
+        Files.write(file, content);
+        return mantaFs.getFileSystemManager().resolveFile(file.toUri().toString());
+    }
+}
@@ -0,0 +1,133 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of multipart uploads run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaMultipartOutputStreamTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int PART_SIZE = 1024;
+    private static final int MAX_IN_FLIGHT = 3;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private StubMantaClient.StubMultipartManager multipart;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setMultipartThreshold(opts, (long)PART_SIZE * 2);
+        builder.setMultipartPartSize(opts, PART_SIZE);
+        builder.setMultipartMaxInFlight(opts, MAX_IN_FLIGHT);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.multipart = (StubMantaClient.StubMultipartManager)mantaFs.getMultipartManager();
+
+        stub.putDirectory(DIR);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void smallObjectIsUploadedWithSinglePut() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 2);
+
+        write(DIR + "/small", content);
+
+        assertEquals(stub.getObject(DIR + "/small"), content);
+        assertEquals(stub.callCount("put"), 1);
+        assertEquals(stub.callCount("initiateUpload"), 0);
+    }
+
+    public void largeObjectIsUploadedInParts() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 10 + 17);
+
+        write(DIR + "/large", content);
+
+        assertEquals(stub.getObject(DIR + "/large"), content);
+        assertEquals(stub.callCount("put"), 0);
+        assertEquals(stub.callCount("initiateUpload"), 1);
+        assertEquals(stub.callCount("uploadPart"), 11);
+        assertEquals(stub.callCount("complete"), 1);
+        assertEquals(multipart.getOpenUploadCount(), 0);
+    }
+
+    public void singleByteWritesAreUploadedInParts() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 4);
+        final MantaMultipartOutputStream out = new MantaMultipartOutputStream(mantaFs, DIR + "/bytes");
+
+        try {
+            for (byte b : content) {
+                out.write(b);
+            }
+        } finally {
+            out.close();
+        }
+
+        assertTrue(out.isMultipart());
+        assertEquals(out.getBytesWritten(), content.length);
+        assertEquals(stub.getObject(DIR + "/bytes"), content);
+        assertEquals(stub.callCount("uploadPart"), 4);
+    }
+
+    public void partsInFlightAreBounded() throws Exception {
+        stub.setLatency(20, TimeUnit.MILLISECONDS);
+
+        write(DIR + "/bounded", StubMantaClient.randomContent(PART_SIZE * 12));
+
+        assertTrue(multipart.getMaxObservedInFlight() > 1, "Parts weren't uploaded concurrently");
+        assertTrue(multipart.getMaxObservedInFlight() <= MAX_IN_FLIGHT,
+                String.format("%d parts were in flight", multipart.getMaxObservedInFlight()));
+    }
+
+    public void uploadToMissingDirectoryFails() throws Exception {
+        boolean failed = false;
+
+        try (OutputStream out = new MantaMultipartOutputStream(mantaFs, DIR + "/missing/large")) {
+            out.write(StubMantaClient.randomContent(PART_SIZE * 4));
+        } catch (IOException e) {
+            failed = true;
+        }
+
+        assertTrue(failed, "Upload to missing directory succeeded");
+        assertEquals(stub.callCount("complete"), 0);
+        assertNull(stub.getObject(DIR + "/missing/large"));
+    }
+
+    public void fileObjectOutputStreamUsesMultipart() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(PART_SIZE * 5);
+        final FileObject file = mantaFs.resolveFile(DIR + "/via-vfs");
+
+        try (OutputStream out = file.getContent().getOutputStream()) {
+            out.write(content);
+        }
+
+        assertEquals(stub.getObject(DIR + "/via-vfs"), content);
+        assertEquals(stub.callCount("initiateUpload"), 1);
+    }
+
+    private void write(final String path, final byte[] content) throws IOException {
+        try (OutputStream out = new MantaMultipartOutputStream(mantaFs, path)) {
+            out.write(content);
+        }
+    }
+}
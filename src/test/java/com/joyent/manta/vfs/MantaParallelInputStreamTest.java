@@ -0,0 +1,163 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of parallel ranged downloads run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaParallelInputStreamTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PARALLELISM = 4;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setDownloadParallelism(opts, PARALLELISM);
+        builder.setDownloadChunkSize(opts, CHUNK_SIZE);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(DIR);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void largeObjectIsDownloadedInRanges() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 10 + 1);
+        stub.putObject(DIR + "/large", content);
+        final FileObject file = mantaFs.resolveFile(DIR + "/large");
+
+        try (InputStream in = file.getContent().getInputStream()) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertEquals(stub.callCount("getAsInputStream.range"), 11);
+    }
+
+    public void smallObjectIsDownloadedWithSingleRequest() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE);
+        stub.putObject(DIR + "/small", content);
+        final FileObject file = mantaFs.resolveFile(DIR + "/small");
+
+        try (InputStream in = file.getContent().getInputStream()) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertEquals(stub.callCount("getAsInputStream"), 1);
+        assertEquals(stub.callCount("getAsInputStream.range"), 0);
+    }
+
+    public void singleByteReadsMatchContent() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 3 + 7);
+        stub.putObject(DIR + "/bytes", content);
+        final byte[] read = new byte[content.length];
+
+        try (InputStream in = open(DIR + "/bytes", content)) {
+            for (int i = 0; i < read.length; i++) {
+                read[i] = (byte)in.read();
+            }
+
+            assertEquals(in.read(), -1);
+        }
+
+        assertEquals(read, content);
+    }
+
+    public void skipRequestsRangesFromNewPosition() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 20);
+        stub.putObject(DIR + "/skip", content);
+
+        try (InputStream in = open(DIR + "/skip", content)) {
+            assertEquals(in.read(), content[0] & 0xFF);
+            assertEquals(in.skip(CHUNK_SIZE * 15L), CHUNK_SIZE * 15L);
+
+            final byte[] rest = IOUtils.toByteArray(in);
+            assertEquals(rest, Arrays.copyOfRange(content, CHUNK_SIZE * 15 + 1, content.length));
+        }
+
+        assertTrue(stub.callCount("getAsInputStream.range") < 20,
+                "Skipped ranges were downloaded");
+    }
+
+    public void windowIsLimitedByBufferSize() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 10);
+        stub.putObject(DIR + "/budget", content);
+
+        try (MantaParallelInputStream in = new MantaParallelInputStream(mantaFs, DIR + "/budget",
+                content.length, null, CHUNK_SIZE, PARALLELISM, CHUNK_SIZE * 2L)) {
+            assertEquals(in.getWindow(), 2);
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class,
+          expectedExceptionsMessageRegExp = ".*changed while it was being read")
+    public void replacedObjectFailsDownload() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 10);
+        stub.putObject(DIR + "/replaced", content);
+
+        try (InputStream in = new MantaParallelInputStream(mantaFs, DIR + "/replaced",
+                content.length, stub.head(DIR + "/replaced").getEtag(), CHUNK_SIZE, 1, CHUNK_SIZE)) {
+            in.read();
+            stub.putObject(DIR + "/replaced", content.clone());
+            IOUtils.toByteArray(in);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class,
+          expectedExceptionsMessageRegExp = "Requested .* from byte 0, but the response was .*")
+    public void ignoredRangeFailsDownload() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 3);
+        stub.putObject(DIR + "/ignored", content);
+        stub.setIgnoreRanges(true);
+
+        try (InputStream in = open(DIR + "/ignored", content)) {
+            IOUtils.toByteArray(in);
+        }
+    }
+
+    public void closingStreamLeavesSharedPoolRunning() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(CHUNK_SIZE * 4);
+        stub.putObject(DIR + "/first", content);
+        stub.putObject(DIR + "/second", content);
+
+        try (InputStream in = open(DIR + "/first", content)) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        try (InputStream in = open(DIR + "/second", content)) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertFalse(mantaFs.getDownloadExecutor().isShutdown());
+    }
+
+    private InputStream open(final String path, final byte[] content) throws IOException {
+        return new MantaParallelInputStream(mantaFs, path, content.length,
+                stub.head(path).getEtag(), CHUNK_SIZE, PARALLELISM, Long.MAX_VALUE);
+    }
+}
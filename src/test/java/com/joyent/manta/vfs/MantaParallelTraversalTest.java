@@ -0,0 +1,140 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.Selectors;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaParallelTraversal} run against a {@link StubMantaClient}
+ * with simulated network latency.
+ */
+@Test
+public class MantaParallelTraversalTest {
+    private static final String TREE = StubMantaClient.HOME_DIR + "/stor/tree";
+    private static final int DIRECTORIES = 16;
+    private static final int SUBDIRECTORIES = 2;
+    private static final int FILES = 3;
+    private static final long LATENCY_MILLIS = 20L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setParallelism(opts, 8);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        stub.putDirectory(TREE);
+
+        for (int d = 0; d < DIRECTORIES; d++) {
+            final String dir = String.format("%s/d-%02d", TREE, d);
+            stub.putDirectory(dir);
+
+            for (int s = 0; s < SUBDIRECTORIES; s++) {
+                final String subdir = String.format("%s/s-%d", dir, s);
+                stub.putDirectory(subdir);
+
+                for (int f = 0; f < FILES; f++) {
+                    stub.putObject(String.format("%s/f-%d", subdir, f), new byte[f]);
+                }
+            }
+        }
+
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void resultsMatchFindFilesInOrder() throws Exception {
+        for (boolean depthwise : new boolean[] {true, false}) {
+            final List<FileObject> expected = new ArrayList<>();
+            tree().findFiles(Selectors.SELECT_ALL, depthwise, expected);
+
+            final List<FileObject> actual = new MantaParallelTraversal(mantaFs)
+                    .findFiles(tree(), Selectors.SELECT_ALL, depthwise);
+
+            assertEquals(paths(actual), paths(expected));
+        }
+    }
+
+    public void siblingDirectoriesAreListedConcurrently() throws Exception {
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        final List<FileObject> expected = new ArrayList<>();
+        tree().findFiles(Selectors.SELECT_FILES, false, expected);
+        final long serialNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        final List<FileObject> actual = new MantaParallelTraversal(mantaFs)
+                .findFiles(tree(), Selectors.SELECT_FILES, false);
+        final long parallelNanos = System.nanoTime() - start;
+
+        assertEquals(actual.size(), DIRECTORIES * SUBDIRECTORIES * FILES);
+        assertTrue(parallelNanos * 2 < serialNanos,
+                String.format("Parallel walk took %dms, serial walk took %dms",
+                        TimeUnit.NANOSECONDS.toMillis(parallelNanos),
+                        TimeUnit.NANOSECONDS.toMillis(serialNanos)));
+    }
+
+    public void prunedDirectoriesAreNotListed() throws Exception {
+        final FileSelector selector = new FileSelector() {
+            @Override
+            public boolean includeFile(final FileSelectInfo fileInfo) throws Exception {
+                return fileInfo.getFile().isFile();
+            }
+
+            @Override
+            public boolean traverseDescendents(final FileSelectInfo fileInfo) throws Exception {
+                return !fileInfo.getFile().getName().getBaseName().equals("d-00");
+            }
+        };
+
+        final List<FileObject> actual = new MantaParallelTraversal(mantaFs)
+                .findFiles(tree(), selector, true);
+
+        assertEquals(actual.size(), (DIRECTORIES - 1) * SUBDIRECTORIES * FILES);
+        assertEquals(stub.callCount("listObjects"), 1 + (DIRECTORIES - 1) * (1 + SUBDIRECTORIES));
+    }
+
+    public void operationIsAvailableFromProvider() throws Exception {
+        final FileObject tree = mantaFs.resolveFile(new MantaFileName(TREE, FileType.FOLDER));
+
+        assertTrue(tree.getFileOperations().hasOperation(MantaFindFilesOperation.class));
+
+        final MantaFindFilesOperation find = (MantaFindFilesOperation)tree.getFileOperations()
+                .getOperation(MantaFindFilesOperation.class);
+        find.setSelector(Selectors.SELECT_FOLDERS);
+        find.process();
+
+        assertEquals(find.getResults().size(), 1 + DIRECTORIES * (1 + SUBDIRECTORIES));
+    }
+
+    private MantaFileObject tree() {
+        return new MantaFileObject(new MantaFileName(TREE, FileType.FOLDER), mantaFs);
+    }
+
+    private static List<String> paths(final List<FileObject> files) {
+        return files.stream().map(f -> f.getName().getPath()).collect(Collectors.toList());
+    }
+}
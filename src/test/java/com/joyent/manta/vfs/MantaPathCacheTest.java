@@ -0,0 +1,107 @@
+package com.joyent.manta.vfs;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class MantaPathCacheTest {
+    public void canGetCachedValue() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        cache.put("/user/stor/a", "a");
+
+        assertEquals(cache.get("/user/stor/a"), "a");
+        assertNull(cache.get("/user/stor/b"));
+    }
+
+    public void entriesExpireAfterTtl() throws InterruptedException {
+        final MantaPathCache<String> cache = new MantaPathCache<>(1L, 10);
+        cache.put("/user/stor/a", "a");
+        Thread.sleep(10L);
+
+        assertNull(cache.get("/user/stor/a"), "Expired entry was returned");
+        assertEquals(cache.size(), 0, "Expired entry wasn't removed");
+    }
+
+    public void leastRecentlyUsedEntryIsEvicted() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 2);
+        cache.put("/user/stor/a", "a");
+        cache.put("/user/stor/b", "b");
+        cache.get("/user/stor/a");
+        cache.put("/user/stor/c", "c");
+
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.get("/user/stor/a"), "a");
+        assertNull(cache.get("/user/stor/b"), "Least recently used entry wasn't evicted");
+        assertEquals(cache.get("/user/stor/c"), "c");
+    }
+
+    public void canInvalidateEntry() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        cache.put("/user/stor/a", "a");
+        cache.invalidate("/user/stor/a");
+
+        assertNull(cache.get("/user/stor/a"));
+    }
+
+    public void valueLoadedBeforeInvalidationIsNotCached() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        final long generation = cache.getGeneration();
+        cache.invalidate("/user/stor/a");
+        cache.put("/user/stor/a", "stale", generation);
+
+        assertNull(cache.get("/user/stor/a"), "Stale value was cached after invalidation");
+    }
+
+    public void invalidationOfOtherPathDoesNotDiscardValue() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        final long generation = cache.getGeneration();
+        cache.invalidate("/user/stor/b");
+        cache.put("/user/stor/a", "a", generation);
+
+        assertEquals(cache.get("/user/stor/a"), "a");
+    }
+
+    public void valueLoadedBeforeForgottenInvalidationIsNotCached() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 2);
+        final long generation = cache.getGeneration();
+        cache.invalidate("/user/stor/a");
+        cache.invalidate("/user/stor/b");
+        cache.invalidate("/user/stor/c");
+        cache.put("/user/stor/a", "stale", generation);
+
+        assertNull(cache.get("/user/stor/a"), "Stale value was cached after its invalidation was evicted");
+    }
+
+    public void valueLoadedBeforeInvalidateAllIsNotCached() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        final long generation = cache.getGeneration();
+        cache.invalidateAll();
+        cache.put("/user/stor/a", "stale", generation);
+
+        assertNull(cache.get("/user/stor/a"), "Stale value was cached after all values were invalidated");
+    }
+
+    public void countsHitsAndMisses() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(60_000L, 10);
+        cache.put("/user/stor/a", "a");
+        cache.get("/user/stor/a");
+        cache.get("/user/stor/a");
+        cache.get("/user/stor/b");
+
+        assertEquals(cache.getHitCount(), 2L);
+        assertEquals(cache.getMissCount(), 1L);
+    }
+
+    public void zeroTtlDisablesCache() {
+        final MantaPathCache<String> cache = new MantaPathCache<>(0L, 10);
+        cache.put("/user/stor/a", "a");
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("/user/stor/a"));
+        assertTrue(new MantaPathCache<String>(1L, 1).isEnabled());
+    }
+}
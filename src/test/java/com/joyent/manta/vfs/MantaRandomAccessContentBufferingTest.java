@@ -0,0 +1,388 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of the buffered read path of {@link MantaRandomAccessContent} run
+ * against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaRandomAccessContentBufferingTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/index.bin";
+    private static final int BLOCK_SIZE = 4096;
+    private static final int INT_COUNT = 10000;
+    private static final long MAX_SKIP = 8192L;
+    private static final int READ_AHEAD = BLOCK_SIZE * 4;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setRandomAccessBlockSize(opts, BLOCK_SIZE);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < INT_COUNT; i++) {
+                out.writeInt(i);
+            }
+            out.writeLong(Long.MIN_VALUE);
+            out.writeDouble(Math.PI);
+            out.writeUTF("こんにちは");
+            out.writeShort(-2);
+        }
+
+        this.content = bytes.toByteArray();
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void primitivesAreReadFromBuffer() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            for (int i = 0; i < INT_COUNT; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+
+            assertEquals(rac.readLong(), Long.MIN_VALUE);
+            assertEquals(rac.readDouble(), Math.PI);
+            assertEquals(rac.readUTF(), "こんにちは");
+            assertEquals(rac.readShort(), (short)-2);
+            assertEquals(rac.getFilePointer(), content.length);
+        }
+
+        final int blocks = content.length / BLOCK_SIZE + 1;
+        assertTrue(stub.callCount("channel.read") <= blocks + 1,
+                String.format("%d channel reads for %d blocks", stub.callCount("channel.read"), blocks));
+    }
+
+    public void primitivesSpanningShortReadsAreDecoded() throws Exception {
+        stub.setChannelReadLimit(3);
+
+        try (MantaRandomAccessContent rac = open()) {
+            for (int i = 0; i < INT_COUNT; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+
+            assertEquals(rac.readLong(), Long.MIN_VALUE);
+        }
+    }
+
+    public void readFullyLoopsUntilFull() throws Exception {
+        stub.setChannelReadLimit(7);
+        final byte[] read = new byte[BLOCK_SIZE * 3];
+
+        try (MantaRandomAccessContent rac = open()) {
+            rac.readFully(read, 0, 5);
+            rac.readFully(read, 5, read.length - 5);
+        }
+
+        assertEquals(read, Arrays.copyOf(content, read.length));
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void readFullyPastEndThrowsEof() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.seek(content.length - 3);
+            rac.readFully(new byte[4]);
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void readIntPastEndThrowsEof() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.seek(content.length - 3);
+            rac.readInt();
+        }
+    }
+
+    public void seekWithinBufferDoesNotRepositionChannel() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.readInt();
+            rac.seek(400);
+            assertEquals(rac.readInt(), 100);
+            rac.seek(0);
+            assertEquals(rac.readInt(), 0);
+            assertEquals(stub.callCount("channel.position"), 0);
+
+            rac.seek(4 * 5000);
+            assertEquals(rac.readInt(), 5000);
+            assertEquals(rac.getFilePointer(), 4 * 5001);
+            assertEquals(stub.callCount("channel.position"), 1);
+        }
+    }
+
+    public void consecutiveSeeksOpenOneRequest() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.seek(content.length - 2);
+            rac.seek(4 * 100);
+            rac.seek(4 * 9000);
+            assertEquals(stub.callCount("channel.position"), 0);
+
+            assertEquals(rac.readInt(), 9000);
+            assertEquals(stub.callCount("channel.position"), 1);
+        }
+    }
+
+    public void shortForwardSeekReusesConnection() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.readInt();
+            rac.seek(4 * 3000);
+            assertEquals(rac.readInt(), 3000);
+
+            assertEquals(stub.callCount("channel.position"), 0);
+            assertTrue(stub.callCount("channel.skip") > 0, "Channel wasn't skipped");
+        }
+    }
+
+    public void seekBeforeFirstReadOpensRangedRequest() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.seek(4 * 10);
+            assertEquals(rac.readInt(), 10);
+
+            assertEquals(stub.callCount("channel.position"), 1);
+            assertEquals(stub.callCount("channel.skip"), 0);
+        }
+    }
+
+    public void backwardSeekOutsideBufferOpensRangedRequest() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.seek(4 * 9000);
+            assertEquals(rac.readInt(), 9000);
+            rac.seek(4 * 10);
+            assertEquals(rac.readInt(), 10);
+
+            assertEquals(stub.callCount("channel.position"), 2);
+        }
+    }
+
+    public void skipBytesAdvancesPastBuffer() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            rac.readInt();
+            assertEquals(rac.skipBytes(4 * 6000 - 4), 4 * 6000 - 4);
+            assertEquals(rac.readInt(), 6000);
+        }
+    }
+
+    public void inputStreamSharesBufferAndPosition() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            assertEquals(rac.readInt(), 0);
+
+            final InputStream in = rac.getInputStream();
+            final byte[] next = new byte[4];
+            assertEquals(IOUtils.read(in, next), 4);
+            assertEquals(next, Arrays.copyOfRange(content, 4, 8));
+            assertEquals(rac.getFilePointer(), 8L);
+            assertEquals(rac.readInt(), 2);
+        }
+    }
+
+    public void fileObjectUsesConfiguredBlockSize() throws Exception {
+        final RandomAccessContent rac = mantaFs.resolveFile(PATH).getContent()
+                .getRandomAccessContent(RandomAccessMode.READ);
+
+        try {
+            for (int i = 0; i <= BLOCK_SIZE / Integer.BYTES; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+
+            assertEquals(stub.callCount("channel.read"), 2);
+        } finally {
+            rac.close();
+        }
+    }
+
+    public void sequentialScanGrowsReadAhead() throws Exception {
+        int maxWindow = 0;
+
+        try (MantaRandomAccessContent rac = openWithReadAhead()) {
+            for (int i = 0; i < INT_COUNT; i++) {
+                assertEquals(rac.readInt(), i);
+                maxWindow = Math.max(maxWindow, rac.getReadAheadWindow());
+            }
+
+            assertEquals(rac.readLong(), Long.MIN_VALUE);
+        }
+
+        assertEquals(maxWindow, READ_AHEAD);
+    }
+
+    public void randomSeekCollapsesReadAhead() throws Exception {
+        try (MantaRandomAccessContent rac = openWithReadAhead()) {
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+
+            assertTrue(rac.getReadAheadWindow() > 0, "Read-ahead wasn't started");
+
+            rac.seek(4 * 10);
+            assertEquals(rac.readInt(), 10);
+            assertEquals(rac.getReadAheadWindow(), 0);
+
+            for (int i = 11; i < INT_COUNT; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+        }
+    }
+
+    public void readAheadSurvivesLargeReads() throws Exception {
+        try (MantaRandomAccessContent rac = openWithReadAhead()) {
+            final byte[] read = new byte[content.length];
+
+            for (int off = 0; off < read.length; off += BLOCK_SIZE) {
+                rac.readFully(read, off, Math.min(BLOCK_SIZE, read.length - off));
+            }
+
+            assertEquals(read, content);
+        }
+    }
+
+    public void readAheadRunsOnSharedPool() throws Exception {
+        final ThreadPoolExecutor pool = (ThreadPoolExecutor)Executors.newFixedThreadPool(1);
+
+        try {
+            try (MantaRandomAccessContent rac = new MantaRandomAccessContent(stub.getSeekableByteChannel(PATH),
+                    BLOCK_SIZE, MAX_SKIP, READ_AHEAD, pool)) {
+                for (int i = 0; i < INT_COUNT; i++) {
+                    assertEquals(rac.readInt(), i);
+                }
+            }
+
+            assertTrue(pool.getTaskCount() > 0, "Nothing was read ahead on the pool");
+            assertFalse(pool.isShutdown(), "Closing the content shut down the shared pool");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void readAheadIsDisabledByDefault() throws Exception {
+        try (MantaRandomAccessContent rac = open()) {
+            for (int i = 0; i < INT_COUNT; i++) {
+                assertEquals(rac.readInt(), i);
+            }
+
+            assertEquals(rac.getReadAheadWindow(), 0);
+        }
+    }
+
+    public void smallObjectIsFetchedIntoMemory() throws Exception {
+        final MantaFileSystem inMemoryFs = newInMemoryFileSystem(content.length);
+
+        try {
+            final RandomAccessContent rac = inMemoryFs.resolveFile(PATH).getContent()
+                    .getRandomAccessContent(RandomAccessMode.READ);
+
+            try {
+                for (int i = INT_COUNT - 1; i >= 0; i -= 97) {
+                    rac.seek(i * Integer.BYTES);
+                    assertEquals(rac.readInt(), i);
+                }
+
+                rac.seek(INT_COUNT * Integer.BYTES);
+                assertEquals(rac.readLong(), Long.MIN_VALUE);
+                assertEquals(rac.readDouble(), Math.PI);
+                assertEquals(rac.readUTF(), "こんにちは");
+                assertEquals(rac.length(), content.length);
+            } finally {
+                rac.close();
+            }
+
+            assertEquals(stub.callCount("getAsInputStream"), 1);
+            assertEquals(stub.callCount("getSeekableByteChannel"), 0);
+        } finally {
+            inMemoryFs.close();
+        }
+    }
+
+    public void objectOverThresholdIsReadThroughChannel() throws Exception {
+        final MantaFileSystem inMemoryFs = newInMemoryFileSystem(content.length - 1);
+
+        try {
+            final RandomAccessContent rac = inMemoryFs.resolveFile(PATH).getContent()
+                    .getRandomAccessContent(RandomAccessMode.READ);
+
+            try {
+                assertEquals(rac.readInt(), 0);
+            } finally {
+                rac.close();
+            }
+
+            assertEquals(stub.callCount("getAsInputStream"), 0);
+            assertEquals(stub.callCount("getSeekableByteChannel"), 1);
+        } finally {
+            inMemoryFs.close();
+        }
+    }
+
+    public void replacedObjectIsReadThroughChannel() throws Exception {
+        final MantaFileSystem inMemoryFs = newInMemoryFileSystem(content.length);
+
+        try {
+            final FileObject file = inMemoryFs.resolveFile(PATH);
+            assertEquals(file.getContent().getSize(), content.length);
+
+            stub.putObject(PATH, content.clone());
+            final RandomAccessContent rac = file.getContent().getRandomAccessContent(RandomAccessMode.READ);
+
+            try {
+                assertEquals(rac.readInt(), 0);
+            } finally {
+                rac.close();
+            }
+
+            assertEquals(stub.callCount("getSeekableByteChannel"), 1);
+        } finally {
+            inMemoryFs.close();
+        }
+    }
+
+    private MantaFileSystem newInMemoryFileSystem(final int threshold) throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setRandomAccessInMemoryThreshold(opts, threshold);
+
+        final MantaFileSystem fs = StubMantaClient.newFileSystem(opts);
+        final StubMantaClient fsStub = StubMantaClient.of(fs);
+        fsStub.putObject(PATH, content);
+        fsStub.resetCallCounts();
+        this.stub = fsStub;
+
+        return fs;
+    }
+
+    private MantaRandomAccessContent openWithReadAhead() throws Exception {
+        return new MantaRandomAccessContent(stub.getSeekableByteChannel(PATH), BLOCK_SIZE,
+                MAX_SKIP, READ_AHEAD, mantaFs.getDownloadExecutor());
+    }
+
+    private MantaRandomAccessContent open() throws Exception {
+        return new MantaRandomAccessContent(stub.getSeekableByteChannel(PATH), BLOCK_SIZE, MAX_SKIP);
+    }
+}
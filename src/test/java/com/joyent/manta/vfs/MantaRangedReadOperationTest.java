@@ -0,0 +1,123 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests of {@link MantaRangedReadOperation} run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaRangedReadOperationTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/app.log";
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.mantaFs = StubMantaClient.newFileSystem();
+        this.stub = StubMantaClient.of(mantaFs);
+        this.content = new byte[10_000];
+        new Random(1).nextBytes(content);
+
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void rangeIsReadWithSingleRequest() throws Exception {
+        assertEquals(read(operation().setRange(100, 50)), Arrays.copyOfRange(content, 100, 150));
+
+        assertEquals(stub.callCount("getAsInputStream.range"), 1);
+        assertEquals(stub.callCount("head"), 0);
+        assertEquals(stub.callCount("getSeekableByteChannel"), 0);
+    }
+
+    public void offsetIsReadToEnd() throws Exception {
+        assertEquals(read(operation().setOffset(9_000)),
+                Arrays.copyOfRange(content, 9_000, content.length));
+    }
+
+    public void tailIsRead() throws Exception {
+        assertEquals(read(operation().setTail(300)),
+                Arrays.copyOfRange(content, content.length - 300, content.length));
+    }
+
+    public void tailLargerThanObjectReadsWholeObject() throws Exception {
+        assertEquals(read(operation().setTail(content.length * 2L)), content);
+    }
+
+    public void rangePastEndIsTruncated() throws Exception {
+        assertEquals(read(operation().setRange(content.length - 10, 100)),
+                Arrays.copyOfRange(content, content.length - 10, content.length));
+    }
+
+    public void rangeStartingPastEndIsEmpty() throws Exception {
+        assertEquals(read(operation().setRange(content.length, 100)), new byte[0]);
+    }
+
+    public void emptyRangeMakesNoRequest() throws Exception {
+        assertEquals(read(operation().setRange(10, 0)), new byte[0]);
+        assertEquals(stub.callCount("getAsInputStream"), 0);
+    }
+
+    public void operationIsAvailableFromProvider() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        assertTrue(file.getFileOperations().hasOperation(MantaRangedReadOperation.class));
+        final MantaRangedReadOperation operation = (MantaRangedReadOperation)file
+                .getFileOperations().getOperation(MantaRangedReadOperation.class);
+
+        assertEquals(read(operation.setRange(0, 10)), Arrays.copyOf(content, 10));
+    }
+
+    @Test(expectedExceptions = FileSystemException.class)
+    public void missingObjectFails() throws Exception {
+        final FileObject file = mantaFs.resolveFile(StubMantaClient.HOME_DIR + "/stor/missing.log");
+
+        new MantaRangedReadOperation((MantaFileObject)FileObjectUtils.getAbstractFileObject(file))
+                .setRange(0, 10).process();
+    }
+
+    @Test(expectedExceptions = FileSystemException.class)
+    public void ignoredRangeFails() throws Exception {
+        stub.setIgnoreRanges(true);
+        operation().setRange(100, 50).process();
+    }
+
+    @Test(expectedExceptions = FileSystemException.class)
+    public void ignoredTailFails() throws Exception {
+        stub.setIgnoreRanges(true);
+        operation().setTail(300).process();
+    }
+
+    private MantaRangedReadOperation operation() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        return new MantaRangedReadOperation((MantaFileObject)FileObjectUtils.getAbstractFileObject(file));
+    }
+
+    private static byte[] read(final MantaRangedReadOperation operation) throws Exception {
+        operation.process();
+
+        try (InputStream in = operation.getInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link MantaResumableInputStream} run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaResumableInputStreamTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/archive.tar";
+    private static final int MAX_RESUMES = 2;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setDownloadMaxResumes(opts, MAX_RESUMES);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.content = new byte[10_000];
+        new Random(1).nextBytes(content);
+
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void resetConnectionIsResumed() throws Exception {
+        stub.setStreamFailures(2, 1000, false);
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        try (InputStream in = file.getContent().getInputStream()) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertEquals(stub.callCount("getAsInputStream.range"), 2);
+        assertEquals(mantaFs.getDownloadResumeCount(), 2L);
+        assertEquals(mantaFs.getDownloadResumedBytes(), 1000L + 2000L);
+    }
+
+    public void truncatedResponseIsResumed() throws Exception {
+        stub.setStreamFailures(1, 4000, true);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            assertEquals(IOUtils.toByteArray(in), content);
+            assertEquals(in.getResumeCount(), 1);
+            assertEquals(in.getResumedBytes(), 4000L);
+        }
+    }
+
+    public void singleByteReadsAreResumed() throws Exception {
+        stub.setStreamFailures(1, 10, false);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            for (byte expected : content) {
+                assertEquals(in.read(), Byte.toUnsignedInt(expected));
+            }
+
+            assertEquals(in.read(), -1);
+            assertEquals(in.getResumeCount(), 1);
+        }
+    }
+
+    public void resumesAreLimited() throws Exception {
+        stub.setStreamFailures(MAX_RESUMES + 1, 100, false);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            IOUtils.toByteArray(in);
+            fail("Download should have failed after exhausting its resumes");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "Connection reset");
+        }
+
+        assertEquals(mantaFs.getDownloadResumeCount(), (long)MAX_RESUMES);
+    }
+
+    public void replacedObjectIsNotResumed() throws Exception {
+        stub.setStreamFailures(1, 100, false);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            assertEquals(IOUtils.read(in, new byte[100]), 100);
+            stub.putObject(PATH, content.clone());
+
+            in.read();
+            fail("Download of a replaced object should have failed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("changed"), e.getMessage());
+        }
+
+        assertEquals(mantaFs.getDownloadResumedBytes(), 0L);
+    }
+
+    public void ignoredRangeIsNotResumed() throws Exception {
+        stub.setStreamFailures(1, 100, false).setIgnoreRanges(true);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            IOUtils.toByteArray(in);
+            fail("Download should have failed when the range was ignored");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("from byte 100"), e.getMessage());
+        }
+
+        assertEquals(mantaFs.getDownloadResumedBytes(), 0L);
+    }
+
+    public void objectWithoutEtagIsNotResumed() throws Exception {
+        stub.setStreamFailures(1, 100, false).setOmitEtags(true);
+
+        try (MantaResumableInputStream in = new MantaResumableInputStream(mantaFs, PATH)) {
+            IOUtils.toByteArray(in);
+            fail("Download without an etag should have failed without resuming");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "Connection reset");
+        }
+
+        assertEquals(stub.callCount("getAsInputStream.range"), 0);
+    }
+
+    public void resumingCanBeDisabled() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setDownloadMaxResumes(opts, 0);
+        final MantaFileSystem fs = StubMantaClient.newFileSystem(opts);
+
+        try {
+            StubMantaClient.of(fs).putObject(PATH, content).setStreamFailures(1, 100, false);
+
+            try (InputStream in = fs.resolveFile(PATH).getContent().getInputStream()) {
+                IOUtils.toByteArray(in);
+                fail("Download should have failed without resuming");
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "Connection reset");
+            }
+        } finally {
+            fs.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.util.FileObjectUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link MantaVectoredReadOperation} run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaVectoredReadOperationTest {
+    private static final String PATH = StubMantaClient.HOME_DIR + "/stor/columns.bin";
+    private static final long MAX_GAP = 100L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+    private byte[] content;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        new MantaFileSystemConfigBuilder().setRandomAccessMaxSkip(opts, MAX_GAP);
+
+        this.mantaFs = StubMantaClient.newFileSystem(opts);
+        this.stub = StubMantaClient.of(mantaFs);
+        this.content = new byte[100_000];
+        new Random(1).nextBytes(content);
+
+        stub.putObject(PATH, content);
+        stub.resetCallCounts();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void nearbyRangesAreCoalesced() throws Exception {
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange first = operation.addRange(1000, 10);
+        final MantaFileRange second = operation.addRange(1050, 20);
+        final MantaFileRange third = operation.addRange(1100, 5);
+
+        operation.process();
+
+        assertContent(first);
+        assertContent(second);
+        assertContent(third);
+        assertEquals(operation.getRequestCount(), 1);
+        assertEquals(stub.callCount("getAsInputStream.range"), 1);
+    }
+
+    public void distantRangesAreRequestedSeparately() throws Exception {
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange[] ranges = {
+                operation.addRange(90_000, 100),
+                operation.addRange(10, 100),
+                operation.addRange(50_000, 1000)
+        };
+
+        operation.process();
+
+        for (MantaFileRange range : ranges) {
+            assertContent(range);
+        }
+
+        assertEquals(operation.getRequestCount(), 3);
+    }
+
+    public void mergedSizeIsBounded() throws Exception {
+        final MantaVectoredReadOperation operation = operation().setMaxMergedSize(150);
+        final MantaFileRange first = operation.addRange(0, 100);
+        final MantaFileRange second = operation.addRange(120, 100);
+
+        operation.process();
+
+        assertContent(first);
+        assertContent(second);
+        assertEquals(operation.getRequestCount(), 2);
+    }
+
+    public void overlappingRangesAreServed() throws Exception {
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange outer = operation.addRange(500, 500);
+        final MantaFileRange inner = operation.addRange(600, 10);
+
+        operation.process();
+
+        assertContent(outer);
+        assertContent(inner);
+        assertEquals(operation.getRequestCount(), 1);
+    }
+
+    public void rangePastEndFailsWithEof() throws Exception {
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange valid = operation.addRange(content.length - 10, 10);
+        final MantaFileRange invalid = operation.addRange(content.length - 10, 11);
+
+        operation.process();
+
+        assertContent(valid);
+        assertFailure(invalid, EOFException.class);
+    }
+
+    public void replacedObjectFailsRanges() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        assertEquals(file.getContent().getSize(), content.length);
+
+        final MantaVectoredReadOperation operation = new MantaVectoredReadOperation(
+                (MantaFileObject)FileObjectUtils.getAbstractFileObject(file));
+        final MantaFileRange range = operation.addRange(0, 10);
+
+        stub.putObject(PATH, content.clone());
+        operation.process();
+
+        assertFailure(range, IOException.class);
+    }
+
+    public void ignoredRangeFailsRanges() throws Exception {
+        stub.setIgnoreRanges(true);
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange range = operation.addRange(500, 10);
+
+        operation.process();
+
+        assertFailure(range, IOException.class);
+    }
+
+    public void rejectedRequestFailsRanges() throws Exception {
+        final MantaVectoredReadOperation operation = operation();
+        final MantaFileRange range = operation.addRange(0, 10);
+
+        mantaFs.getExecutor().shutdown();
+        operation.process();
+
+        assertFailure(range, RejectedExecutionException.class);
+        assertEquals(operation.getRequestCount(), 0);
+    }
+
+    public void operationIsAvailableFromProvider() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+
+        assertTrue(file.getFileOperations().hasOperation(MantaVectoredReadOperation.class));
+        final MantaVectoredReadOperation operation = (MantaVectoredReadOperation)file
+                .getFileOperations().getOperation(MantaVectoredReadOperation.class);
+        final MantaFileRange range = operation.addRange(42, 42);
+
+        operation.process();
+
+        assertContent(range);
+    }
+
+    @Test(expectedExceptions = FileSystemException.class)
+    public void directoryCantBeRead() throws Exception {
+        stub.putDirectory(StubMantaClient.HOME_DIR + "/stor/dir");
+        final FileObject dir = mantaFs.resolveFile(StubMantaClient.HOME_DIR + "/stor/dir");
+
+        new MantaVectoredReadOperation((MantaFileObject)FileObjectUtils.getAbstractFileObject(dir))
+                .process();
+    }
+
+    private MantaVectoredReadOperation operation() throws Exception {
+        final FileObject file = mantaFs.resolveFile(PATH);
+        return new MantaVectoredReadOperation((MantaFileObject)FileObjectUtils.getAbstractFileObject(file));
+    }
+
+    private void assertContent(final MantaFileRange range) throws Exception {
+        final ByteBuffer data = range.getData().get(10, TimeUnit.SECONDS);
+        final byte[] actual = new byte[data.remaining()];
+        data.get(actual);
+
+        assertEquals(actual, Arrays.copyOfRange(content, (int)range.getOffset(), (int)range.getEnd()));
+    }
+
+    private static void assertFailure(final MantaFileRange range,
+                                      final Class<? extends Throwable> expected) throws Exception {
+        try {
+            range.getData().get(10, TimeUnit.SECONDS);
+            fail("Range should have failed: " + range);
+        } catch (ExecutionException e) {
+            assertTrue(expected.isInstance(e.getCause()), e.getCause().toString());
+        }
+    }
+}
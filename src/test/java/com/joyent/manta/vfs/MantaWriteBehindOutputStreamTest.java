@@ -0,0 +1,177 @@
+package com.joyent.manta.vfs;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests of {@link MantaWriteBehindOutputStream} run against a {@link StubMantaClient}.
+ */
+@Test
+public class MantaWriteBehindOutputStreamTest {
+    private static final String DIR = StubMantaClient.HOME_DIR + "/stor/dir";
+    private static final int MEMORY_THRESHOLD = 1000;
+    private static final long LATENCY_MILLIS = 300L;
+
+    private MantaFileSystem mantaFs;
+    private StubMantaClient stub;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        this.mantaFs = newFileSystem(2);
+        this.stub = StubMantaClient.of(mantaFs);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        mantaFs.close();
+    }
+
+    public void closeReturnsBeforeUploadFinishes() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(100);
+        stub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        final MantaWriteBehindOutputStream out = new MantaWriteBehindOutputStream(mantaFs, DIR + "/object");
+        out.write(content);
+        out.close();
+
+        assertFalse(out.getUpload().isDone());
+        out.getUpload().get(10, TimeUnit.SECONDS);
+        assertEquals(stub.getObject(DIR + "/object"), content);
+    }
+
+    public void largeObjectIsSpooledToDisk() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(MEMORY_THRESHOLD * 10);
+
+        final MantaWriteBehindOutputStream out = new MantaWriteBehindOutputStream(mantaFs, DIR + "/large");
+        out.write(content, 0, MEMORY_THRESHOLD);
+        assertFalse(out.isSpooledToDisk());
+        out.write(content, MEMORY_THRESHOLD, content.length - MEMORY_THRESHOLD);
+        assertTrue(out.isSpooledToDisk());
+        out.close();
+
+        out.getUpload().get(10, TimeUnit.SECONDS);
+        assertEquals(stub.getObject(DIR + "/large"), content);
+    }
+
+    public void fileObjectSeesObjectOnceUploaded() throws Exception {
+        final byte[] content = StubMantaClient.randomContent(500);
+        final FileObject file = mantaFs.resolveFile(DIR + "/visible");
+        assertFalse(file.exists());
+
+        try (OutputStream out = file.getContent().getOutputStream()) {
+            out.write(content);
+        }
+
+        mantaFs.awaitUploads();
+
+        assertEquals(stub.getObject(DIR + "/visible"), content);
+        assertTrue(file.exists());
+        assertEquals(file.getContent().getSize(), content.length);
+    }
+
+    public void failedUploadIsReported() throws Exception {
+        final CompletableFuture<String> failed = new CompletableFuture<>();
+        mantaFs.getWriteBehindUploader().addListener((path, failure) -> {
+            if (failure != null) {
+                failed.complete(path);
+            }
+        });
+
+        final String path = StubMantaClient.HOME_DIR + "/stor/missing/object";
+        final MantaWriteBehindOutputStream out = new MantaWriteBehindOutputStream(mantaFs, path);
+        out.write(StubMantaClient.randomContent(10));
+        out.close();
+
+        try {
+            mantaFs.awaitUploads();
+            fail("Failed upload should have been reported");
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        assertEquals(failed.get(10, TimeUnit.SECONDS), path);
+        assertTrue(out.getUpload().isCompletedExceptionally());
+
+        /* Failures are only reported once. */
+        mantaFs.awaitUploads();
+    }
+
+    public void uploadsOfSamePathAreOrdered() throws Exception {
+        stub.setLatency(50L, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 5; i++) {
+            try (OutputStream out = new MantaWriteBehindOutputStream(mantaFs, DIR + "/ordered")) {
+                out.write(("version " + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        mantaFs.awaitUploads();
+        assertEquals(new String(stub.getObject(DIR + "/ordered"), StandardCharsets.UTF_8), "version 4");
+    }
+
+    public void closeBlocksWhileMaxUploadsAreInFlight() throws Exception {
+        final MantaFileSystem fs = newFileSystem(1);
+
+        try {
+            final StubMantaClient singleStub = StubMantaClient.of(fs);
+            singleStub.putDirectory(DIR);
+            singleStub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+            final MantaWriteBehindOutputStream first = new MantaWriteBehindOutputStream(fs, DIR + "/first");
+            first.write(StubMantaClient.randomContent(10));
+            first.close();
+
+            final MantaWriteBehindOutputStream second = new MantaWriteBehindOutputStream(fs, DIR + "/second");
+            second.write(StubMantaClient.randomContent(10));
+            second.close();
+
+            assertTrue(first.getUpload().isDone());
+            fs.awaitUploads();
+            assertNotNull(singleStub.getObject(DIR + "/second"));
+        } finally {
+            fs.close();
+        }
+    }
+
+    public void closingFilesystemWaitsForUploads() throws Exception {
+        final MantaFileSystem fs = newFileSystem(2);
+        final StubMantaClient fsStub = StubMantaClient.of(fs);
+        fsStub.putDirectory(DIR);
+        fsStub.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        final MantaWriteBehindOutputStream out = new MantaWriteBehindOutputStream(fs, DIR + "/pending");
+        out.write(StubMantaClient.randomContent(10));
+        out.close();
+        fs.close();
+
+        assertTrue(out.getUpload().isDone());
+        assertNotNull(fsStub.getObject(DIR + "/pending"));
+    }
+
+    private static MantaFileSystem newFileSystem(final int maxInFlight) throws Exception {
+        final FileSystemOptions opts = new FileSystemOptions();
+        final MantaFileSystemConfigBuilder builder = new MantaFileSystemConfigBuilder();
+        builder.setWriteBehind(opts, true);
+        builder.setWriteBehindMaxInFlight(opts, maxInFlight);
+        builder.setWriteBehindMemoryThreshold(opts, MEMORY_THRESHOLD);
+
+        final MantaFileSystem fs = StubMantaClient.newFileSystem(opts);
+        StubMantaClient.of(fs).putDirectory(DIR);
+        return fs;
+    }
+}
@@ -0,0 +1,671 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.client.MantaMetadata;
+import com.joyent.manta.client.MantaObject;
+import com.joyent.manta.client.MantaObjectInputStream;
+import com.joyent.manta.client.MantaObjectResponse;
+import com.joyent.manta.client.MantaSeekableByteChannel;
+import com.joyent.manta.client.multipart.MantaMultipartUploadPart;
+import com.joyent.manta.client.multipart.MantaMultipartUploadTuple;
+import com.joyent.manta.client.multipart.ServerSideMultipartManager;
+import com.joyent.manta.client.multipart.ServerSideMultipartUpload;
+import com.joyent.manta.config.ChainedConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.config.StandardConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaErrorCode;
+import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.http.signature.KeyFingerprinter;
+import com.joyent.manta.org.apache.http.HttpVersion;
+import com.joyent.manta.org.apache.http.StatusLine;
+import com.joyent.manta.org.apache.http.client.methods.CloseableHttpResponse;
+import com.joyent.manta.org.apache.http.conn.EofSensorInputStream;
+import com.joyent.manta.org.apache.http.message.BasicStatusLine;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.provider.local.DefaultLocalFileProvider;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.joyent.manta.client.MantaClient.SEPARATOR;
+
+/**
+ * In-memory stand-in for {@link MantaClient} that lets tests exercise the VFS
+ * provider without a running Manta instance. Every call can be delayed by a
+ * configurable latency in order to simulate network round trips, and the
+ * number of calls made to each method is recorded.
+ */
+public class StubMantaClient extends MantaClient {
+    public static final String HOME_DIR = "/stub";
+
+    private static KeyPair keyPair;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Set<String> directories = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private volatile long latencyMillis = 0L;
+    private volatile int channelReadLimit = Integer.MAX_VALUE;
+    private final AtomicInteger streamFailures = new AtomicInteger();
+    private volatile int streamFailureAfter = 0;
+    private volatile boolean streamFailureTruncates = false;
+    private final Map<String, byte[]> checksumOverrides = new ConcurrentHashMap<>();
+    private volatile boolean ignoreRanges = false;
+    private volatile boolean omitEtags = false;
+    private volatile Runnable headHook = () -> { };
+    private final Map<String, Map<String, String>> userMetadata = new ConcurrentHashMap<>();
+
+    public StubMantaClient(final ConfigContext config) {
+        super(config);
+        directories.add(SEPARATOR);
+        directories.add(HOME_DIR);
+        directories.add(HOME_DIR + "/stor");
+        directories.add(HOME_DIR + "/public");
+    }
+
+    /**
+     * Creates a new filesystem backed by a {@link StubMantaClient}.
+     *
+     * @return filesystem whose client is a stub
+     */
+    public static MantaFileSystem newFileSystem() {
+        return newFileSystem(new FileSystemOptions());
+    }
+
+    /**
+     * Creates a new filesystem backed by a {@link StubMantaClient} using the
+     * specified VFS settings in addition to the stub's connection settings.
+     *
+     * @param opts VFS settings
+     * @return filesystem whose client is a stub
+     */
+    public static MantaFileSystem newFileSystem(final FileSystemOptions opts) {
+        new MantaFileSystemConfigBuilder().importContext(config(), opts);
+
+        final DefaultFileSystemManager manager = new DefaultFileSystemManager();
+
+        try {
+            manager.addProvider(MantaFileName.SCHEME, new MantaFileProvider() {
+                @Override
+                protected FileSystem doCreateFileSystem(final FileName rootName,
+                                                        final FileSystemOptions fileSystemOptions) {
+                    return new MantaFileSystem(rootName, fileSystemOptions) {
+                        @Override
+                        protected MantaClient createClient(final ConfigContext config) {
+                            return new StubMantaClient(config);
+                        }
+
+                        @Override
+                        protected ServerSideMultipartManager createMultipartManager(final MantaClient mantaClient) {
+                            return ((StubMantaClient)mantaClient).new StubMultipartManager();
+                        }
+                    };
+                }
+            });
+            manager.addProvider("file", new DefaultLocalFileProvider());
+            manager.addOperationProvider(MantaFileName.SCHEME, new MantaFileOperationsProvider());
+            manager.init();
+
+            return (MantaFileSystem)manager.resolveFile("manta:///", opts).getFileSystem();
+        } catch (FileSystemException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates pseudo-random content that is the same for every invocation
+     * with the same length.
+     *
+     * @param length number of bytes
+     * @return content
+     */
+    public static byte[] randomContent(final int length) {
+        final byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    /**
+     * Gets the stub client used by a filesystem created with {@link #newFileSystem()}.
+     *
+     * @param fs filesystem to get client from
+     * @return stub client
+     */
+    public static StubMantaClient of(final MantaFileSystem fs) {
+        return (StubMantaClient)fs.getClient();
+    }
+
+    private static synchronized ConfigContext config() {
+        try {
+            if (keyPair == null) {
+                final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                keyPair = generator.generateKeyPair();
+            }
+
+            final StringWriter pem = new StringWriter();
+            try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+                writer.writeObject(keyPair);
+            }
+
+            final StandardConfigContext stub = new StandardConfigContext();
+            stub.setMantaURL("http://localhost:1");
+            stub.setMantaUser(StringUtils.removeStart(HOME_DIR, SEPARATOR));
+            stub.setMantaKeyId(KeyFingerprinter.md5Fingerprint(keyPair));
+            stub.setPrivateKeyContent(pem.toString());
+            stub.setNoAuth(true);
+
+            return new ChainedConfigContext(new DefaultsConfigContext(), stub);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public StubMantaClient setLatency(final long latency, final TimeUnit unit) {
+        this.latencyMillis = unit.toMillis(latency);
+        return this;
+    }
+
+    /**
+     * Limits the number of bytes returned by each read of a seekable byte
+     * channel, simulating reads that return as soon as any data arrives.
+     *
+     * @param limit maximum bytes per read
+     * @return this instance
+     */
+    public StubMantaClient setChannelReadLimit(final int limit) {
+        this.channelReadLimit = limit;
+        return this;
+    }
+
+    /**
+     * Makes the next input streams fail part way through, simulating
+     * connections that are reset or closed early by the server.
+     *
+     * @param count number of streams that fail
+     * @param afterBytes number of bytes each failing stream returns first
+     * @param truncate true to end the stream early instead of throwing
+     * @return this instance
+     */
+    public StubMantaClient setStreamFailures(final int count, final int afterBytes, final boolean truncate) {
+        this.streamFailureAfter = afterBytes;
+        this.streamFailureTruncates = truncate;
+        this.streamFailures.set(count);
+        return this;
+    }
+
+    /**
+     * Makes responses for an object report the specified MD5 instead of the
+     * checksum of its content, simulating content corrupted in transit.
+     *
+     * @param path path of the object
+     * @param md5 checksum to report
+     * @return this instance
+     */
+    public StubMantaClient setChecksumOverride(final String path, final byte[] md5) {
+        checksumOverrides.put(path, md5);
+        return this;
+    }
+
+    /**
+     * Makes ranged requests return the whole object with a 200 status,
+     * simulating a server or proxy that ignores the <code>Range</code> header.
+     *
+     * @param ignore true to ignore ranges
+     * @return this instance
+     */
+    public StubMantaClient setIgnoreRanges(final boolean ignore) {
+        this.ignoreRanges = ignore;
+        return this;
+    }
+
+    /**
+     * Makes responses leave out the etag of objects.
+     *
+     * @param omit true to leave out etags
+     * @return this instance
+     */
+    public StubMantaClient setOmitEtags(final boolean omit) {
+        this.omitEtags = omit;
+        return this;
+    }
+
+    /**
+     * Runs an action at the start of every HEAD request, on the thread
+     * making the request.
+     *
+     * @param hook action to run
+     * @return this instance
+     */
+    public StubMantaClient setHeadHook(final Runnable hook) {
+        this.headHook = hook;
+        return this;
+    }
+
+    public int getChannelReadLimit() {
+        return channelReadLimit;
+    }
+
+    public int callCount(final String method) {
+        final AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    public void resetCallCounts() {
+        calls.clear();
+    }
+
+    public StubMantaClient putObject(final String path, final byte[] content) {
+        objects.put(path, content);
+        return this;
+    }
+
+    public byte[] getObject(final String path) {
+        return objects.get(path);
+    }
+
+    public boolean isDirectory(final String path) {
+        return directories.contains(path);
+    }
+
+    protected void call(final String method) throws IOException {
+        calls.computeIfAbsent(method, k -> new AtomicInteger()).incrementAndGet();
+
+        if (latencyMillis > 0L) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+
+    protected MantaObjectResponse response(final String path) throws MantaClientHttpResponseException {
+        if (directories.contains(path)) {
+            final MantaHttpHeaders headers = new MantaHttpHeaders();
+            headers.setContentType(MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE);
+            headers.setLastModified("Thu, 01 Jan 1970 00:00:00 GMT");
+            return new MantaObjectResponse(path, headers);
+        }
+
+        final byte[] content = objects.get(path);
+
+        if (content == null) {
+            final MantaClientHttpResponseException e = new MantaClientHttpResponseException(
+                    String.format("Not found: %s", path));
+            e.setStatusLine(new BasicStatusLine(HttpVersion.HTTP_1_1, 404, "Not Found"));
+            throw e;
+        }
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setContentType("application/octet-stream");
+        headers.setContentLength((long)content.length);
+        if (!omitEtags) {
+            headers.setETag(Integer.toHexString(System.identityHashCode(content)));
+        }
+
+        headers.put(MantaHttpHeaders.COMPUTED_MD5, Base64.getEncoder().encodeToString(
+                checksumOverrides.getOrDefault(path, DigestUtils.md5(content))));
+        headers.setLastModified("Thu, 01 Jan 1970 00:00:00 GMT");
+        headers.putAll(userMetadata.getOrDefault(path, Collections.emptyMap()));
+
+        return new MantaObjectResponse(path, headers);
+    }
+
+    @Override
+    public MantaObjectResponse head(final String path) throws IOException {
+        call("head");
+        headHook.run();
+        return response(path);
+    }
+
+    @Override
+    public MantaObjectInputStream getAsInputStream(final String path) throws IOException {
+        return getAsInputStream(path, new MantaHttpHeaders());
+    }
+
+    @Override
+    public MantaObjectInputStream getAsInputStream(final String path, final MantaHttpHeaders headers)
+            throws IOException {
+        call("getAsInputStream");
+        MantaObjectResponse response = response(path);
+        final byte[] content = objects.get(path);
+
+        if (headers.getIfMatch() != null && !headers.getIfMatch().equals(response.getEtag())) {
+            final MantaClientHttpResponseException e = new MantaClientHttpResponseException(
+                    String.format("Precondition failed: %s", path));
+            e.setStatusLine(new BasicStatusLine(HttpVersion.HTTP_1_1, 412, "Precondition Failed"));
+            throw e;
+        }
+
+        int start = 0;
+        int end = content.length - 1;
+        boolean partial = false;
+
+        if (headers.getRange() != null && !ignoreRanges) {
+            final Long[] range = headers.getByteRange();
+
+            if (range[0] == null) {
+                start = Math.max(0, content.length + range[1].intValue());
+            } else {
+                start = range[0].intValue();
+
+                if (range[1] != null) {
+                    end = Math.min(end, range[1].intValue());
+                }
+            }
+
+            if (start >= content.length && range[0] != null) {
+                final MantaClientHttpResponseException e = new MantaClientHttpResponseException(
+                        String.format("Range not satisfiable: %s", path));
+                e.setStatusLine(new BasicStatusLine(HttpVersion.HTTP_1_1, 416, "Range Not Satisfiable"));
+                throw e;
+            }
+
+            call("getAsInputStream.range");
+            partial = true;
+
+            final MantaHttpHeaders rangeHeaders = new MantaHttpHeaders(response.getHttpHeaders());
+            rangeHeaders.setContentLength((long)(end - start + 1));
+            rangeHeaders.setContentRange(String.format("bytes %d-%d/%d", start, end, content.length));
+            response = new MantaObjectResponse(path, rangeHeaders);
+        }
+
+        InputStream in = new ByteArrayInputStream(content, start, end - start + 1);
+
+        if (streamFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            in = new FailingInputStream(in, streamFailureAfter, streamFailureTruncates);
+        }
+
+        final StatusLine status = partial
+                ? new BasicStatusLine(HttpVersion.HTTP_1_1, 206, "Partial Content")
+                : new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK");
+        final CloseableHttpResponse http = (CloseableHttpResponse)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {CloseableHttpResponse.class},
+                (proxy, method, args) -> "getStatusLine".equals(method.getName()) ? status : null);
+
+        return new MantaObjectInputStream(response, http, new EofSensorInputStream(in, null));
+    }
+
+    private static class FailingInputStream extends InputStream {
+        private final InputStream in;
+        private final boolean truncate;
+        private int remaining;
+
+        FailingInputStream(final InputStream in, final int afterBytes, final boolean truncate) {
+            this.in = in;
+            this.remaining = afterBytes;
+            this.truncate = truncate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining == 0) {
+                if (truncate) {
+                    return -1;
+                }
+
+                throw new IOException("Connection reset");
+            }
+
+            final int read = in.read(b, off, Math.min(len, remaining));
+
+            if (read > 0) {
+                remaining -= read;
+            }
+
+            return read;
+        }
+    }
+
+    @Override
+    public MantaSeekableByteChannel getSeekableByteChannel(final String path) throws IOException {
+        return getSeekableByteChannel(path, 0L);
+    }
+
+    @Override
+    public MantaSeekableByteChannel getSeekableByteChannel(final String path, final long position)
+            throws IOException {
+        call("getSeekableByteChannel");
+        response(path);
+        return new StubSeekableByteChannel(this, objects.get(path), position);
+    }
+
+    @Override
+    public MantaObjectResponse put(final String path, final InputStream source, final long contentLength,
+                                   final MantaHttpHeaders headers, final MantaMetadata metadata) throws IOException {
+        call("put");
+        response(parent(path));
+        objects.put(path, IOUtils.toByteArray(source));
+        return response(path);
+    }
+
+    @Override
+    public MantaObjectResponse put(final String path, final File file, final MantaHttpHeaders headers,
+                                   final MantaMetadata metadata) throws IOException {
+        call("put.file");
+        response(parent(path));
+        objects.put(path, Files.readAllBytes(file.toPath()));
+        return response(path);
+    }
+
+    @Override
+    public boolean putDirectory(final String path) throws IOException {
+        call("putDirectory");
+        response(parent(path));
+        return directories.add(path);
+    }
+
+    @Override
+    public void putSnapLink(final String linkPath, final String objectPath,
+                            final MantaHttpHeaders headers) throws IOException {
+        call("putSnapLink");
+        response(parent(linkPath));
+
+        final byte[] content = objects.get(objectPath);
+
+        if (content == null) {
+            response(objectPath);
+        }
+
+        objects.put(linkPath, content);
+    }
+
+    private static String parent(final String path) {
+        final int index = path.lastIndexOf(SEPARATOR);
+        return index <= 0 ? SEPARATOR : path.substring(0, index);
+    }
+
+    @Override
+    public void delete(final String path) throws IOException {
+        call("delete");
+
+        final String prefix = path + SEPARATOR;
+
+        if (directories.contains(path) && Stream.concat(directories.stream(), objects.keySet().stream())
+                .anyMatch(p -> p.startsWith(prefix))) {
+            final MantaClientHttpResponseException e = new MantaClientHttpResponseException(
+                    String.format("Directory not empty: %s", path));
+            e.setStatusLine(new BasicStatusLine(HttpVersion.HTTP_1_1, 400, "Bad Request"));
+            e.setServerCode(MantaErrorCode.DIRECTORY_NOT_EMPTY_ERROR);
+            throw e;
+        }
+
+        if (objects.remove(path) == null && !directories.remove(path)) {
+            response(path);
+        }
+    }
+
+    @Override
+    public MantaObjectResponse putMetadata(final String path, final MantaMetadata metadata) throws IOException {
+        call("putMetadata");
+        final MantaObjectResponse response = response(path);
+        final Map<String, String> stored = userMetadata.computeIfAbsent(path, k -> new ConcurrentHashMap<>());
+
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            if (entry.getValue() == null) {
+                stored.remove(entry.getKey());
+            } else {
+                stored.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return response;
+    }
+
+    @Override
+    public Stream<MantaObject> listObjects(final String path) throws IOException {
+        call("listObjects");
+        final String prefix = StringUtils.removeEnd(path, SEPARATOR) + SEPARATOR;
+
+        return Stream.concat(directories.stream(), objects.keySet().stream())
+                .filter(p -> p.startsWith(prefix) && p.length() > prefix.length()
+                        && !p.substring(prefix.length()).contains(SEPARATOR))
+                .sorted()
+                .map(p -> {
+                    try {
+                        return (MantaObject)response(p);
+                    } catch (MantaClientHttpResponseException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .onClose(() -> calls.computeIfAbsent("listObjects.close", k -> new AtomicInteger())
+                        .incrementAndGet());
+    }
+
+    /**
+     * Multipart manager that assembles parts in memory and records the number
+     * of parts being uploaded at the same time.
+     */
+    public class StubMultipartManager extends ServerSideMultipartManager {
+        private final Map<UUID, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile int failingPart = 0;
+
+        public StubMultipartManager() {
+            super(StubMantaClient.this);
+        }
+
+        /**
+         * Makes uploads of the specified part number fail.
+         *
+         * @param partNumber number of the part that fails or 0 for none
+         */
+        public void setFailingPart(final int partNumber) {
+            this.failingPart = partNumber;
+        }
+
+        public int getMaxObservedInFlight() {
+            return maxInFlight.get();
+        }
+
+        public int getOpenUploadCount() {
+            return uploads.size();
+        }
+
+        @Override
+        public int getMinimumPartSize() {
+            return 1;
+        }
+
+        @Override
+        public ServerSideMultipartUpload initiateUpload(final String path) throws IOException {
+            call("initiateUpload");
+            response(parent(path));
+            final UUID id = UUID.randomUUID();
+            uploads.put(id, new ConcurrentHashMap<>());
+            return new ServerSideMultipartUpload(id, path, HOME_DIR + "/uploads/" + id);
+        }
+
+        @Override
+        public MantaMultipartUploadPart uploadPart(final ServerSideMultipartUpload upload, final int partNumber,
+                                                   final long contentLength, final InputStream in)
+                throws IOException {
+            final int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+
+            try {
+                call("uploadPart");
+
+                if (partNumber == failingPart) {
+                    throw new IOException(String.format("Injected failure of part %d", partNumber));
+                }
+
+                final byte[] part = IOUtils.toByteArray(in);
+
+                if (part.length != contentLength) {
+                    throw new IOException(String.format("Expected %d bytes, got %d", contentLength, part.length));
+                }
+
+                uploads.get(upload.getId()).put(partNumber, part);
+                return new MantaMultipartUploadPart(partNumber, upload.getPath(), "etag-" + partNumber);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void complete(final ServerSideMultipartUpload upload,
+                             final Iterable<? extends MantaMultipartUploadTuple> parts) throws IOException {
+            call("complete");
+            final Map<Integer, byte[]> uploaded = uploads.remove(upload.getId());
+            final ByteArrayOutputStream object = new ByteArrayOutputStream();
+            int expected = 1;
+
+            for (MantaMultipartUploadTuple part : parts) {
+                if (part.getPartNumber() != expected++) {
+                    throw new IOException("Parts committed out of order");
+                }
+
+                object.write(uploaded.get(part.getPartNumber()));
+            }
+
+            objects.put(upload.getPath(), object.toByteArray());
+        }
+
+        @Override
+        public void abort(final ServerSideMultipartUpload upload) throws IOException {
+            call("abort");
+            uploads.remove(upload.getId());
+        }
+    }
+}
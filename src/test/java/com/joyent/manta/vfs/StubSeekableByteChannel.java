@@ -0,0 +1,100 @@
+package com.joyent.manta.vfs;
+
+import com.joyent.manta.client.MantaSeekableByteChannel;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory stand-in for {@link MantaSeekableByteChannel} that records the
+ * number of reads made through a {@link StubMantaClient}. Like the real
+ * channel, repositioning returns a new channel whose size is the number of
+ * bytes remaining from the new position.
+ */
+public class StubSeekableByteChannel extends MantaSeekableByteChannel {
+    private final StubMantaClient client;
+    private final byte[] content;
+    private final long start;
+    private long position;
+    private boolean open = true;
+
+    public StubSeekableByteChannel(final StubMantaClient client, final byte[] content, final long position) {
+        super(new AtomicReference<>(), new AtomicReference<>(), "stub", new AtomicLong(position), null, null);
+        this.client = client;
+        this.content = content;
+        this.start = position;
+        this.position = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+        client.call("channel.read");
+
+        if (position >= content.length) {
+            return -1;
+        }
+
+        return content[(int)position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        client.call("channel.read");
+
+        if (position >= content.length) {
+            return -1;
+        }
+
+        final int count = (int)Math.min(Math.min(len, client.getChannelReadLimit()), content.length - position);
+        System.arraycopy(content, (int)position, b, off, count);
+        position += count;
+
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        client.call("channel.skip");
+        final long skipped = Math.max(0L, Math.min(n, content.length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return 0;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        client.call("channel.position");
+        return new StubSeekableByteChannel(client, content, newPosition);
+    }
+
+    @Override
+    public long size() {
+        return content.length - start;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}